@@ -0,0 +1,89 @@
+package imagefuzzygraph.benchmarks;
+
+import imagefuzzygraph.algorithm.BuildGraph;
+import imagefuzzygraph.data.GraphSpec;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graphdb.GraphExamples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link BuildGraph#buildGraph(GraphSpec)} with the random specifications of {@link GraphExamples}. The
+ * images of the regions are read from db/, so the benchmark must be run from the root of the repository. The
+ * descriptors of the images are cached after the first read, so the benchmark measures the construction of the graphs
+ * and not the decoding of the images.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildGraphBenchmark {
+
+    /**
+     * Number of different specifications built in turn.
+     */
+    private static final int NUMBER_OF_SPECS = 256;
+
+    /**
+     * Whether the directions table is used to build the spatial relationships.
+     */
+    @Param({"false", "true"})
+    public boolean useDirectionsTable;
+
+    /**
+     * Specifications of the graphs, with 3-11 regions.
+     */
+    private final ArrayList<GraphSpec> graphSpecs = new ArrayList<>();
+
+    /**
+     * Builder of the graphs.
+     */
+    private BuildGraph buildGraph;
+
+    /**
+     * Position of the next specification built.
+     */
+    private int next;
+
+    /**
+     * Draw the specifications of the graphs.
+     */
+    @Setup
+    public void setUp() {
+        this.buildGraph = new BuildGraph(this.useDirectionsTable);
+        GraphExamples graphExamples = new GraphExamples(this.buildGraph);
+        for (int i = 0; i < NUMBER_OF_SPECS; i++) {
+            this.graphSpecs.add(graphExamples.randomGraphSpec(i));
+        }
+    }
+
+    /**
+     * Build the next graph.
+     *
+     * @return the graph built.
+     * @throws IOException exception thrown if an image can not be read.
+     */
+    @Benchmark
+    public Graph buildGraph() throws IOException {
+        GraphSpec graphSpec = this.graphSpecs.get(this.next);
+        this.next = (this.next + 1) % NUMBER_OF_SPECS;
+        return this.buildGraph.buildGraph(graphSpec);
+    }
+}
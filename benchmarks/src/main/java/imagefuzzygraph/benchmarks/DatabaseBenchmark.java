@@ -0,0 +1,115 @@
+package imagefuzzygraph.benchmarks;
+
+import imagefuzzygraph.graphdb.GraphDatabase;
+import imagefuzzygraph.graphdb.SyntheticGraphGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link GraphDatabase#saveDatabase(String)} and {@link GraphDatabase#readDatabase(String)} with a
+ * database of random graphs, in the binary format and in JSON. The largest databases need a large heap, for example
+ * {@code -jvmArgs -Xmx16g}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    /**
+     * Number of graphs of the database.
+     */
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int databaseSize;
+
+    /**
+     * Extension of the database file, which selects its format.
+     */
+    @Param({".ifgdb", ".json"})
+    public String extension;
+
+    /**
+     * Database of complete random graphs with 3-11 nodes.
+     */
+    private final GraphDatabase database = new GraphDatabase();
+
+    /**
+     * Directory of the database files.
+     */
+    private File directory;
+
+    /**
+     * Database file read by {@link #readDatabase()}.
+     */
+    private File databaseFile;
+
+    /**
+     * Synthesize the database and save it, so it can be read.
+     *
+     * @throws IOException exception thrown if the database can not be saved.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.database.buildSyntheticDatabase(this.databaseSize, new SyntheticGraphGenerator(42));
+        this.directory = Files.createTempDirectory("imagefuzzygraph-benchmarks").toFile();
+        this.databaseFile = new File(this.directory, "database" + this.extension);
+        this.database.saveDatabase(this.databaseFile.getPath());
+    }
+
+    /**
+     * Remove the database files.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = this.directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        this.directory.delete();
+    }
+
+    /**
+     * Save the database.
+     *
+     * @throws IOException exception thrown if the database can not be saved.
+     */
+    @Benchmark
+    public void saveDatabase() throws IOException {
+        this.database.saveDatabase(new File(this.directory, "saved" + this.extension).getPath());
+    }
+
+    /**
+     * Read the database.
+     *
+     * @return the database read.
+     * @throws IOException exception thrown if the database can not be read.
+     */
+    @Benchmark
+    public GraphDatabase readDatabase() throws IOException {
+        GraphDatabase readDatabase = new GraphDatabase();
+        readDatabase.readDatabase(this.databaseFile.getPath());
+        return readDatabase;
+    }
+}
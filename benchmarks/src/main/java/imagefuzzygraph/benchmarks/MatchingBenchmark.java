@@ -0,0 +1,161 @@
+package imagefuzzygraph.benchmarks;
+
+import imagefuzzygraph.algorithm.FuzzyGraphMatching;
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.ListOfMatches;
+import imagefuzzygraph.data.NodeSimilarityMatrix;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.CompactGraph;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graphdb.SyntheticGraphGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link FuzzyGraphMatching#computeInclusion(Graph, Graph, AggregationOperator)} and
+ * {@link FuzzyGraphMatching#computeMatching(Graph, Graph)} between two random graphs, and of the inclusion degree with
+ * a cutoff as {@link imagefuzzygraph.algorithm.GraphQueryEngine} computes it for every graph of a database, once with
+ * the exact inclusion degree as cutoff, so the matching is completed, and once with a cutoff just above it, so with
+ * {@code all} the matching may be abandoned.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchingBenchmark {
+
+    /**
+     * Number of nodes of the source graph.
+     */
+    @Param({"2", "10", "25", "50"})
+    public int graphSize;
+
+    /**
+     * Number of nodes of the query graph.
+     */
+    @Param({"2", "5"})
+    public int querySize;
+
+    /**
+     * Name of the aggregation operator.
+     */
+    @Param({"all", "atLeast"})
+    public String aggregationOperator;
+
+    /**
+     * Source graph.
+     */
+    private Graph source;
+
+    /**
+     * Query graph.
+     */
+    private Graph query;
+
+    /**
+     * Compact form of the source graph.
+     */
+    private CompactGraph compactSource;
+
+    /**
+     * Compact form of the query graph.
+     */
+    private CompactGraph compactQuery;
+
+    /**
+     * Aggregation operator.
+     */
+    private AggregationOperator operator;
+
+    /**
+     * Exact inclusion degree of the query graph in the source graph.
+     */
+    private double inclusion;
+
+    /**
+     * Matching algorithm.
+     */
+    private final FuzzyGraphMatching fuzzyGraphMatching = new FuzzyGraphMatching();
+
+    /**
+     * Synthesize the graphs.
+     */
+    @Setup
+    public void setUp() {
+        SyntheticGraphGenerator syntheticGraphGenerator = new SyntheticGraphGenerator(42);
+        this.source = syntheticGraphGenerator.nextGraph("source", this.graphSize);
+        this.query = syntheticGraphGenerator.nextGraph("query", this.querySize);
+        this.compactSource = this.source.getCompactGraph();
+        this.compactQuery = this.query.getCompactGraph();
+        this.operator = Operators.get(this.aggregationOperator);
+        this.inclusion = this.fuzzyGraphMatching.computeInclusion(this.source, this.query, this.operator);
+    }
+
+    /**
+     * Compute the inclusion degree of the query graph in the source graph.
+     *
+     * @return the inclusion degree.
+     */
+    @Benchmark
+    public double computeInclusion() {
+        return this.fuzzyGraphMatching.computeInclusion(this.source, this.query, this.operator);
+    }
+
+    /**
+     * Compute the matching between the source graph and the query graph.
+     *
+     * @return tuple containing nodes matches and edge matches.
+     */
+    @Benchmark
+    public Tuple<ListOfMatches, ListOfMatches> computeMatching() {
+        return this.fuzzyGraphMatching.computeMatching(this.source, this.query);
+    }
+
+    /**
+     * Compute the inclusion degree of the query graph in the source graph with its exact inclusion degree as cutoff.
+     *
+     * @return the inclusion degree.
+     */
+    @Benchmark
+    public double computeInclusionReachingCutoff() {
+        return this.computeInclusion(this.inclusion);
+    }
+
+    /**
+     * Compute the inclusion degree of the query graph in the source graph with a cutoff just above its exact inclusion
+     * degree.
+     *
+     * @return the inclusion degree, or {@link FuzzyGraphMatching#BELOW_CUTOFF} if the matching was abandoned.
+     */
+    @Benchmark
+    public double computeInclusionMissingCutoff() {
+        return this.computeInclusion(Math.nextUp(this.inclusion));
+    }
+
+    /**
+     * Compute the similarities of the nodes and the inclusion degree of the compact query graph in the compact source
+     * graph with a cutoff.
+     *
+     * @param cutoff inclusion degree below which the exact inclusion degree is not needed.
+     * @return the inclusion degree, or {@link FuzzyGraphMatching#BELOW_CUTOFF} if the matching was abandoned.
+     */
+    private double computeInclusion(double cutoff) {
+        NodeSimilarityMatrix similarities = this.fuzzyGraphMatching.computeSimilarityMatrix(this.compactSource, this.compactQuery);
+        return this.fuzzyGraphMatching.computeInclusion(this.compactSource, this.compactQuery, similarities, this.operator, cutoff);
+    }
+}
@@ -0,0 +1,40 @@
+package imagefuzzygraph.benchmarks;
+
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.AggregationOperators;
+
+/**
+ * Class to build the aggregation operators used by the benchmarks from their names.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class Operators {
+
+    /**
+     * Alpha of the <i>at least</i> operator, the default one of the application.
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * Beta of the <i>at least</i> operator, the default one of the application.
+     */
+    private static final double BETA = 0.7;
+
+    /**
+     * Return the aggregation operator with a name.
+     *
+     * @param name "all" or "atLeast".
+     * @return the aggregation operator.
+     * @throws IllegalArgumentException exception thrown if the name is unknown.
+     */
+    public static AggregationOperator get(String name) {
+        switch (name) {
+            case "all":
+                return AggregationOperators.all();
+            case "atLeast":
+                return AggregationOperators.atLeast(ALPHA, BETA);
+            default:
+                throw new IllegalArgumentException("Unknown aggregation operator: " + name);
+        }
+    }
+}
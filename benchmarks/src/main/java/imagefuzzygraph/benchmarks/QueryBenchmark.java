@@ -0,0 +1,101 @@
+package imagefuzzygraph.benchmarks;
+
+import imagefuzzygraph.algorithm.GraphQueryEngine;
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graphdb.GraphDatabase;
+import imagefuzzygraph.graphdb.SyntheticGraphGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link GraphQueryEngine#query(java.util.List, Graph, AggregationOperator, int)} over a database of
+ * random graphs. The largest databases need a large heap, for example {@code -jvmArgs -Xmx16g}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    /**
+     * Number of best matches returned.
+     */
+    private static final int K = 10;
+
+    /**
+     * Number of graphs of the database.
+     */
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int databaseSize;
+
+    /**
+     * Number of nodes of the query graph.
+     */
+    @Param({"2", "5"})
+    public int querySize;
+
+    /**
+     * Name of the aggregation operator.
+     */
+    @Param({"all", "atLeast"})
+    public String aggregationOperator;
+
+    /**
+     * Database of complete random graphs with 3-11 nodes.
+     */
+    private final GraphDatabase database = new GraphDatabase();
+
+    /**
+     * Query graph.
+     */
+    private Graph query;
+
+    /**
+     * Aggregation operator.
+     */
+    private AggregationOperator operator;
+
+    /**
+     * Query engine.
+     */
+    private final GraphQueryEngine queryEngine = new GraphQueryEngine();
+
+    /**
+     * Synthesize the database and the query graph.
+     */
+    @Setup
+    public void setUp() {
+        SyntheticGraphGenerator syntheticGraphGenerator = new SyntheticGraphGenerator(42);
+        this.database.buildSyntheticDatabase(this.databaseSize, syntheticGraphGenerator);
+        this.query = syntheticGraphGenerator.nextGraph("query", this.querySize);
+        this.operator = Operators.get(this.aggregationOperator);
+    }
+
+    /**
+     * Query the database.
+     *
+     * @return the best matches.
+     */
+    @Benchmark
+    public ArrayList<Tuple<Integer, Double>> query() {
+        return this.queryEngine.query(this.database, this.query, this.operator, K);
+    }
+}
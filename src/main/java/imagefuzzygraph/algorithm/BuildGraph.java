@@ -1,6 +1,8 @@
 package imagefuzzygraph.algorithm;
 
 import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.GraphSpec;
+import imagefuzzygraph.data.LRUCache;
 import imagefuzzygraph.data.PropertyWithDegree;
 import imagefuzzygraph.data.Region;
 import imagefuzzygraph.data.Tuple;
@@ -21,9 +23,17 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class to build a graph automatically.
@@ -32,6 +42,107 @@ import java.util.HashMap;
  */
 public class BuildGraph {
 
+    /**
+     * Fuzzy sets representing the directions of the spatial relationships, as angles between 0 and 360 degrees.
+     */
+    static final FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double> DIRECTIONS = new FuzzySetCollection<>(Arrays.asList(
+            new FunctionBasedFuzzySet<>("right", new TrapezoidalFunction<>(0.0, 0.0, 20.0, 70.0)),
+            new FunctionBasedFuzzySet<>("up", new TrapezoidalFunction<>(20.0, 70.0, 110.0, 160.0)),
+            new FunctionBasedFuzzySet<>("left", new TrapezoidalFunction<>(110.0, 160.0, 200.0, 250.0)),
+            new FunctionBasedFuzzySet<>("down", new TrapezoidalFunction<>(200.0, 250.0, 290.0, 340.0)),
+            new FunctionBasedFuzzySet<>("right", new TrapezoidalFunction<>(290.0, 340.0, 360.0, 360.0))));
+
+    /**
+     * Maximum number of colors whose fuzzy descriptor is cached.
+     */
+    private static final int COLOR_DESCRIPTORS_CACHE_CAPACITY = 4096;
+
+    /**
+     * Fuzzy descriptors of the last colors processed, indexed by their 24-bit RGB value.
+     */
+    private static final LRUCache<Integer, Descriptor> colorDescriptors = new LRUCache<>(COLOR_DESCRIPTORS_CACHE_CAPACITY);
+
+    /**
+     * Number of pending tasks allowed per thread when building several graphs in parallel.
+     */
+    private static final int BUILD_QUEUE_CAPACITY_PER_THREAD = 4;
+
+    /**
+     * Key identifying how the dominant color fuzzy descriptors of the regions are built, to be given to a persisted
+     * {@link RegionDescriptorCache}. It must be changed whenever the color space or the extraction of the dominant
+     * colors changes, so the descriptors persisted before are discarded.
+     */
+    public static final String REGION_DESCRIPTOR_BUILDER_KEY = "MPEG7DominantColors/FuzzyCMeansFCS(ISCC basic)/v1";
+
+    /**
+     * Whether the spatial relationships are computed with the lookup table of the directions.
+     */
+    private final boolean useDirectionsTable;
+
+    /**
+     * Cache of the dominant color fuzzy descriptors of the images of the regions, or null if every image is decoded
+     * every time it is needed.
+     */
+    private final RegionDescriptorCache regionDescriptorCache;
+
+    /**
+     * Construct a graph builder which evaluates the fuzzy sets of the directions for every spatial relationship.
+     */
+    public BuildGraph() {
+        this(false);
+    }
+
+    /**
+     * Construct a graph builder which decodes the image of every region each time it is needed, without caching its
+     * descriptor.
+     *
+     * @param useDirectionsTable whether the spatial relationships are looked up in a precomputed table of the
+     *                           directions, which matches the evaluation of the fuzzy sets up to rounding errors.
+     */
+    public BuildGraph(boolean useDirectionsTable) {
+        this(useDirectionsTable, null);
+    }
+
+    /**
+     * Construct a graph builder.
+     *
+     * @param useDirectionsTable    whether the spatial relationships are looked up in a precomputed table of the
+     *                              directions, which matches the evaluation of the fuzzy sets up to rounding errors.
+     * @param regionDescriptorCache cache of the dominant color fuzzy descriptors of the images of the regions, or null
+     *                              to decode the image of every region each time it is needed.
+     */
+    public BuildGraph(boolean useDirectionsTable, RegionDescriptorCache regionDescriptorCache) {
+        this.useDirectionsTable = useDirectionsTable;
+        this.regionDescriptorCache = regionDescriptorCache;
+    }
+
+    /**
+     * Class holding the fuzzy color space, so it is built once, the first time it is needed. Possibility distributions
+     * can be computed on it from several threads.
+     */
+    private static class ColorSpaceHolder {
+        private static final FuzzyColorSpace<Point3D> FUZZY_COLOR_SPACE = FuzzyColorSpace.Factory.createFuzzyCMeansFCS(new ISCCColorMap(ISCCColorMap.TYPE_BASIC));
+    }
+
+    /**
+     * Class holding the lookup table of the directions, so it is built once, the first time it is needed.
+     */
+    private static class DirectionsTableHolder {
+        private static final SpatialRelationshipLookupTable DIRECTIONS_TABLE = new SpatialRelationshipLookupTable(DIRECTIONS);
+    }
+
+    /**
+     * Return the fuzzy descriptor of a color, looking it up in the cache first. The descriptor returned is shared, so
+     * it must not be modified.
+     *
+     * @param color color to be processed.
+     * @return fuzzy descriptor of the color.
+     */
+    private Descriptor getColorFuzzyDescriptor(Color color) {
+        return colorDescriptors.computeIfAbsent(color.getRGB() & 0xFFFFFF,
+                rgb -> this.buildColorFuzzyDescriptor(new Point3D(color.getRed(), color.getGreen(), color.getBlue())));
+    }
+
     /**
      * Build the fuzzy descriptor of the color.
      *
@@ -40,7 +151,7 @@ public class BuildGraph {
      */
     private Descriptor buildColorFuzzyDescriptor(Point3D color) {
         Descriptor colorDescriptor = new Descriptor();
-        FuzzyColorSpace<Point3D> fcs = FuzzyColorSpace.Factory.createFuzzyCMeansFCS(new ISCCColorMap(ISCCColorMap.TYPE_BASIC));
+        FuzzyColorSpace<Point3D> fcs = ColorSpaceHolder.FUZZY_COLOR_SPACE;
         ArrayList<FuzzySetCollection<FuzzyColor<Point3D>, Point3D>.PossibilityDistributionItem> pd = fcs.getPossibilityDistribution(color);
         for (FuzzySetCollection<FuzzyColor<Point3D>, Point3D>.PossibilityDistributionItem possibilityDistributionItem : pd) {
             colorDescriptor.add(new PropertyWithDegree(possibilityDistributionItem.fuzzySet.getLabel(), possibilityDistributionItem.degree));
@@ -48,6 +159,21 @@ public class BuildGraph {
         return colorDescriptor;
     }
 
+    /**
+     * Return the fuzzy descriptor for the dominant color of the image of a region, from the cache of the builder if it
+     * has one.
+     *
+     * @param imagePath path of the image.
+     * @return fuzzy descriptor for the dominant color of the image.
+     * @throws IOException exception thrown if the image can not be read.
+     */
+    private Descriptor getDominantColorFuzzyDescriptor(String imagePath) throws IOException {
+        if (this.regionDescriptorCache == null) {
+            return this.buildDominantColorFuzzyDescriptor(ImageIO.read(new File(imagePath)));
+        }
+        return this.regionDescriptorCache.get(new File(imagePath), this::buildDominantColorFuzzyDescriptor);
+    }
+
     /**
      * Generate a fuzzy descriptor for the dominant color of the given image.
      *
@@ -59,9 +185,7 @@ public class BuildGraph {
         MPEG7DominantColors dcd = new MPEG7DominantColors(img);
         ArrayList<MPEG7DominantColors.MPEG7SingleDominatColor> dominantColors = dcd.getDominantColors();
         for (MPEG7DominantColors.MPEG7SingleDominatColor dominantColor : dominantColors) {
-            Color colorData = dominantColor.getColorData();
-            Point3D color = new Point3D(colorData.getRed(), colorData.getGreen(), colorData.getBlue());
-            colorDescriptors.add(this.buildColorFuzzyDescriptor(color));
+            colorDescriptors.add(this.getColorFuzzyDescriptor(dominantColor.getColorData()));
         }
         return this.mergeDescriptors(colorDescriptors);
     }
@@ -96,20 +220,17 @@ public class BuildGraph {
      * @param y2 y coordinate of the second point.
      * @return fuzzy descriptor of the spatial relationship for two points.
      */
-    private Descriptor buildSpatialRelationshipFuzzyDescriptor(double x1, double y1, double x2, double y2) {
+    public Descriptor buildSpatialRelationshipFuzzyDescriptor(double x1, double y1, double x2, double y2) {
         double angle = Math.toDegrees(Math.atan2(y2 - y1, x2 - x1));
         // Keep angle between 0 and 360
         angle = angle + Math.ceil(-angle / 360) * 360;
 
-        FunctionBasedFuzzySet<Double> rightFirstPart = new FunctionBasedFuzzySet<>("right", new TrapezoidalFunction<>(0.0, 0.0, 20.0, 70.0));
-        FunctionBasedFuzzySet<Double> up = new FunctionBasedFuzzySet<>("up", new TrapezoidalFunction<>(20.0, 70.0, 110.0, 160.0));
-        FunctionBasedFuzzySet<Double> left = new FunctionBasedFuzzySet<>("left", new TrapezoidalFunction<>(110.0, 160.0, 200.0, 250.0));
-        FunctionBasedFuzzySet<Double> down = new FunctionBasedFuzzySet<>("down", new TrapezoidalFunction<>(200.0, 250.0, 290.0, 340.0));
-        FunctionBasedFuzzySet<Double> rightSecondPart = new FunctionBasedFuzzySet<>("right", new TrapezoidalFunction<>(290.0, 340.0, 360.0, 360.0));
+        if (this.useDirectionsTable) {
+            return DirectionsTableHolder.DIRECTIONS_TABLE.getDescriptor(angle);
+        }
 
         Descriptor fuzzySpatialRelationshipDescriptor = new Descriptor();
-        FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double> fsc = new FuzzySetCollection<>(Arrays.asList(rightFirstPart, up, left, down, rightSecondPart));
-        ArrayList<FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem> pd = fsc.getPossibilityDistribution(angle);
+        ArrayList<FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem> pd = DIRECTIONS.getPossibilityDistribution(angle);
         for (FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem pdItem : pd) {
             fuzzySpatialRelationshipDescriptor.add(new PropertyWithDegree(pdItem.fuzzySet.getLabel(), pdItem.degree));
         }
@@ -154,6 +275,31 @@ public class BuildGraph {
         return labelDescriptor;
     }
 
+    /**
+     * Build the edges starting at a region towards every other region.
+     *
+     * @param i       index of the start region.
+     * @param regions regions of an image.
+     * @return edges starting at the node of the region, in the order of the end regions.
+     */
+    private ArrayList<Edge> buildEdges(int i, ArrayList<Region> regions) {
+        ArrayList<Edge> edges = new ArrayList<>();
+        String startNodeId = this.buildNodeId(i);
+        for (int j = 0; j < regions.size(); j++) {
+            // Do not create auto-edges.
+            if (i != j) {
+                String endNodeId = this.buildNodeId(j);
+                Tuple<Double, Double> firstPoint = regions.get(i).getLocation();
+                Tuple<Double, Double> secondPoint = regions.get(j).getLocation();
+                Descriptor locationFuzzyDescriptor = this.buildSpatialRelationshipFuzzyDescriptor(firstPoint.getFirst(),
+                        firstPoint.getSecond(), secondPoint.getFirst(), secondPoint.getSecond());
+
+                edges.add(new Edge(this.buildEdgeId(startNodeId, endNodeId), startNodeId, endNodeId, locationFuzzyDescriptor));
+            }
+        }
+        return edges;
+    }
+
     /**
      * Build a graph for a list regions and information about labels of those regions.
      *
@@ -168,25 +314,114 @@ public class BuildGraph {
 
         for (int i = 0; i < regions.size(); i++) {
             String imagePath = regions.get(i).getImagePath();
-            Descriptor colorFuzzyDescriptor = this.buildDominantColorFuzzyDescriptor(ImageIO.read(new File(imagePath)));
-            String startNodeId = this.buildNodeId(i);
+            Descriptor colorFuzzyDescriptor = this.getDominantColorFuzzyDescriptor(imagePath);
             nodes.add(new Node(this.buildNodeId(i), colorFuzzyDescriptor, this.buildLabelDescriptor(labelsInfo.get(i)),
                     regions.get(i).getImagePath(), regions.get(i).getLocation()));
+            edges.addAll(this.buildEdges(i, regions));
+        }
+
+        return new Graph(graphId, nodes, edges);
+    }
+
+    /**
+     * Build a graph for a list regions and information about labels of those regions.
+     *
+     * @param graphSpec regions and information about the labels of the graph.
+     * @return graph for a list regions and information about labels of those regions.
+     */
+    public Graph buildGraph(GraphSpec graphSpec) throws IOException {
+        return this.buildGraph(graphSpec.getGraphId(), graphSpec.getRegions(), graphSpec.getLabelsInfo());
+    }
+
+    /**
+     * Build several graphs in parallel, using as many threads as available processors.
+     *
+     * @param graphSpecs regions and information about the labels of every graph.
+     * @return graphs in the same order as their specifications. The result is the same as building them one by one.
+     * @throws IOException exception thrown if an image can not be read.
+     */
+    public ArrayList<Graph> buildGraphs(List<GraphSpec> graphSpecs) throws IOException {
+        return this.buildGraphs(graphSpecs, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Build several graphs in parallel. First, the images of all the regions are decoded and their dominant colors
+     * extracted, every image once. Then, the edges of every node are built. Both steps are done by a pool of threads
+     * with a bounded queue of pending work, so the calling thread waits or helps when the queue is full.
+     *
+     * @param graphSpecs      regions and information about the labels of every graph.
+     * @param numberOfThreads number of threads used.
+     * @return graphs in the same order as their specifications. The result is the same as building them one by one.
+     * @throws IOException exception thrown if an image can not be read.
+     */
+    public ArrayList<Graph> buildGraphs(List<GraphSpec> graphSpecs, int numberOfThreads) throws IOException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(BUILD_QUEUE_CAPACITY_PER_THREAD * numberOfThreads), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            LinkedHashMap<String, Future<Descriptor>> colorFuzzyDescriptors = new LinkedHashMap<>();
+            for (GraphSpec graphSpec : graphSpecs) {
+                for (Region region : graphSpec.getRegions()) {
+                    String imagePath = region.getImagePath();
+                    if (!colorFuzzyDescriptors.containsKey(imagePath)) {
+                        colorFuzzyDescriptors.put(imagePath, executor.submit(() -> this.getDominantColorFuzzyDescriptor(imagePath)));
+                    }
+                }
+            }
 
-            for (int j = 0; j < regions.size(); j++) {
-                // Do not create auto-edges.
-                if (i != j) {
-                    String endNodeId = this.buildNodeId(j);
-                    Tuple<Double, Double> firstPoint = regions.get(i).getLocation();
-                    Tuple<Double, Double> secondPoint = regions.get(j).getLocation();
-                    Descriptor locationFuzzyDescriptor = this.buildSpatialRelationshipFuzzyDescriptor(firstPoint.getFirst(),
-                            firstPoint.getSecond(), secondPoint.getFirst(), secondPoint.getSecond());
+            ArrayList<ArrayList<Future<ArrayList<Edge>>>> edgesByNode = new ArrayList<>();
+            for (GraphSpec graphSpec : graphSpecs) {
+                ArrayList<Future<ArrayList<Edge>>> graphEdges = new ArrayList<>();
+                for (int i = 0; i < graphSpec.getRegions().size(); i++) {
+                    int startNode = i;
+                    graphEdges.add(executor.submit(() -> this.buildEdges(startNode, graphSpec.getRegions())));
+                }
+                edgesByNode.add(graphEdges);
+            }
 
-                    edges.add(new Edge(this.buildEdgeId(startNodeId, endNodeId), startNodeId, endNodeId, locationFuzzyDescriptor));
+            ArrayList<Graph> graphs = new ArrayList<>();
+            for (int g = 0; g < graphSpecs.size(); g++) {
+                GraphSpec graphSpec = graphSpecs.get(g);
+                ArrayList<Region> regions = graphSpec.getRegions();
+                ArrayList<Node> nodes = new ArrayList<>();
+                ArrayList<Edge> edges = new ArrayList<>();
+                for (int i = 0; i < regions.size(); i++) {
+                    Descriptor colorFuzzyDescriptor = getResult(colorFuzzyDescriptors.get(regions.get(i).getImagePath()));
+                    nodes.add(new Node(this.buildNodeId(i), colorFuzzyDescriptor, this.buildLabelDescriptor(graphSpec.getLabelsInfo().get(i)),
+                            regions.get(i).getImagePath(), regions.get(i).getLocation()));
+                    edges.addAll(getResult(edgesByNode.get(g).get(i)));
                 }
+                graphs.add(new Graph(graphSpec.getGraphId(), nodes, edges));
             }
+            return graphs;
+        } finally {
+            executor.shutdownNow();
         }
+    }
 
-        return new Graph(graphId, nodes, edges);
+    /**
+     * Wait for the result of a task.
+     *
+     * @param future pending result of the task.
+     * @param <T>    type of the result.
+     * @return the result of the task.
+     * @throws IOException exception thrown if the task failed reading an image.
+     */
+    private static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while building graphs");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
     }
-}
\ No newline at end of file
+}
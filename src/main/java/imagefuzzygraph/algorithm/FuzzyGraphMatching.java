@@ -1,53 +1,251 @@
 package imagefuzzygraph.algorithm;
 
 import imagefuzzygraph.data.AggregationOperator;
-import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.AggregationOperators;
+import imagefuzzygraph.data.CompiledDescriptor;
+import imagefuzzygraph.data.CompiledDescriptorTable;
+import imagefuzzygraph.data.EdgeInclusionCache;
+import imagefuzzygraph.data.GradedResemblance;
+import imagefuzzygraph.data.Implication;
+import imagefuzzygraph.data.Implications;
 import imagefuzzygraph.data.ListOfMatches;
-import imagefuzzygraph.data.PropertyWithDegree;
+import imagefuzzygraph.data.NodeSimilarityMatrix;
+import imagefuzzygraph.data.Resemblance;
+import imagefuzzygraph.data.TNorm;
+import imagefuzzygraph.data.TNorms;
 import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.CompactGraph;
 import imagefuzzygraph.graph.Edge;
 import imagefuzzygraph.graph.Graph;
 import imagefuzzygraph.graph.Node;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
- * Class to perform a fuzzy graph matching.
+ * Class to perform a fuzzy graph matching. The t-norm, the implication and the resemblance relation between color
+ * labels can be chosen. The built-in ones, {@link TNorms}, {@link Implications} and {@link GradedResemblance}, are
+ * called through fields of their own final types, so choosing one adds no dynamic dispatch to the matching, and only
+ * other implementations are called through their interfaces.
  *
  * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
  */
 public class FuzzyGraphMatching {
 
+    /**
+     * Value returned by {@link #computeInclusion(CompactGraph, CompactGraph, NodeSimilarityMatrix, AggregationOperator, double)}
+     * when the matching is abandoned because the inclusion degree is known to be lower than the cutoff.
+     */
+    public static final double BELOW_CUTOFF = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Number of inclusion degrees between edges found in a cache, over all the matchings computed.
+     */
+    private final LongAdder edgeInclusionCacheHits = new LongAdder();
+
+    /**
+     * Number of inclusion degrees between edges not found in a cache, over all the matchings computed.
+     */
+    private final LongAdder edgeInclusionCacheMisses = new LongAdder();
+
+    /**
+     * Reusable state of the matchings, one per thread, so matching a graph allocates almost nothing.
+     */
+    private final ThreadLocal<MatchingWorkspace> workspaces = ThreadLocal.withInitial(MatchingWorkspace::new);
+
+    /**
+     * T-norm used as the conjunction of degrees.
+     */
+    private final TNorm tNorm;
+
+    /**
+     * T-norm used as the conjunction of degrees if it is one of {@link TNorms}, or null otherwise.
+     */
+    private final TNorms builtInTNorm;
+
+    /**
+     * Implication used to include a degree of a fuzzy descriptor in a degree of another one.
+     */
+    private final Implication implication;
+
+    /**
+     * Implication used to include degrees if it is one of {@link Implications}, or null otherwise.
+     */
+    private final Implications builtInImplication;
+
+    /**
+     * Resemblance relation between the labels of the color fuzzy descriptors.
+     */
+    private final Resemblance colorResemblance;
+
+    /**
+     * Resemblance relation between the labels of the color fuzzy descriptors if it is a {@link GradedResemblance}, or
+     * null otherwise.
+     */
+    private final GradedResemblance gradedColorResemblance;
+
+    /**
+     * Construct a fuzzy graph matching with the minimum t-norm, the Goguen implication and the crisp resemblance
+     * relation.
+     */
+    public FuzzyGraphMatching() {
+        this(TNorms.MINIMUM, Implications.GOGUEN, Resemblance.CRISP);
+    }
+
+    /**
+     * Construct a fuzzy graph matching. The labels of the label descriptors and of the spatial relationship
+     * descriptors are always compared with the crisp resemblance relation.
+     *
+     * @param tNorm            t-norm used as the conjunction of degrees.
+     * @param implication      implication used to include a degree of a fuzzy descriptor in a degree of another one.
+     * @param colorResemblance resemblance relation between the labels of the color fuzzy descriptors.
+     */
+    public FuzzyGraphMatching(TNorm tNorm, Implication implication, Resemblance colorResemblance) {
+        this.tNorm = tNorm;
+        this.builtInTNorm = tNorm instanceof TNorms ? (TNorms) tNorm : null;
+        this.implication = implication;
+        this.builtInImplication = implication instanceof Implications ? (Implications) implication : null;
+        this.colorResemblance = colorResemblance;
+        this.gradedColorResemblance = colorResemblance instanceof GradedResemblance ? (GradedResemblance) colorResemblance : null;
+    }
+
+    /**
+     * Return whether the labels of the color fuzzy descriptors are compared with the crisp resemblance relation. The
+     * candidates of {@link imagefuzzygraph.graphdb.InvertedGraphIndex} are only valid for such matchings.
+     *
+     * @return true if the color resemblance relation is {@link Resemblance#CRISP}.
+     */
+    public boolean hasCrispColorResemblance() {
+        return this.colorResemblance == Resemblance.CRISP;
+    }
+
+    /**
+     * Return a key identifying the inclusion degrees computed by the matching, equal for matchings built with the same
+     * t-norm, implication and color resemblance relation, so results computed with a matching can be reused for an
+     * equivalent one.
+     *
+     * @return the key of the matching.
+     */
+    public Object getKey() {
+        return Arrays.asList(this.tNorm, this.implication, this.colorResemblance);
+    }
+
+    /**
+     * Return the number of inclusion degrees between edges found in a cache, over all the matchings computed by
+     * {@link #computeInclusion} and {@link #computeMatching(Graph, Graph, NodeSimilarityMatrix)}.
+     *
+     * @return the number of cache hits.
+     */
+    public long getEdgeInclusionCacheHits() {
+        return this.edgeInclusionCacheHits.sum();
+    }
+
+    /**
+     * Return the number of inclusion degrees between edges not found in a cache, that is, the number of times the
+     * spatial relationship fuzzy descriptors of two edges have been compared.
+     *
+     * @return the number of cache misses.
+     */
+    public long getEdgeInclusionCacheMisses() {
+        return this.edgeInclusionCacheMisses.sum();
+    }
+
+    /**
+     * Add the hits and misses of a cache to the statistics of this object.
+     *
+     * @param cache cache of inclusion degrees between edges.
+     */
+    private void recordEdgeInclusionCacheStatistics(EdgeInclusionCache cache) {
+        this.edgeInclusionCacheHits.add(cache.getHits());
+        this.edgeInclusionCacheMisses.add(cache.getMisses());
+    }
+
     /**
      * Compute a matrix representing the similarity between two nodes.
      *
      * @param sourceNodes source nodes.
      * @param queryNodes  query nodes.
-     * @return matrix where, for row i and column j we have the similarity between sourceNodes[i] and queryNodes[j]. To
-     * handle deletion of nodes, a nested HashMap indexed by node identifiers is used instead of a matrix.
+     * @return matrix where, for row i and column j we have the similarity between sourceNodes[i] and queryNodes[j].
      */
-    public Map<String, Map<String, Double>> computeSimilarities(ArrayList<Node> sourceNodes, ArrayList<Node> queryNodes) {
-        Map<String, Map<String, Double>> similarities = new HashMap<>();
-        for (Node sourceNode : sourceNodes) {
-            Map<String, Double> queryNodeSimilarities = new HashMap<>();
-            for (Node queryNode : queryNodes) {
-                queryNodeSimilarities.put(queryNode.getId(), fuzzyNodeInclusion(sourceNode, queryNode));
+    public NodeSimilarityMatrix computeSimilarityMatrix(ArrayList<Node> sourceNodes, ArrayList<Node> queryNodes) {
+        String[] sourceNodeIds = new String[sourceNodes.size()];
+        String[] queryNodeIds = new String[queryNodes.size()];
+        for (int i = 0; i < sourceNodeIds.length; i++) {
+            sourceNodeIds[i] = sourceNodes.get(i).getId();
+        }
+        for (int j = 0; j < queryNodeIds.length; j++) {
+            queryNodeIds[j] = queryNodes.get(j).getId();
+        }
+        NodeSimilarityMatrix similarities = new NodeSimilarityMatrix(Arrays.asList(sourceNodeIds), Arrays.asList(queryNodeIds));
+        for (int i = 0; i < sourceNodes.size(); i++) {
+            Node sourceNode = sourceNodes.get(i);
+            for (int j = 0; j < queryNodes.size(); j++) {
+                similarities.set(i, j, this.fuzzyNodeInclusion(sourceNode, queryNodes.get(j)));
+            }
+        }
+
+        return similarities;
+    }
+
+    /**
+     * Compute a matrix representing the similarity between the nodes of two graphs.
+     *
+     * @param source source graph.
+     * @param query  query graph.
+     * @return matrix where, for row i and column j we have the similarity between the source node with ordinal i and
+     * the query node with ordinal j.
+     */
+    public NodeSimilarityMatrix computeSimilarityMatrix(CompactGraph source, CompactGraph query) {
+        String[] sourceNodeIds = new String[source.getNumberOfNodes()];
+        String[] queryNodeIds = new String[query.getNumberOfNodes()];
+        for (int i = 0; i < sourceNodeIds.length; i++) {
+            sourceNodeIds[i] = source.getNodeId(i);
+        }
+        for (int j = 0; j < queryNodeIds.length; j++) {
+            queryNodeIds[j] = query.getNodeId(j);
+        }
+        NodeSimilarityMatrix similarities = new NodeSimilarityMatrix(Arrays.asList(sourceNodeIds), Arrays.asList(queryNodeIds));
+        for (int i = 0; i < sourceNodeIds.length; i++) {
+            for (int j = 0; j < queryNodeIds.length; j++) {
+                double colorInclusion = this.colorInclusion(source.getColorFuzzyDescriptors(), i, query.getColorFuzzyDescriptors(), j);
+                double labelInclusion = this.fuzzyInclusion(source.getLabelDescriptors(), i, query.getLabelDescriptors(), j);
+                similarities.set(i, j, this.tNorm(colorInclusion, labelInclusion));
             }
-            similarities.put(sourceNode.getId(), queryNodeSimilarities);
         }
 
         return similarities;
     }
 
+    /**
+     * Compute a matrix representing the similarity between two nodes.
+     *
+     * @param sourceNodes source nodes.
+     * @param queryNodes  query nodes.
+     * @return matrix where, for row i and column j we have the similarity between sourceNodes[i] and queryNodes[j]. A
+     * nested HashMap indexed by node identifiers is used instead of a matrix.
+     * @see #computeSimilarityMatrix(ArrayList, ArrayList)
+     */
+    public Map<String, Map<String, Double>> computeSimilarities(ArrayList<Node> sourceNodes, ArrayList<Node> queryNodes) {
+        return this.computeSimilarityMatrix(sourceNodes, queryNodes).toMap();
+    }
+
+    /**
+     * Return the identifiers of a list of nodes.
+     *
+     * @param nodes list of nodes.
+     * @return the identifiers of the nodes, in the same order.
+     */
+    private static List<String> getNodeIds(List<Node> nodes) {
+        return nodes.stream().map(Node::getId).collect(Collectors.toList());
+    }
+
     /**
      * Compute the inclusion degree of the fuzzy descriptor FDi in the fuzzy descriptor FDj. The implication operator
-     * used is the following one:
+     * used is the one of the matching, by default the following one:
      *
      * <pre>
      *          | 1, x ≤ y
@@ -63,24 +261,133 @@ public class FuzzyGraphMatching {
      *          | 0, otherwise
      * </pre>
      *
+     * As the resemblance relation is crisp, only the properties with the same label contribute to the inclusion
+     * degree, so it is computed by merging both descriptors in a single pass over their sorted label identifiers. The
+     * inclusion degree of an empty descriptor is 1.
+     *
+     * @param FDi fuzzy descriptor i.
+     * @param FDj fuzzy descriptor j.
+     * @return the inclusion degree of the fuzzy descriptor FDi in the fuzzy descriptor FDj.
+     */
+    private double fuzzyInclusion(CompiledDescriptor FDi, CompiledDescriptor FDj) {
+        double inclusion = 1.0;
+        int j = 0;
+        for (int i = 0; i < FDi.size() && inclusion > 0.0; i++) {
+            int labelId = FDi.getLabelId(i);
+            while (j < FDj.size() && FDj.getLabelId(j) < labelId) {
+                j++;
+            }
+
+            // S(x,y) = 0 for every other property of FDj, and T(0, I) = 0.
+            double theta = 0.0;
+            if (j < FDj.size() && FDj.getLabelId(j) == labelId) {
+                double xi = FDi.getDegree(i);
+                double xj = FDj.getDegree(j);
+                double I = this.implication(xi, xj);
+                theta = this.tNorm(1.0, I);
+            }
+            inclusion = Math.min(inclusion, theta);
+        }
+
+        return inclusion;
+    }
+
+    /**
+     * Compute the inclusion degree of the fuzzy descriptor FDi in the fuzzy descriptor FDj, as
+     * {@link #fuzzyInclusion(CompiledDescriptor, CompiledDescriptor)} does, when both descriptors are stored in
+     * {@link CompiledDescriptorTable}s.
+     *
+     * @param tableI table of the fuzzy descriptor i.
+     * @param FDi    position of the fuzzy descriptor i in its table.
+     * @param tableJ table of the fuzzy descriptor j.
+     * @param FDj    position of the fuzzy descriptor j in its table.
+     * @return the inclusion degree of the fuzzy descriptor FDi in the fuzzy descriptor FDj.
+     */
+    private double fuzzyInclusion(CompiledDescriptorTable tableI, int FDi, CompiledDescriptorTable tableJ, int FDj) {
+        double inclusion = 1.0;
+        int lastI = tableI.getFirstProperty(FDi + 1);
+        int j = tableJ.getFirstProperty(FDj);
+        int lastJ = tableJ.getFirstProperty(FDj + 1);
+        for (int i = tableI.getFirstProperty(FDi); i < lastI && inclusion > 0.0; i++) {
+            int labelId = tableI.getLabelId(i);
+            while (j < lastJ && tableJ.getLabelId(j) < labelId) {
+                j++;
+            }
+
+            // S(x,y) = 0 for every other property of FDj, and T(0, I) = 0.
+            double theta = 0.0;
+            if (j < lastJ && tableJ.getLabelId(j) == labelId) {
+                double xi = tableI.getDegree(i);
+                double xj = tableJ.getDegree(j);
+                double I = this.implication(xi, xj);
+                theta = this.tNorm(1.0, I);
+            }
+            inclusion = Math.min(inclusion, theta);
+        }
+
+        return inclusion;
+    }
+
+    /**
+     * Compute the inclusion degree of the color fuzzy descriptor FDi in the color fuzzy descriptor FDj, with the
+     * resemblance relation between color labels of the matching.
+     *
      * @param FDi fuzzy descriptor i.
      * @param FDj fuzzy descriptor j.
      * @return the inclusion degree of the fuzzy descriptor FDi in the fuzzy descriptor FDj.
      */
-    private double fuzzyInclusion(Descriptor FDi, Descriptor FDj) {
-        ArrayList<ArrayList<Double>> finalValues = new ArrayList<>();
-        for (PropertyWithDegree fpi : FDi) {
-            ArrayList<Double> values = new ArrayList<>();
-            for (PropertyWithDegree fpj : FDj) {
-                double S = fpi.getLabel().equals(fpj.getLabel()) ? 1.0 : 0.0;
-                double I = fpi.getDegree() <= fpj.getDegree() ? 1.0 : fpj.getDegree() / fpi.getDegree();
-                double theta = this.tNorm(S, I);
-                values.add(theta);
+    private double colorInclusion(CompiledDescriptor FDi, CompiledDescriptor FDj) {
+        if (this.colorResemblance == Resemblance.CRISP) {
+            return this.fuzzyInclusion(FDi, FDj);
+        }
+
+        double inclusion = 1.0;
+        for (int i = 0; i < FDi.size() && inclusion > 0.0; i++) {
+            double theta = 0.0;
+            for (int j = 0; j < FDj.size() && theta < 1.0; j++) {
+                double resemblance = this.colorResemblance(FDi.getLabelId(i), FDj.getLabelId(j));
+                if (resemblance > 0.0) {
+                    theta = Math.max(theta, this.tNorm(resemblance, this.implication(FDi.getDegree(i), FDj.getDegree(j))));
+                }
             }
-            finalValues.add(values);
+            inclusion = Math.min(inclusion, theta);
         }
 
-        return Collections.min(finalValues.stream().map(Collections::max).collect(Collectors.toList()));
+        return inclusion;
+    }
+
+    /**
+     * Compute the inclusion degree of the color fuzzy descriptor FDi in the color fuzzy descriptor FDj, as
+     * {@link #colorInclusion(CompiledDescriptor, CompiledDescriptor)} does, when both descriptors are stored in
+     * {@link CompiledDescriptorTable}s.
+     *
+     * @param tableI table of the fuzzy descriptor i.
+     * @param FDi    position of the fuzzy descriptor i in its table.
+     * @param tableJ table of the fuzzy descriptor j.
+     * @param FDj    position of the fuzzy descriptor j in its table.
+     * @return the inclusion degree of the fuzzy descriptor FDi in the fuzzy descriptor FDj.
+     */
+    private double colorInclusion(CompiledDescriptorTable tableI, int FDi, CompiledDescriptorTable tableJ, int FDj) {
+        if (this.colorResemblance == Resemblance.CRISP) {
+            return this.fuzzyInclusion(tableI, FDi, tableJ, FDj);
+        }
+
+        double inclusion = 1.0;
+        int lastI = tableI.getFirstProperty(FDi + 1);
+        int firstJ = tableJ.getFirstProperty(FDj);
+        int lastJ = tableJ.getFirstProperty(FDj + 1);
+        for (int i = tableI.getFirstProperty(FDi); i < lastI && inclusion > 0.0; i++) {
+            double theta = 0.0;
+            for (int j = firstJ; j < lastJ && theta < 1.0; j++) {
+                double resemblance = this.colorResemblance(tableI.getLabelId(i), tableJ.getLabelId(j));
+                if (resemblance > 0.0) {
+                    theta = Math.max(theta, this.tNorm(resemblance, this.implication(tableI.getDegree(i), tableJ.getDegree(j))));
+                }
+            }
+            inclusion = Math.min(inclusion, theta);
+        }
+
+        return inclusion;
     }
 
     /**
@@ -91,11 +398,31 @@ public class FuzzyGraphMatching {
      * @return the inclusion degree of the source edge in the query edge.
      */
     private double fuzzyEdgeInclusion(Edge source, Edge query) {
-        Descriptor sourceDescriptor = source.getSpatialRelationshipFuzzyDescriptor();
-        Descriptor queryDescriptor = query.getSpatialRelationshipFuzzyDescriptor();
+        CompiledDescriptor sourceDescriptor = source.getCompiledSpatialRelationshipFuzzyDescriptor();
+        CompiledDescriptor queryDescriptor = query.getCompiledSpatialRelationshipFuzzyDescriptor();
         return this.fuzzyInclusion(sourceDescriptor, queryDescriptor);
     }
 
+    /**
+     * Compute the inclusion degree of the source edge in the query edge, looking it up in a cache first.
+     *
+     * @param source     source graph.
+     * @param sourceEdge ordinal of the source edge.
+     * @param query      query graph.
+     * @param queryEdge  ordinal of the query edge.
+     * @param cache      cache of inclusion degrees between edges.
+     * @return the inclusion degree of the source edge in the query edge.
+     */
+    private double fuzzyEdgeInclusion(CompactGraph source, int sourceEdge, CompactGraph query, int queryEdge, EdgeInclusionCache cache) {
+        double inclusion = cache.get(sourceEdge, queryEdge);
+        if (Double.isNaN(inclusion)) {
+            inclusion = this.fuzzyInclusion(source.getSpatialRelationshipFuzzyDescriptors(), sourceEdge,
+                    query.getSpatialRelationshipFuzzyDescriptors(), queryEdge);
+            cache.put(sourceEdge, queryEdge, inclusion);
+        }
+        return inclusion;
+    }
+
     /**
      * Compute the inclusion degree of the source edge in the query edge considering the nodes similarity.
      *
@@ -108,7 +435,34 @@ public class FuzzyGraphMatching {
         double startNodesSimilarity = similarities.get(source.getStartNodeId()).get(query.getStartNodeId());
         double endNodesSimilarity = similarities.get(source.getEndNodeId()).get(query.getEndNodeId());
         double edgesSimilarity = this.fuzzyEdgeInclusion(source, query);
-        return this.tNorm(Arrays.asList(startNodesSimilarity, endNodesSimilarity, edgesSimilarity));
+        return this.fuzzyEdgeInclusionConsideringNodes(startNodesSimilarity, endNodesSimilarity, edgesSimilarity);
+    }
+
+    /**
+     * Compute the inclusion degree of the source edge in the query edge considering the nodes similarity.
+     *
+     * @param source       source edge.
+     * @param query        query  edge.
+     * @param similarities similarities of the nodes.
+     * @return the inclusion degree of the source edge in the query edge.
+     */
+    public double fuzzyEdgeInclusionConsideringNodes(Edge source, Edge query, NodeSimilarityMatrix similarities) {
+        double startNodesSimilarity = similarities.get(source.getStartNodeId(), query.getStartNodeId());
+        double endNodesSimilarity = similarities.get(source.getEndNodeId(), query.getEndNodeId());
+        double edgesSimilarity = this.fuzzyEdgeInclusion(source, query);
+        return this.fuzzyEdgeInclusionConsideringNodes(startNodesSimilarity, endNodesSimilarity, edgesSimilarity);
+    }
+
+    /**
+     * Compute the inclusion degree of a source edge in a query edge considering the nodes similarity.
+     *
+     * @param startNodesSimilarity similarity between the start nodes of the edges.
+     * @param endNodesSimilarity   similarity between the end nodes of the edges.
+     * @param edgesSimilarity      inclusion degree of the source edge in the query edge.
+     * @return the inclusion degree of the source edge in the query edge considering the nodes similarity.
+     */
+    private double fuzzyEdgeInclusionConsideringNodes(double startNodesSimilarity, double endNodesSimilarity, double edgesSimilarity) {
+        return this.tNorm(this.tNorm(startNodesSimilarity, endNodesSimilarity), edgesSimilarity);
     }
 
     /**
@@ -119,62 +473,80 @@ public class FuzzyGraphMatching {
      * @return the inclusion degree of the source node in the query node.
      */
     private double fuzzyNodeInclusion(Node source, Node query) {
-        Descriptor sourceColorFuzzyDescriptor = source.getColorFuzzyDescriptor();
-        Descriptor queryColorFuzzyDescriptor = query.getColorFuzzyDescriptor();
-        Descriptor sourceLabelDescriptor = source.getLabelDescriptor();
-        Descriptor queryLabelDescriptor = query.getLabelDescriptor();
+        CompiledDescriptor sourceColorFuzzyDescriptor = source.getCompiledColorFuzzyDescriptor();
+        CompiledDescriptor queryColorFuzzyDescriptor = query.getCompiledColorFuzzyDescriptor();
+        CompiledDescriptor sourceLabelDescriptor = source.getCompiledLabelDescriptor();
+        CompiledDescriptor queryLabelDescriptor = query.getCompiledLabelDescriptor();
 
-        double colorInclusion = this.fuzzyInclusion(sourceColorFuzzyDescriptor, queryColorFuzzyDescriptor);
+        double colorInclusion = this.colorInclusion(sourceColorFuzzyDescriptor, queryColorFuzzyDescriptor);
         double labelInclusion = this.fuzzyInclusion(sourceLabelDescriptor, queryLabelDescriptor);
 
         return this.tNorm(colorInclusion, labelInclusion);
     }
 
     /**
-     * Get the best pair of edges based on their similarity, including the nodes similarities.
+     * Get the best pair of edges based on their similarity, including the nodes similarities. The candidate edges are
+     * the adjacent edges of the current source node and query node collected in the workspace, and the inclusion
+     * degree of the best pair is left in the workspace.
      *
-     * @param sourceEdges  source edges.
-     * @param queryEdges   query edges.
+     * @param source       source graph.
+     * @param query        query graph.
+     * @param sourceNode   ordinal of the source node where all the source edges start.
+     * @param queryNode    ordinal of the query node where all the query edges start.
+     * @param workspace    workspace with the adjacent edges of both nodes.
      * @param similarities similarities of the nodes.
-     * @return tuple with both edges and the similarity of the triplet. The first element the pair of edges, where the
-     * first element is the source edge and the second element query edge.
+     * @param cache        cache of inclusion degrees between edges.
+     * @return tuple with the positions in the adjacency of both edges. The first element is the position of the source
+     * edge and the second element is the position of the query edge.
      */
-    private Tuple<Tuple<Edge, Edge>, Double> getBestPairOfEdges(Collection<Edge> sourceEdges, Collection<Edge> queryEdges,
-                                                                Map<String, Map<String, Double>> similarities) {
+    private Tuple<Integer, Integer> getBestPairOfEdges(CompactGraph source, CompactGraph query, int sourceNode, int queryNode,
+                                                       MatchingWorkspace workspace, NodeSimilarityMatrix similarities,
+                                                       EdgeInclusionCache cache) {
+        double startNodesSimilarity = similarities.get(sourceNode, queryNode);
+
         double bestTripletSimilarity = Double.NEGATIVE_INFINITY;
-        Edge bestSourceEdge = null;
-        Edge bestQueryEdge = null;
-        for (Edge sourceEdge : sourceEdges) {
-            for (Edge queryEdge : queryEdges) {
-                double tripletSimilarity = this.fuzzyEdgeInclusionConsideringNodes(sourceEdge, queryEdge, similarities);
+        int bestSourceEdge = -1;
+        int bestQueryEdge = -1;
+        for (int i = 0; i < workspace.getNumberOfSourceEdges(); i++) {
+            int sourcePosition = workspace.getSourceEdge(i);
+            int sourceEdge = source.getAdjacentEdge(sourcePosition);
+            int sourceEndNode = source.getAdjacentNode(sourcePosition);
+            for (int j = 0; j < workspace.getNumberOfQueryEdges(); j++) {
+                int queryPosition = workspace.getQueryEdge(j);
+                double endNodesSimilarity = similarities.get(sourceEndNode, query.getAdjacentNode(queryPosition));
+                double edgesSimilarity = this.fuzzyEdgeInclusion(source, sourceEdge, query, query.getAdjacentEdge(queryPosition), cache);
+                double tripletSimilarity = this.fuzzyEdgeInclusionConsideringNodes(startNodesSimilarity, endNodesSimilarity, edgesSimilarity);
                 if (tripletSimilarity >= bestTripletSimilarity) {
-                    bestSourceEdge = sourceEdge;
-                    bestQueryEdge = queryEdge;
+                    bestSourceEdge = sourcePosition;
+                    bestQueryEdge = queryPosition;
                     bestTripletSimilarity = tripletSimilarity;
                 }
             }
         }
 
-        return new Tuple<>(new Tuple<>(bestSourceEdge, bestQueryEdge), bestTripletSimilarity);
+        workspace.setBestPairOfEdgesInclusion(bestTripletSimilarity);
+        return new Tuple<>(bestSourceEdge, bestQueryEdge);
     }
 
     /**
-     * Get the best pair of nodes based on their similarity
+     * Get the best pair of nodes based on their similarity, ignoring deleted nodes.
      *
      * @param similarities similarities of the nodes
-     * @return tuple with the identifiers of both nodes. The first element is the id of the source node and the second
-     * element is the id of the query node
+     * @return tuple with the ordinals of both nodes. The first element is the ordinal of the source node and the second
+     * element is the ordinal of the query node
      */
-    private Tuple<String, String> getBestPairOfNodes(Map<String, Map<String, Double>> similarities) {
-        Tuple<String, String> bestPair = null;
+    private Tuple<Integer, Integer> getBestPairOfNodes(NodeSimilarityMatrix similarities) {
+        Tuple<Integer, Integer> bestPair = null;
         double bestSimilarity = Double.NEGATIVE_INFINITY;
 
-        for (Map.Entry<String, Map<String, Double>> sourceNode : similarities.entrySet()) {
-            Map<String, Double> queryNodes = sourceNode.getValue();
-            for (Map.Entry<String, Double> queryNode : queryNodes.entrySet()) {
-                Double similarity = queryNode.getValue();
-                if (similarity >= bestSimilarity) {
-                    bestPair = new Tuple<>(sourceNode.getKey(), queryNode.getKey());
+        for (int i = 0; i < similarities.getNumberOfSourceNodes(); i++) {
+            if (similarities.isSourceNodeDeleted(i)) {
+                continue;
+            }
+            for (int j = 0; j < similarities.getNumberOfQueryNodes(); j++) {
+                double similarity = similarities.get(i, j);
+                if (!similarities.isQueryNodeDeleted(j) && similarity >= bestSimilarity) {
+                    bestPair = new Tuple<>(i, j);
                     bestSimilarity = similarity;
                 }
             }
@@ -183,6 +555,30 @@ public class FuzzyGraphMatching {
         return bestPair;
     }
 
+    /**
+     * Compute an upper bound of the inclusion degree of the graph query in the graph source, without matching the
+     * graphs. Every value aggregated by {@link #computeInclusion} is either the similarity of a pair of nodes or the
+     * t-norm of the similarities of two pairs of nodes and the inclusion degree of the edges, so none is greater than
+     * the highest similarity between a source node and a query node.
+     *
+     * @param similarities        similarities of the nodes.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @return an upper bound of the inclusion degree, or positive infinity if there are no nodes to be compared or the
+     * aggregation operator can not be bounded.
+     */
+    public double computeInclusionUpperBound(NodeSimilarityMatrix similarities, AggregationOperator aggregationOperator) {
+        if (similarities.getNumberOfSourceNodes() == 0 || similarities.getNumberOfQueryNodes() == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double maximumSimilarity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < similarities.getNumberOfSourceNodes(); i++) {
+            for (int j = 0; j < similarities.getNumberOfQueryNodes(); j++) {
+                maximumSimilarity = Math.max(maximumSimilarity, similarities.get(i, j));
+            }
+        }
+        return aggregationOperator.upperBound(maximumSimilarity);
+    }
+
     /**
      * Compute the inclusion degree of the graph query in the graph source.
      *
@@ -191,7 +587,7 @@ public class FuzzyGraphMatching {
      * @return the inclusion degree of the graph query in the graph source.
      */
     public double computeInclusion(Graph source, Graph query) {
-        return this.computeInclusion(source, query, Collections::min);
+        return this.computeInclusion(source, query, AggregationOperators.all());
     }
 
     /**
@@ -203,25 +599,101 @@ public class FuzzyGraphMatching {
      * @return the inclusion degree of the graph query in the graph source.
      */
     public double computeInclusion(Graph source, Graph query, AggregationOperator aggregationOperator) {
-        Map<String, Map<String, Double>> similarities = this.computeSimilarities(source.getNodes(), query.getNodes());
-        Tuple<ListOfMatches, ListOfMatches> matches = this.computeMatching(source, query, similarities);
-        ListOfMatches nodesMatches = matches.getFirst();
-        ListOfMatches edgesMatches = matches.getSecond();
-
-        ArrayList<Double> finalInclusions = new ArrayList<>();
-        if (edgesMatches.size() > 0) {
-            Map<String, Edge> sourceEdges = source.getEdges().stream().collect(Collectors.toMap(Edge::getId, s -> s));
-            Map<String, Edge> queryEdges = query.getEdges().stream().collect(Collectors.toMap(Edge::getId, s -> s));
-            for (Tuple<String, String> edgesMatch : edgesMatches) {
-                finalInclusions.add(this.fuzzyEdgeInclusionConsideringNodes(sourceEdges.get(edgesMatch.getFirst()), queryEdges.get(edgesMatch.getSecond()), similarities));
+        return this.computeInclusion(source.getCompactGraph(), query.getCompactGraph(), aggregationOperator);
+    }
+
+    /**
+     * Compute the inclusion degree of the graph query in the graph source.
+     *
+     * @param source              source graph.
+     * @param query               query graph.
+     * @param similarities        similarities of the nodes, with the rows and columns in the order of the nodes of the
+     *                            graphs.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @return the inclusion degree of the graph query in the graph source.
+     */
+    public double computeInclusion(Graph source, Graph query, NodeSimilarityMatrix similarities, AggregationOperator aggregationOperator) {
+        return this.computeInclusion(source.getCompactGraph(), query.getCompactGraph(), similarities, aggregationOperator);
+    }
+
+    /**
+     * Compute the inclusion degree of the graph query in the graph source.
+     *
+     * @param source              source graph.
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @return the inclusion degree of the graph query in the graph source.
+     */
+    public double computeInclusion(CompactGraph source, CompactGraph query, AggregationOperator aggregationOperator) {
+        NodeSimilarityMatrix similarities = this.computeSimilarityMatrix(source, query);
+        return this.computeInclusion(source, query, similarities, aggregationOperator);
+    }
+
+    /**
+     * Compute the inclusion degree of the graph query in the graph source.
+     *
+     * @param source              source graph.
+     * @param query               query graph.
+     * @param similarities        similarities of the nodes, with the rows and columns in the order of the nodes of the
+     *                            graphs.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @return the inclusion degree of the graph query in the graph source.
+     */
+    public double computeInclusion(CompactGraph source, CompactGraph query, NodeSimilarityMatrix similarities,
+                                   AggregationOperator aggregationOperator) {
+        return this.computeInclusion(source, query, similarities, aggregationOperator, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Compute the inclusion degree of the graph query in the graph source, unless it is lower than a cutoff. If the
+     * aggregation operator is bounded by every value, as {@link AggregationOperators#all()} is, the matching is
+     * abandoned as soon as a matched pair of edges has an inclusion degree lower than the cutoff, because the pairs
+     * matched afterwards can not raise the aggregated value. Otherwise the cutoff is ignored.
+     *
+     * @param source              source graph.
+     * @param query               query graph.
+     * @param similarities        similarities of the nodes, with the rows and columns in the order of the nodes of the
+     *                            graphs.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param cutoff              inclusion degree below which the exact inclusion degree is not needed.
+     * @return the inclusion degree of the graph query in the graph source, or {@link #BELOW_CUTOFF} if the matching
+     * was abandoned.
+     */
+    public double computeInclusion(CompactGraph source, CompactGraph query, NodeSimilarityMatrix similarities,
+                                   AggregationOperator aggregationOperator, double cutoff) {
+        MatchingWorkspace workspace = this.workspaces.get();
+        EdgeInclusionCache cache = workspace.getEdgeInclusionCache();
+        if (!aggregationOperator.isBoundedByEveryValue()) {
+            cutoff = Double.NEGATIVE_INFINITY;
+        }
+        if (!this.match(source, query, similarities, cache, workspace, cutoff)) {
+            this.recordEdgeInclusionCacheStatistics(cache);
+            return BELOW_CUTOFF;
+        }
+
+        int numberOfInclusions;
+        double[] finalInclusions;
+        if (workspace.getNumberOfEdgesMatches() > 0) {
+            numberOfInclusions = workspace.getNumberOfEdgesMatches();
+            finalInclusions = workspace.getInclusions(numberOfInclusions);
+            for (int m = 0; m < numberOfInclusions; m++) {
+                int sourceEdge = workspace.getMatchedSourceEdge(m);
+                int queryEdge = workspace.getMatchedQueryEdge(m);
+                double startNodesSimilarity = similarities.get(source.getStartNode(sourceEdge), query.getStartNode(queryEdge));
+                double endNodesSimilarity = similarities.get(source.getEndNode(sourceEdge), query.getEndNode(queryEdge));
+                double edgesSimilarity = this.fuzzyEdgeInclusion(source, sourceEdge, query, queryEdge, cache);
+                finalInclusions[m] = this.fuzzyEdgeInclusionConsideringNodes(startNodesSimilarity, endNodesSimilarity, edgesSimilarity);
             }
         } else {
-            for (Tuple<String, String> nodesMatch : nodesMatches) {
-                finalInclusions.add(similarities.get(nodesMatch.getFirst()).get(nodesMatch.getSecond()));
+            numberOfInclusions = workspace.getNumberOfNodesMatches();
+            finalInclusions = workspace.getInclusions(numberOfInclusions);
+            for (int m = 0; m < numberOfInclusions; m++) {
+                finalInclusions[m] = similarities.get(workspace.getMatchedSourceNode(m), workspace.getMatchedQueryNode(m));
             }
         }
 
-        return aggregationOperator.apply(finalInclusions);
+        this.recordEdgeInclusionCacheStatistics(cache);
+        return aggregationOperator.aggregate(finalInclusions, numberOfInclusions);
     }
 
     /**
@@ -232,7 +704,7 @@ public class FuzzyGraphMatching {
      * @return tuple containing nodes matches and edge matches.
      */
     public Tuple<ListOfMatches, ListOfMatches> computeMatching(Graph source, Graph query) {
-        Map<String, Map<String, Double>> similarities = this.computeSimilarities(source.getNodes(), query.getNodes());
+        NodeSimilarityMatrix similarities = this.computeSimilarityMatrix(source.getCompactGraph(), query.getCompactGraph());
         return this.computeMatching(source, query, similarities);
     }
 
@@ -245,33 +717,122 @@ public class FuzzyGraphMatching {
      * @return tuple containing nodes matches and edge matches.
      */
     public Tuple<ListOfMatches, ListOfMatches> computeMatching(Graph source, Graph query, Map<String, Map<String, Double>> similarities) {
+        return this.computeMatching(source, query, NodeSimilarityMatrix.fromMap(getNodeIds(source.getNodes()),
+                getNodeIds(query.getNodes()), similarities));
+    }
+
+    /**
+     * Find a matching between the source graph and the query graph. The rows and columns of the matched nodes are
+     * deleted from the similarity matrix while matching, and restored before returning.
+     *
+     * @param source       source graph.
+     * @param query        query graph.
+     * @param similarities similarities of the nodes, with the rows and columns in the order of the nodes of the graphs.
+     * @return tuple containing nodes matches and edge matches.
+     */
+    public Tuple<ListOfMatches, ListOfMatches> computeMatching(Graph source, Graph query, NodeSimilarityMatrix similarities) {
+        EdgeInclusionCache cache = this.workspaces.get().getEdgeInclusionCache();
+        Tuple<ListOfMatches, ListOfMatches> matches = this.computeMatching(source, query, similarities, cache);
+        this.recordEdgeInclusionCacheStatistics(cache);
+        return matches;
+    }
+
+    /**
+     * Find a matching between the source graph and the query graph. The rows and columns of the matched nodes are
+     * deleted from the similarity matrix while matching, and restored before returning, so the graphs are neither
+     * modified nor copied. The inclusion degrees between edges are looked up in the given cache and added to it, so
+     * they can be reused once the matching is found.
+     *
+     * @param source       source graph.
+     * @param query        query graph.
+     * @param similarities similarities of the nodes, with the rows and columns in the order of the nodes of the graphs.
+     * @param cache        cache of inclusion degrees between the edges of the source graph and the query graph.
+     * @return tuple containing nodes matches and edge matches.
+     */
+    public Tuple<ListOfMatches, ListOfMatches> computeMatching(Graph source, Graph query, NodeSimilarityMatrix similarities,
+                                                               EdgeInclusionCache cache) {
+        return this.computeMatching(source.getCompactGraph(), query.getCompactGraph(), similarities, cache);
+    }
+
+    /**
+     * Find a matching between the source graph and the query graph. The rows and columns of the matched nodes are
+     * deleted from the similarity matrix while matching, and restored before returning. The inclusion degrees between
+     * edges are looked up in the given cache and added to it, so they can be reused once the matching is found.
+     *
+     * @param source       source graph.
+     * @param query        query graph.
+     * @param similarities similarities of the nodes, with the rows and columns in the order of the nodes of the graphs.
+     * @param cache        cache of inclusion degrees between the edges of the source graph and the query graph.
+     * @return tuple containing nodes matches and edge matches.
+     */
+    public Tuple<ListOfMatches, ListOfMatches> computeMatching(CompactGraph source, CompactGraph query,
+                                                               NodeSimilarityMatrix similarities, EdgeInclusionCache cache) {
+        MatchingWorkspace workspace = this.workspaces.get();
+        this.match(source, query, similarities, cache, workspace, Double.NEGATIVE_INFINITY);
+
         ListOfMatches nodesMatches = new ListOfMatches();
         ListOfMatches edgesMatches = new ListOfMatches();
-        Tuple<String, String> bestPair = this.getBestPairOfNodes(similarities);
-        Graph mySource = new Graph(source);
-        Graph myQuery = new Graph(query);
+        for (int m = 0; m < workspace.getNumberOfNodesMatches(); m++) {
+            nodesMatches.add(new Tuple<>(source.getNodeId(workspace.getMatchedSourceNode(m)),
+                    query.getNodeId(workspace.getMatchedQueryNode(m))));
+        }
+        for (int m = 0; m < workspace.getNumberOfEdgesMatches(); m++) {
+            edgesMatches.add(new Tuple<>(source.getEdgeId(workspace.getMatchedSourceEdge(m)),
+                    query.getEdgeId(workspace.getMatchedQueryEdge(m))));
+        }
+
+        return new Tuple<>(nodesMatches, edgesMatches);
+    }
+
+    /**
+     * Find a matching between the source graph and the query graph, leaving the ordinals of the matched nodes and
+     * edges in the workspace. The rows and columns of the matched nodes are deleted from the similarity matrix while
+     * matching, and restored before returning.
+     *
+     * @param source       source graph.
+     * @param query        query graph.
+     * @param similarities similarities of the nodes, with the rows and columns in the order of the nodes of the graphs.
+     * @param cache        cache of inclusion degrees between the edges of the source graph and the query graph.
+     * @param workspace    workspace of the current thread.
+     * @param cutoff       inclusion degree of a matched pair of edges below which the matching is abandoned.
+     * @return false if the matching was abandoned, leaving only part of the matches in the workspace.
+     */
+    private boolean match(CompactGraph source, CompactGraph query, NodeSimilarityMatrix similarities, EdgeInclusionCache cache,
+                          MatchingWorkspace workspace, double cutoff) {
+        workspace.clearMatches();
+        similarities.restoreNodes();
+        Tuple<Integer, Integer> bestPair = this.getBestPairOfNodes(similarities);
 
         if (bestPair != null) {
-            nodesMatches.add(new Tuple<>(bestPair.getFirst(), bestPair.getSecond()));
-            Collection<Edge> sourceAdjacentEdges = mySource.getAdjacentEdges(bestPair.getFirst());
-            Collection<Edge> queryAdjacentEdges = myQuery.getAdjacentEdges(bestPair.getSecond());
+            int sourceNode = bestPair.getFirst();
+            int queryNode = bestPair.getSecond();
+            workspace.addNodesMatch(sourceNode, queryNode);
+            workspace.collectSourceEdges(source, sourceNode, similarities);
+            workspace.collectQueryEdges(query, queryNode, similarities);
 
-            while (!queryAdjacentEdges.isEmpty() && !sourceAdjacentEdges.isEmpty()) {
-                Tuple<Tuple<Edge, Edge>, Double> bestTriplet = this.getBestPairOfEdges(sourceAdjacentEdges, queryAdjacentEdges, similarities);
-                Tuple<Edge, Edge> pairOfEdges = bestTriplet.getFirst();
+            while (workspace.getNumberOfQueryEdges() > 0 && workspace.getNumberOfSourceEdges() > 0) {
+                Tuple<Integer, Integer> pairOfEdges = this.getBestPairOfEdges(source, query, sourceNode, queryNode,
+                        workspace, similarities, cache);
+                if (workspace.getBestPairOfEdgesInclusion() < cutoff) {
+                    similarities.restoreNodes();
+                    return false;
+                }
 
-                mySource.deleteNode(pairOfEdges.getFirst().getStartNodeId());
-                myQuery.deleteNode(pairOfEdges.getSecond().getStartNodeId());
+                // Deleting the start nodes also deletes every edge starting or ending at them.
+                similarities.deleteSourceNode(sourceNode);
+                similarities.deleteQueryNode(queryNode);
 
-                sourceAdjacentEdges = mySource.getAdjacentEdges(pairOfEdges.getFirst().getEndNodeId());
-                queryAdjacentEdges = myQuery.getAdjacentEdges(pairOfEdges.getSecond().getEndNodeId());
+                sourceNode = source.getAdjacentNode(pairOfEdges.getFirst());
+                queryNode = query.getAdjacentNode(pairOfEdges.getSecond());
+                workspace.collectSourceEdges(source, sourceNode, similarities);
+                workspace.collectQueryEdges(query, queryNode, similarities);
 
-                nodesMatches.add(new Tuple<>(pairOfEdges.getFirst().getEndNodeId(), pairOfEdges.getSecond().getEndNodeId()));
-                edgesMatches.add(new Tuple<>(pairOfEdges.getFirst().getId(), pairOfEdges.getSecond().getId()));
+                workspace.addNodesMatch(sourceNode, queryNode);
+                workspace.addEdgesMatch(source.getAdjacentEdge(pairOfEdges.getFirst()), query.getAdjacentEdge(pairOfEdges.getSecond()));
             }
         }
-
-        return new Tuple<>(nodesMatches, edgesMatches);
+        similarities.restoreNodes();
+        return true;
     }
 
     /**
@@ -279,19 +840,33 @@ public class FuzzyGraphMatching {
      *
      * @param a first value.
      * @param b second value.
-     * @return t-norm of the two values. Min is used as the t-norm.
+     * @return t-norm of the two values, with the t-norm of the matching.
      */
     private double tNorm(double a, double b) {
-        return Math.min(a, b);
+        return this.builtInTNorm != null ? this.builtInTNorm.apply(a, b) : this.tNorm.apply(a, b);
+    }
+
+    /**
+     * Perform an implication between two values.
+     *
+     * @param x antecedent.
+     * @param y consequent.
+     * @return the degree in which x implies y, with the implication of the matching.
+     */
+    private double implication(double x, double y) {
+        return this.builtInImplication != null ? this.builtInImplication.apply(x, y) : this.implication.apply(x, y);
     }
 
     /**
-     * Perform a t-norm among N values.
+     * Return the resemblance between two color labels.
      *
-     * @param values values to be processed.
-     * @return t-norm of values. Min is used as the t-norm.
+     * @param firstLabelId  identifier of the first label.
+     * @param secondLabelId identifier of the second label.
+     * @return the resemblance degree between the labels, with the resemblance relation between color labels of the
+     * matching.
      */
-    private double tNorm(Collection<Double> values) {
-        return Collections.min(values);
+    private double colorResemblance(int firstLabelId, int secondLabelId) {
+        return this.gradedColorResemblance != null ? this.gradedColorResemblance.apply(firstLabelId, secondLabelId)
+                : this.colorResemblance.apply(firstLabelId, secondLabelId);
     }
 }
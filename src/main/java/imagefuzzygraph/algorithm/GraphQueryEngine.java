@@ -0,0 +1,580 @@
+package imagefuzzygraph.algorithm;
+
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.NodeSimilarityMatrix;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.CompactGraph;
+import imagefuzzygraph.graph.CompactGraphSource;
+import imagefuzzygraph.graph.Graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+/**
+ * Class to query a database of graphs in parallel, keeping only the best matches. Graphs whose upper bound of the
+ * inclusion degree is lower than the k-th best inclusion degree found so far are pruned without matching them, and
+ * with aggregation operators bounded by every value, as the minimum, the matching of a graph is abandoned as soon as
+ * it falls below that inclusion degree. Neither changes the result. Databases implementing {@link CompactGraphSource}
+ * are scored through their compact graphs, without building their graphs.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class GraphQueryEngine {
+
+    /**
+     * Interface representing a listener notified every time a graph of the database has been scored. It may be called
+     * from any thread of the executor.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Notify the progress of a query.
+         *
+         * @param scoredGraphs number of graphs already scored.
+         * @param totalGraphs  number of graphs to be scored.
+         */
+        void progress(int scoredGraphs, int totalGraphs);
+    }
+
+    /**
+     * Number of partitions created per thread of the executor, so threads finishing early can steal work.
+     */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    /**
+     * Number of graphs of a stream scored by each task.
+     */
+    private static final int STREAM_BATCH_SIZE = 64;
+
+    /**
+     * Margin between the upper bound of a graph and the k-th best inclusion degree needed to prune the graph, so
+     * rounding errors never prune a graph which belongs to the result. The same margin is used to abandon a matching.
+     */
+    private static final double PRUNING_TOLERANCE = 1e-9;
+
+    /**
+     * Order of the matches from the worst one to the best one. Ties are broken by the position in the database, being
+     * the lowest position the best one, so the result is the same as a stable sort of the whole database.
+     */
+    private static final Comparator<Tuple<Integer, Double>> WORST_FIRST = Comparator.<Tuple<Integer, Double>>comparingDouble(Tuple::getSecond)
+            .thenComparing(Tuple::getFirst, Comparator.reverseOrder());
+
+    /**
+     * Executor used to score the graphs.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Number of threads of the executor.
+     */
+    private final int parallelism;
+
+    /**
+     * Matching algorithm used to score the graphs.
+     */
+    private final FuzzyGraphMatching fuzzyGraphMatching;
+
+    /**
+     * Number of graphs pruned without matching them, over all the queries.
+     */
+    private final LongAdder prunedGraphs = new LongAdder();
+
+    /**
+     * Number of matchings abandoned because the inclusion degree fell below the k-th best one, over all the queries.
+     */
+    private final LongAdder abandonedMatchings = new LongAdder();
+
+    /**
+     * Class representing the k-th best inclusion degree known so far by a query, shared by all its tasks. It only
+     * increases, and it is a lower bound of the k-th best inclusion degree of the whole database.
+     */
+    private static class Threshold {
+
+        /**
+         * Bits of the threshold.
+         */
+        private final AtomicLong bits = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+
+        /**
+         * Return the threshold.
+         *
+         * @return the threshold.
+         */
+        private double get() {
+            return Double.longBitsToDouble(this.bits.get());
+        }
+
+        /**
+         * Raise the threshold if a higher value is known.
+         *
+         * @param value k-th best inclusion degree of a subset of the database.
+         */
+        private void raise(double value) {
+            long current = this.bits.get();
+            while (value > Double.longBitsToDouble(current) && !this.bits.compareAndSet(current, Double.doubleToLongBits(value))) {
+                current = this.bits.get();
+            }
+        }
+    }
+
+    /**
+     * Construct a query engine using the common {@link ForkJoinPool} and the default {@link FuzzyGraphMatching}.
+     */
+    public GraphQueryEngine() {
+        this(new FuzzyGraphMatching());
+    }
+
+    /**
+     * Construct a query engine using the common {@link ForkJoinPool}.
+     *
+     * @param fuzzyGraphMatching matching algorithm used to score the graphs.
+     */
+    public GraphQueryEngine(FuzzyGraphMatching fuzzyGraphMatching) {
+        this(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism(), fuzzyGraphMatching);
+    }
+
+    /**
+     * Construct a query engine using a {@link ForkJoinPool} and the default {@link FuzzyGraphMatching}.
+     *
+     * @param forkJoinPool pool used to score the graphs.
+     */
+    public GraphQueryEngine(ForkJoinPool forkJoinPool) {
+        this(forkJoinPool, forkJoinPool.getParallelism());
+    }
+
+    /**
+     * Construct a query engine using any executor, for example one creating a thread per task, and the default
+     * {@link FuzzyGraphMatching}.
+     *
+     * @param executor    executor used to score the graphs.
+     * @param parallelism number of graphs expected to be scored at the same time.
+     */
+    public GraphQueryEngine(ExecutorService executor, int parallelism) {
+        this(executor, parallelism, new FuzzyGraphMatching());
+    }
+
+    /**
+     * Construct a query engine using any executor and matching algorithm.
+     *
+     * @param executor           executor used to score the graphs.
+     * @param parallelism        number of graphs expected to be scored at the same time.
+     * @param fuzzyGraphMatching matching algorithm used to score the graphs.
+     */
+    public GraphQueryEngine(ExecutorService executor, int parallelism, FuzzyGraphMatching fuzzyGraphMatching) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.fuzzyGraphMatching = fuzzyGraphMatching;
+    }
+
+    /**
+     * Return the matching algorithm used to score the graphs.
+     *
+     * @return the matching algorithm of the engine.
+     */
+    public FuzzyGraphMatching getFuzzyGraphMatching() {
+        return this.fuzzyGraphMatching;
+    }
+
+    /**
+     * Return the number of graphs pruned without matching them, over all the queries run by this engine.
+     *
+     * @return the number of graphs pruned.
+     */
+    public long getPrunedGraphs() {
+        return this.prunedGraphs.sum();
+    }
+
+    /**
+     * Return the number of matchings abandoned because the inclusion degree of the graph fell below the k-th best one,
+     * over all the queries run by this engine.
+     *
+     * @return the number of matchings abandoned.
+     */
+    public long getAbandonedMatchings() {
+        return this.abandonedMatchings.sum();
+    }
+
+    /**
+     * Return the k graphs of the database with the highest inclusion degree of the query graph.
+     *
+     * @param database            graphs to be scored.
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches to return.
+     * @return list of tuples sorted in descending order by inclusion degree. The first element of each tuple is the
+     * position of the graph in the database and the second element is its inclusion degree.
+     */
+    public ArrayList<Tuple<Integer, Double>> query(List<Graph> database, Graph query, AggregationOperator aggregationOperator, int k) {
+        return this.query(database, query, aggregationOperator, k, (scoredGraphs, totalGraphs) -> {
+        }, () -> false);
+    }
+
+    /**
+     * Return the k graphs of the database with the highest inclusion degree of the query graph.
+     *
+     * @param database            graphs to be scored.
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches to return.
+     * @param progressListener    listener notified every time a graph has been scored.
+     * @param cancelled           condition checked before scoring each graph. Once it is true the query is aborted.
+     * @return list of tuples sorted in descending order by inclusion degree. The first element of each tuple is the
+     * position of the graph in the database and the second element is its inclusion degree.
+     * @throws CancellationException exception thrown if the query is cancelled or the current thread is interrupted.
+     */
+    public ArrayList<Tuple<Integer, Double>> query(List<Graph> database, Graph query, AggregationOperator aggregationOperator,
+                                                   int k, ProgressListener progressListener, BooleanSupplier cancelled) {
+        int[] candidates = new int[database.size()];
+        Arrays.setAll(candidates, i -> i);
+        return this.query(database, candidates, query, aggregationOperator, k, progressListener, cancelled);
+    }
+
+    /**
+     * Return the k graphs of the database with the highest inclusion degree of the query graph, scoring only some
+     * candidate graphs, for example the ones returned by an inverted index of the database. Every graph left out must
+     * have an inclusion degree of 0 with the matching of the engine, see
+     * {@link imagefuzzygraph.graphdb.GraphDatabase#getCandidates(Graph, AggregationOperator, FuzzyGraphMatching)}.
+     *
+     * @param database            graphs of the database.
+     * @param candidates          positions of the graphs to be scored.
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches to return.
+     * @param progressListener    listener notified every time a graph has been scored.
+     * @param cancelled           condition checked before scoring each graph. Once it is true the query is aborted.
+     * @return list of tuples sorted in descending order by inclusion degree. The first element of each tuple is the
+     * position of the graph in the database and the second element is its inclusion degree.
+     * @throws CancellationException exception thrown if the query is cancelled or the current thread is interrupted.
+     */
+    public ArrayList<Tuple<Integer, Double>> query(List<Graph> database, int[] candidates, Graph query, AggregationOperator aggregationOperator,
+                                                   int k, ProgressListener progressListener, BooleanSupplier cancelled) {
+        int totalGraphs = candidates.length;
+        if (k <= 0 || totalGraphs == 0) {
+            return new ArrayList<>();
+        }
+
+        CompactGraph compactQuery = query.getCompactGraph();
+        IntFunction<CompactGraph> compactGraphs = getCompactGraphs(database);
+        Threshold threshold = new Threshold();
+        AtomicInteger scoredGraphs = new AtomicInteger();
+        int numberOfPartitions = Math.min(totalGraphs, this.parallelism * PARTITIONS_PER_THREAD);
+        List<Callable<PriorityQueue<Tuple<Integer, Double>>>> tasks = new ArrayList<>();
+        for (int p = 0; p < numberOfPartitions; p++) {
+            int from = (int) ((long) totalGraphs * p / numberOfPartitions);
+            int to = (int) ((long) totalGraphs * (p + 1) / numberOfPartitions);
+            tasks.add(() -> {
+                PriorityQueue<Tuple<Integer, Double>> bestMatches = new PriorityQueue<>(WORST_FIRST);
+                for (int c = from; c < to; c++) {
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException("Query cancelled");
+                    }
+                    int i = candidates[c];
+                    this.score(compactGraphs.apply(i), i, compactQuery, aggregationOperator, k, bestMatches, threshold);
+                    progressListener.progress(scoredGraphs.incrementAndGet(), totalGraphs);
+                }
+                return bestMatches;
+            });
+        }
+
+        PriorityQueue<Tuple<Integer, Double>> bestMatches = new PriorityQueue<>(WORST_FIRST);
+        List<Future<PriorityQueue<Tuple<Integer, Double>>>> partialResults;
+        try {
+            partialResults = this.executor.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Query interrupted");
+        }
+        for (Future<PriorityQueue<Tuple<Integer, Double>>> partialResult : partialResults) {
+            merge(bestMatches, partialResult, k);
+        }
+        return sortBestFirst(bestMatches);
+    }
+
+    /**
+     * Return, for every query graph, the k graphs of the database with the highest inclusion degree of the query graph.
+     *
+     * @param database            graphs to be scored.
+     * @param queries             query graphs.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches to return per query.
+     * @return list with the result of every query, in the same order as the queries, as returned by
+     * {@link #query(List, Graph, AggregationOperator, int)}.
+     * @see #queryAll(List, List, AggregationOperator, int, ProgressListener, BooleanSupplier)
+     */
+    public ArrayList<ArrayList<Tuple<Integer, Double>>> queryAll(List<Graph> database, List<? extends Graph> queries,
+                                                                 AggregationOperator aggregationOperator, int k) {
+        return this.queryAll(database, queries, aggregationOperator, k, (scoredGraphs, totalGraphs) -> {
+        }, () -> false);
+    }
+
+    /**
+     * Return, for every query graph, the k graphs of the database with the highest inclusion degree of the query graph.
+     * The database is scanned only once: every task gets each graph of its partition once and scores all the queries
+     * against it before moving to the next graph, so the graph is read, and compacted if the database does not
+     * implement {@link CompactGraphSource}, once for all the queries.
+     *
+     * @param database            graphs to be scored.
+     * @param queries             query graphs.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches to return per query.
+     * @param progressListener    listener notified every time a graph has been scored against all the queries.
+     * @param cancelled           condition checked before scoring each graph. Once it is true the queries are aborted.
+     * @return list with the result of every query, in the same order as the queries, as returned by
+     * {@link #query(List, Graph, AggregationOperator, int)}.
+     * @throws CancellationException exception thrown if the queries are cancelled or the current thread is interrupted.
+     */
+    public ArrayList<ArrayList<Tuple<Integer, Double>>> queryAll(List<Graph> database, List<? extends Graph> queries,
+                                                                 AggregationOperator aggregationOperator, int k,
+                                                                 ProgressListener progressListener, BooleanSupplier cancelled) {
+        int totalGraphs = database.size();
+        int numberOfQueries = queries.size();
+        CompactGraph[] compactQueries = new CompactGraph[numberOfQueries];
+        Threshold[] thresholds = new Threshold[numberOfQueries];
+        ArrayList<PriorityQueue<Tuple<Integer, Double>>> bestMatches = new ArrayList<>(numberOfQueries);
+        for (int q = 0; q < numberOfQueries; q++) {
+            compactQueries[q] = queries.get(q).getCompactGraph();
+            thresholds[q] = new Threshold();
+            bestMatches.add(new PriorityQueue<>(WORST_FIRST));
+        }
+
+        if (k > 0 && totalGraphs > 0 && numberOfQueries > 0) {
+            IntFunction<CompactGraph> compactGraphs = getCompactGraphs(database);
+            AtomicInteger scoredGraphs = new AtomicInteger();
+            int numberOfPartitions = Math.min(totalGraphs, this.parallelism * PARTITIONS_PER_THREAD);
+            List<Callable<ArrayList<PriorityQueue<Tuple<Integer, Double>>>>> tasks = new ArrayList<>();
+            for (int p = 0; p < numberOfPartitions; p++) {
+                int from = (int) ((long) totalGraphs * p / numberOfPartitions);
+                int to = (int) ((long) totalGraphs * (p + 1) / numberOfPartitions);
+                tasks.add(() -> {
+                    ArrayList<PriorityQueue<Tuple<Integer, Double>>> partitionBestMatches = new ArrayList<>(numberOfQueries);
+                    for (int q = 0; q < numberOfQueries; q++) {
+                        partitionBestMatches.add(new PriorityQueue<>(WORST_FIRST));
+                    }
+                    for (int i = from; i < to; i++) {
+                        if (cancelled.getAsBoolean()) {
+                            throw new CancellationException("Query cancelled");
+                        }
+                        CompactGraph graph = compactGraphs.apply(i);
+                        for (int q = 0; q < numberOfQueries; q++) {
+                            this.score(graph, i, compactQueries[q], aggregationOperator, k, partitionBestMatches.get(q), thresholds[q]);
+                        }
+                        progressListener.progress(scoredGraphs.incrementAndGet(), totalGraphs);
+                    }
+                    return partitionBestMatches;
+                });
+            }
+
+            List<Future<ArrayList<PriorityQueue<Tuple<Integer, Double>>>>> partialResults;
+            try {
+                partialResults = this.executor.invokeAll(tasks);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Query interrupted");
+            }
+            for (Future<ArrayList<PriorityQueue<Tuple<Integer, Double>>>> partialResult : partialResults) {
+                ArrayList<PriorityQueue<Tuple<Integer, Double>>> partitionBestMatches = await(partialResult);
+                for (int q = 0; q < numberOfQueries; q++) {
+                    for (Tuple<Integer, Double> match : partitionBestMatches.get(q)) {
+                        offer(bestMatches.get(q), match, k);
+                    }
+                }
+            }
+        }
+
+        ArrayList<ArrayList<Tuple<Integer, Double>>> results = new ArrayList<>(numberOfQueries);
+        for (PriorityQueue<Tuple<Integer, Double>> queryBestMatches : bestMatches) {
+            results.add(sortBestFirst(queryBestMatches));
+        }
+        return results;
+    }
+
+    /**
+     * Return the k graphs of a stream of graphs with the highest inclusion degree of the query graph. Graphs are
+     * scored in batches while the stream is still being read, for example from a {@code JsonGraphReader}, and are
+     * discarded once scored, so the stream does not need to fit in memory.
+     *
+     * @param database            stream of graphs to be scored. It is read from the calling thread.
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches to return.
+     * @return list of tuples sorted in descending order by inclusion degree. The first element of each tuple is the
+     * position of the graph in the stream and the second element is its inclusion degree.
+     * @throws CancellationException exception thrown if the current thread is interrupted.
+     */
+    public ArrayList<Tuple<Integer, Double>> query(Iterator<Graph> database, Graph query, AggregationOperator aggregationOperator, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+
+        CompactGraph compactQuery = query.getCompactGraph();
+        Threshold threshold = new Threshold();
+        PriorityQueue<Tuple<Integer, Double>> bestMatches = new PriorityQueue<>(WORST_FIRST);
+        ArrayDeque<Future<PriorityQueue<Tuple<Integer, Double>>>> pendingResults = new ArrayDeque<>();
+        int maximumPendingResults = this.parallelism * PARTITIONS_PER_THREAD;
+        try {
+            int position = 0;
+            while (database.hasNext()) {
+                ArrayList<Graph> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+                while (batch.size() < STREAM_BATCH_SIZE && database.hasNext()) {
+                    batch.add(database.next());
+                }
+                int first = position;
+                position += batch.size();
+                pendingResults.add(this.executor.submit(() -> {
+                    PriorityQueue<Tuple<Integer, Double>> batchBestMatches = new PriorityQueue<>(WORST_FIRST);
+                    for (int i = 0; i < batch.size(); i++) {
+                        this.score(batch.get(i).getCompactGraph(), first + i, compactQuery, aggregationOperator, k, batchBestMatches, threshold);
+                    }
+                    return batchBestMatches;
+                }));
+                // Bound the graphs waiting to be scored when the stream is read faster than it is scored.
+                if (pendingResults.size() >= maximumPendingResults) {
+                    merge(bestMatches, pendingResults.poll(), k);
+                }
+            }
+            while (!pendingResults.isEmpty()) {
+                merge(bestMatches, pendingResults.poll(), k);
+            }
+        } finally {
+            for (Future<PriorityQueue<Tuple<Integer, Double>>> pendingResult : pendingResults) {
+                pendingResult.cancel(true);
+            }
+        }
+        return sortBestFirst(bestMatches);
+    }
+
+    /**
+     * Score a graph and add it to the best matches of a task, unless its upper bound or a partial matching shows that
+     * it can not be one of the k best matches.
+     *
+     * @param source              compact graph of the graph to be scored.
+     * @param position            position of the graph in the database.
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches to return.
+     * @param bestMatches         heap with the best matches found so far by the task, the worst one at the head.
+     * @param threshold           k-th best inclusion degree known so far by the query.
+     */
+    private void score(CompactGraph source, int position, CompactGraph query, AggregationOperator aggregationOperator, int k,
+                       PriorityQueue<Tuple<Integer, Double>> bestMatches, Threshold threshold) {
+        NodeSimilarityMatrix similarities = this.fuzzyGraphMatching.computeSimilarityMatrix(source, query);
+        double upperBound = this.fuzzyGraphMatching.computeInclusionUpperBound(similarities, aggregationOperator);
+        if (upperBound + PRUNING_TOLERANCE < threshold.get()) {
+            this.prunedGraphs.increment();
+            return;
+        }
+
+        double inclusionDegree = this.fuzzyGraphMatching.computeInclusion(source, query, similarities, aggregationOperator,
+                threshold.get() - PRUNING_TOLERANCE);
+        if (inclusionDegree == FuzzyGraphMatching.BELOW_CUTOFF) {
+            this.abandonedMatchings.increment();
+            return;
+        }
+        offer(bestMatches, new Tuple<>(position, inclusionDegree), k);
+        if (bestMatches.size() == k) {
+            threshold.raise(bestMatches.peek().getSecond());
+        }
+    }
+
+    /**
+     * Return a function returning the compact graph of every graph of a database, read from the database if it is a
+     * {@link CompactGraphSource} and from its graphs otherwise.
+     *
+     * @param database graphs of the database.
+     * @return function returning the compact graph of the graph in a position of the database.
+     */
+    private static IntFunction<CompactGraph> getCompactGraphs(List<Graph> database) {
+        if (database instanceof CompactGraphSource) {
+            return ((CompactGraphSource) database)::getCompactGraph;
+        }
+        return i -> database.get(i).getCompactGraph();
+    }
+
+    /**
+     * Wait for the best matches of a task and add them to the best matches found so far.
+     *
+     * @param bestMatches   heap with the best matches found so far, the worst one at the head.
+     * @param partialResult best matches of the task.
+     * @param k             capacity of the heap.
+     * @throws CancellationException exception thrown if the task was cancelled or the current thread is interrupted.
+     */
+    private static void merge(PriorityQueue<Tuple<Integer, Double>> bestMatches,
+                              Future<PriorityQueue<Tuple<Integer, Double>>> partialResult, int k) {
+        for (Tuple<Integer, Double> match : await(partialResult)) {
+            offer(bestMatches, match, k);
+        }
+    }
+
+    /**
+     * Wait for the result of a task, rethrowing the exception thrown by the task, if any.
+     *
+     * @param result result of the task.
+     * @param <T>    type of the result.
+     * @return the result of the task.
+     * @throws CancellationException exception thrown if the task was cancelled or the current thread is interrupted.
+     */
+    private static <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Query interrupted");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Return the matches of a heap from the best one to the worst one.
+     *
+     * @param bestMatches heap with the best matches.
+     * @return list of the matches sorted in descending order by inclusion degree.
+     */
+    private static ArrayList<Tuple<Integer, Double>> sortBestFirst(PriorityQueue<Tuple<Integer, Double>> bestMatches) {
+        ArrayList<Tuple<Integer, Double>> result = new ArrayList<>(bestMatches);
+        result.sort(Collections.reverseOrder(WORST_FIRST));
+        return result;
+    }
+
+    /**
+     * Add a match to a bounded min-heap, discarding the worst match if the heap exceeds its capacity.
+     *
+     * @param bestMatches heap with the best matches found so far, the worst one at the head.
+     * @param match       match to be added.
+     * @param k           capacity of the heap.
+     */
+    private static void offer(PriorityQueue<Tuple<Integer, Double>> bestMatches, Tuple<Integer, Double> match, int k) {
+        if (bestMatches.size() < k) {
+            bestMatches.add(match);
+        } else if (WORST_FIRST.compare(match, bestMatches.peek()) > 0) {
+            bestMatches.poll();
+            bestMatches.add(match);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package imagefuzzygraph.algorithm;
+
+import imagefuzzygraph.data.EdgeInclusionCache;
+import imagefuzzygraph.data.NodeSimilarityMatrix;
+import imagefuzzygraph.graph.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * Class representing the reusable state of a matching between two graphs. The graphs are never modified nor copied:
+ * the matched nodes are deleted from the {@link NodeSimilarityMatrix}, and the adjacent edges of a node are collected
+ * into reusable buffers skipping the edges which end at a deleted node. The matches found are also stored by ordinal
+ * in reusable buffers. An instance must only be used by one thread at a time, so {@link FuzzyGraphMatching} keeps one
+ * per thread.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+class MatchingWorkspace {
+
+    /**
+     * Cache of inclusion degrees between edges, reused between matchings.
+     */
+    private final EdgeInclusionCache edgeInclusionCache = new EdgeInclusionCache();
+
+    /**
+     * Positions in the adjacency of the source graph of the adjacent edges of the current source node.
+     */
+    private int[] sourceEdges = new int[16];
+
+    /**
+     * Number of adjacent edges of the current source node.
+     */
+    private int numberOfSourceEdges;
+
+    /**
+     * Positions in the adjacency of the query graph of the adjacent edges of the current query node.
+     */
+    private int[] queryEdges = new int[16];
+
+    /**
+     * Number of adjacent edges of the current query node.
+     */
+    private int numberOfQueryEdges;
+
+    /**
+     * Ordinals of the matched nodes, source and query node interleaved.
+     */
+    private int[] nodesMatches = new int[32];
+
+    /**
+     * Number of matched pairs of nodes.
+     */
+    private int numberOfNodesMatches;
+
+    /**
+     * Ordinals of the matched edges, source and query edge interleaved.
+     */
+    private int[] edgesMatches = new int[32];
+
+    /**
+     * Number of matched pairs of edges.
+     */
+    private int numberOfEdgesMatches;
+
+    /**
+     * Inclusion degree, considering the nodes, of the last best pair of edges found.
+     */
+    private double bestPairOfEdgesInclusion;
+
+    /**
+     * Inclusion degrees of the matched pairs, aggregated into the inclusion degree of the graphs.
+     */
+    private double[] inclusions = new double[32];
+
+    /**
+     * Return the cache of inclusion degrees between edges, empty and with its counters reset.
+     *
+     * @return the cache of inclusion degrees between edges.
+     */
+    EdgeInclusionCache getEdgeInclusionCache() {
+        this.edgeInclusionCache.reset();
+        return this.edgeInclusionCache;
+    }
+
+    /**
+     * Collect the edges starting at a source node whose end node has not been deleted.
+     *
+     * @param source       source graph.
+     * @param sourceNode   ordinal of the source node.
+     * @param similarities similarities of the nodes, with the deleted nodes.
+     */
+    void collectSourceEdges(CompactGraph source, int sourceNode, NodeSimilarityMatrix similarities) {
+        int first = source.getFirstAdjacentEdge(sourceNode);
+        int last = source.getFirstAdjacentEdge(sourceNode + 1);
+        if (this.sourceEdges.length < last - first) {
+            this.sourceEdges = Arrays.copyOf(this.sourceEdges, Math.max(last - first, this.sourceEdges.length * 2));
+        }
+        this.numberOfSourceEdges = 0;
+        if (similarities.isSourceNodeDeleted(sourceNode)) {
+            return;
+        }
+        for (int position = first; position < last; position++) {
+            if (!similarities.isSourceNodeDeleted(source.getAdjacentNode(position))) {
+                this.sourceEdges[this.numberOfSourceEdges++] = position;
+            }
+        }
+    }
+
+    /**
+     * Collect the edges starting at a query node whose end node has not been deleted.
+     *
+     * @param query        query graph.
+     * @param queryNode    ordinal of the query node.
+     * @param similarities similarities of the nodes, with the deleted nodes.
+     */
+    void collectQueryEdges(CompactGraph query, int queryNode, NodeSimilarityMatrix similarities) {
+        int first = query.getFirstAdjacentEdge(queryNode);
+        int last = query.getFirstAdjacentEdge(queryNode + 1);
+        if (this.queryEdges.length < last - first) {
+            this.queryEdges = Arrays.copyOf(this.queryEdges, Math.max(last - first, this.queryEdges.length * 2));
+        }
+        this.numberOfQueryEdges = 0;
+        if (similarities.isQueryNodeDeleted(queryNode)) {
+            return;
+        }
+        for (int position = first; position < last; position++) {
+            if (!similarities.isQueryNodeDeleted(query.getAdjacentNode(position))) {
+                this.queryEdges[this.numberOfQueryEdges++] = position;
+            }
+        }
+    }
+
+    /**
+     * Return the position in the adjacency of an adjacent edge of the current source node.
+     *
+     * @param i position of the edge among the adjacent edges.
+     * @return the position of the edge in the adjacency.
+     */
+    int getSourceEdge(int i) {
+        return this.sourceEdges[i];
+    }
+
+    /**
+     * Return the number of adjacent edges of the current source node.
+     *
+     * @return the number of adjacent edges.
+     */
+    int getNumberOfSourceEdges() {
+        return this.numberOfSourceEdges;
+    }
+
+    /**
+     * Return the position in the adjacency of an adjacent edge of the current query node.
+     *
+     * @param j position of the edge among the adjacent edges.
+     * @return the position of the edge in the adjacency.
+     */
+    int getQueryEdge(int j) {
+        return this.queryEdges[j];
+    }
+
+    /**
+     * Return the number of adjacent edges of the current query node.
+     *
+     * @return the number of adjacent edges.
+     */
+    int getNumberOfQueryEdges() {
+        return this.numberOfQueryEdges;
+    }
+
+    /**
+     * Return the inclusion degree, considering the nodes, of the last best pair of edges found.
+     *
+     * @return the inclusion degree of the last best pair of edges.
+     */
+    double getBestPairOfEdgesInclusion() {
+        return this.bestPairOfEdgesInclusion;
+    }
+
+    /**
+     * Set the inclusion degree, considering the nodes, of the last best pair of edges found.
+     *
+     * @param bestPairOfEdgesInclusion inclusion degree of the last best pair of edges.
+     */
+    void setBestPairOfEdgesInclusion(double bestPairOfEdgesInclusion) {
+        this.bestPairOfEdgesInclusion = bestPairOfEdgesInclusion;
+    }
+
+    /**
+     * Return a buffer for the inclusion degrees of the matched pairs.
+     *
+     * @param size number of inclusion degrees to be stored.
+     * @return a buffer with room for at least the given number of inclusion degrees.
+     */
+    double[] getInclusions(int size) {
+        if (this.inclusions.length < size) {
+            this.inclusions = new double[Math.max(size, this.inclusions.length * 2)];
+        }
+        return this.inclusions;
+    }
+
+    /**
+     * Remove all the matches found.
+     */
+    void clearMatches() {
+        this.numberOfNodesMatches = 0;
+        this.numberOfEdgesMatches = 0;
+    }
+
+    /**
+     * Add a matched pair of nodes.
+     *
+     * @param sourceNode ordinal of the source node.
+     * @param queryNode  ordinal of the query node.
+     */
+    void addNodesMatch(int sourceNode, int queryNode) {
+        if (this.nodesMatches.length < 2 * this.numberOfNodesMatches + 2) {
+            this.nodesMatches = Arrays.copyOf(this.nodesMatches, this.nodesMatches.length * 2);
+        }
+        this.nodesMatches[2 * this.numberOfNodesMatches] = sourceNode;
+        this.nodesMatches[2 * this.numberOfNodesMatches + 1] = queryNode;
+        this.numberOfNodesMatches++;
+    }
+
+    /**
+     * Add a matched pair of edges.
+     *
+     * @param sourceEdge ordinal of the source edge.
+     * @param queryEdge  ordinal of the query edge.
+     */
+    void addEdgesMatch(int sourceEdge, int queryEdge) {
+        if (this.edgesMatches.length < 2 * this.numberOfEdgesMatches + 2) {
+            this.edgesMatches = Arrays.copyOf(this.edgesMatches, this.edgesMatches.length * 2);
+        }
+        this.edgesMatches[2 * this.numberOfEdgesMatches] = sourceEdge;
+        this.edgesMatches[2 * this.numberOfEdgesMatches + 1] = queryEdge;
+        this.numberOfEdgesMatches++;
+    }
+
+    /**
+     * Return the number of matched pairs of nodes.
+     *
+     * @return the number of matched pairs of nodes.
+     */
+    int getNumberOfNodesMatches() {
+        return this.numberOfNodesMatches;
+    }
+
+    /**
+     * Return the source node of a matched pair of nodes.
+     *
+     * @param m position of the match.
+     * @return the ordinal of the source node.
+     */
+    int getMatchedSourceNode(int m) {
+        return this.nodesMatches[2 * m];
+    }
+
+    /**
+     * Return the query node of a matched pair of nodes.
+     *
+     * @param m position of the match.
+     * @return the ordinal of the query node.
+     */
+    int getMatchedQueryNode(int m) {
+        return this.nodesMatches[2 * m + 1];
+    }
+
+    /**
+     * Return the number of matched pairs of edges.
+     *
+     * @return the number of matched pairs of edges.
+     */
+    int getNumberOfEdgesMatches() {
+        return this.numberOfEdgesMatches;
+    }
+
+    /**
+     * Return the source edge of a matched pair of edges.
+     *
+     * @param m position of the match.
+     * @return the ordinal of the source edge.
+     */
+    int getMatchedSourceEdge(int m) {
+        return this.edgesMatches[2 * m];
+    }
+
+    /**
+     * Return the query edge of a matched pair of edges.
+     *
+     * @param m position of the match.
+     * @return the ordinal of the query edge.
+     */
+    int getMatchedQueryEdge(int m) {
+        return this.edgesMatches[2 * m + 1];
+    }
+}
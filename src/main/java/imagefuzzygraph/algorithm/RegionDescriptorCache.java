@@ -0,0 +1,264 @@
+package imagefuzzygraph.algorithm;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import imagefuzzygraph.data.Descriptor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Class representing a cache of the fuzzy descriptors computed from the images of the regions. Descriptors are indexed
+ * by the SHA-256 hash of the content of the image, so images with the same content are only decoded once. The hash of
+ * every file is remembered together with its size and modification time, and the file is only read again when any of
+ * them changes. The cache may be persisted to a file, so it survives between executions. The file records the version
+ * of its format and a key identifying the builder of the descriptors, and it is ignored when any of them differs, so
+ * descriptors built by an older color space or dominant color extraction are never served.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class RegionDescriptorCache {
+
+    /**
+     * Version of the format of the persisted files.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Class representing the information remembered about a file.
+     */
+    private static class FileEntry {
+
+        /**
+         * Size of the file, in bytes.
+         */
+        private final long size;
+
+        /**
+         * Modification time of the file, in milliseconds.
+         */
+        private final long lastModified;
+
+        /**
+         * Hash of the content of the file.
+         */
+        private final String contentHash;
+
+        /**
+         * Construct the information about a file.
+         *
+         * @param size         size of the file, in bytes.
+         * @param lastModified modification time of the file, in milliseconds.
+         * @param contentHash  hash of the content of the file.
+         */
+        private FileEntry(long size, long lastModified, String contentHash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+    }
+
+    /**
+     * Class representing the content of the cache when it is persisted.
+     */
+    private static class Snapshot {
+
+        /**
+         * Version of the format of the file.
+         */
+        private int version;
+
+        /**
+         * Key identifying the builder of the descriptors.
+         */
+        private String builderKey;
+
+        /**
+         * Information about the files, indexed by absolute path.
+         */
+        private HashMap<String, FileEntry> files;
+
+        /**
+         * Descriptors, indexed by content hash.
+         */
+        private HashMap<String, Descriptor> descriptors;
+    }
+
+    /**
+     * Information about the files, indexed by absolute path.
+     */
+    private final ConcurrentHashMap<String, FileEntry> files = new ConcurrentHashMap<>();
+
+    /**
+     * Descriptors, indexed by content hash.
+     */
+    private final ConcurrentHashMap<String, Descriptor> descriptors = new ConcurrentHashMap<>();
+
+    /**
+     * File where the cache is persisted, or null if the cache only lives in memory.
+     */
+    private final File cacheFile;
+
+    /**
+     * Key identifying the builder of the descriptors, or null if the cache only lives in memory.
+     */
+    private final String builderKey;
+
+    /**
+     * Construct a cache which only lives in memory.
+     */
+    public RegionDescriptorCache() {
+        this.cacheFile = null;
+        this.builderKey = null;
+    }
+
+    /**
+     * Construct a cache persisted to a file, loading its content if the file exists. A file which can not be parsed,
+     * or which was written with another version of the format or another builder of the descriptors, is ignored and
+     * will be overwritten by {@link #save()}.
+     *
+     * @param cacheFile  file where the cache is persisted.
+     * @param builderKey key identifying the builder of the descriptors, including every parameter which changes the
+     *                   descriptors built, for example {@link BuildGraph#REGION_DESCRIPTOR_BUILDER_KEY}.
+     * @throws IOException exception thrown if the file exists but can not be read.
+     */
+    public RegionDescriptorCache(File cacheFile, String builderKey) throws IOException {
+        this.cacheFile = cacheFile;
+        this.builderKey = builderKey;
+        if (cacheFile.isFile()) {
+            try (Reader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+                Snapshot snapshot = new Gson().fromJson(new JsonReader(reader), Snapshot.class);
+                if (snapshot != null && snapshot.version == FORMAT_VERSION && builderKey.equals(snapshot.builderKey)
+                        && snapshot.files != null && snapshot.descriptors != null) {
+                    this.files.putAll(snapshot.files);
+                    this.descriptors.putAll(snapshot.descriptors);
+                }
+            } catch (JsonParseException ex) {
+                this.files.clear();
+                this.descriptors.clear();
+            }
+        }
+    }
+
+    /**
+     * Return the fuzzy descriptor of an image, building it if the content of the image has not been processed yet.
+     * The descriptor returned is shared, so it must not be modified.
+     *
+     * @param imageFile file of the image.
+     * @param builder   function to build the descriptor of a decoded image.
+     * @return the fuzzy descriptor of the image.
+     * @throws IOException exception thrown if the image can not be read or decoded.
+     */
+    public Descriptor get(File imageFile, Function<BufferedImage, Descriptor> builder) throws IOException {
+        Path path = imageFile.toPath().toAbsolutePath().normalize();
+        String key = path.toString();
+        long size = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+        FileEntry fileEntry = this.files.get(key);
+        if (fileEntry != null && fileEntry.size == size && fileEntry.lastModified == lastModified) {
+            Descriptor descriptor = this.descriptors.get(fileEntry.contentHash);
+            if (descriptor != null) {
+                return descriptor;
+            }
+        }
+
+        byte[] content = Files.readAllBytes(path);
+        String contentHash = hash(content);
+        Descriptor descriptor = this.descriptors.get(contentHash);
+        if (descriptor == null) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + imageFile);
+            }
+            descriptor = builder.apply(image);
+            this.descriptors.put(contentHash, descriptor);
+        }
+        this.files.put(key, new FileEntry(size, lastModified, contentHash));
+        return descriptor;
+    }
+
+    /**
+     * Persist the cache to its file. Nothing is done if the cache only lives in memory.
+     *
+     * @throws IOException exception thrown if the file can not be written.
+     */
+    public void save() throws IOException {
+        if (this.cacheFile == null) {
+            return;
+        }
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.version = FORMAT_VERSION;
+        snapshot.builderKey = this.builderKey;
+        snapshot.files = new HashMap<>(this.files);
+        snapshot.descriptors = new HashMap<>(this.descriptors);
+        Path target = this.cacheFile.toPath().toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        boolean moved = false;
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                new GsonBuilder().create().toJson(snapshot, writer);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    /**
+     * Remove all the entries of the cache.
+     */
+    public void clear() {
+        this.files.clear();
+        this.descriptors.clear();
+    }
+
+    /**
+     * Return the number of distinct image contents cached.
+     *
+     * @return the number of descriptors cached.
+     */
+    public int size() {
+        return this.descriptors.size();
+    }
+
+    /**
+     * Compute the SHA-256 hash of a content.
+     *
+     * @param content content to be hashed.
+     * @return the hash as a hexadecimal string.
+     */
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hexBuilder = new StringBuilder();
+            for (byte b : digest) {
+                hexBuilder.append(String.format("%02x", b));
+            }
+            return hexBuilder.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+}
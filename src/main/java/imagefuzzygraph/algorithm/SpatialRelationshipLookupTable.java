@@ -0,0 +1,104 @@
+package imagefuzzygraph.algorithm;
+
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.PropertyWithDegree;
+import jfi.fuzzy.FunctionBasedFuzzySet;
+import jfi.fuzzy.FuzzySetCollection;
+
+import java.util.ArrayList;
+
+/**
+ * Class representing a precomputed table of the membership degrees of an angle to a collection of fuzzy sets. The
+ * degrees are sampled every tenth of a degree and linearly interpolated between samples, which is exact for
+ * trapezoidal fuzzy sets whose points are multiples of a tenth of a degree.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class SpatialRelationshipLookupTable {
+
+    /**
+     * Number of samples per degree.
+     */
+    private static final int SAMPLES_PER_DEGREE = 10;
+
+    /**
+     * Number of samples, from 0 to 360 degrees both included.
+     */
+    private static final int NUMBER_OF_SAMPLES = 360 * SAMPLES_PER_DEGREE + 1;
+
+    /**
+     * Labels of the fuzzy sets, in the order of the collection.
+     */
+    private final String[] labels;
+
+    /**
+     * Membership degrees, indexed by sample and then by fuzzy set.
+     */
+    private final double[] degrees;
+
+    /**
+     * Fuzzy sets included in the possibility distribution of every sample, one bit per fuzzy set.
+     */
+    private final int[] included;
+
+    /**
+     * Build the table by sampling a collection of fuzzy sets.
+     *
+     * @param fuzzySets collection of at most 32 fuzzy sets defined over angles between 0 and 360 degrees.
+     */
+    public SpatialRelationshipLookupTable(FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double> fuzzySets) {
+        this.labels = new String[fuzzySets.size()];
+        for (int k = 0; k < this.labels.length; k++) {
+            this.labels[k] = fuzzySets.get(k).getLabel();
+        }
+        this.degrees = new double[NUMBER_OF_SAMPLES * this.labels.length];
+        this.included = new int[NUMBER_OF_SAMPLES];
+
+        for (int i = 0; i < NUMBER_OF_SAMPLES; i++) {
+            double angle = (double) i / SAMPLES_PER_DEGREE;
+            ArrayList<FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem> pd = fuzzySets.getPossibilityDistribution(angle);
+            for (FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem pdItem : pd) {
+                // Sets are compared by identity, as several of them may share the same label.
+                int k = 0;
+                while (fuzzySets.get(k) != pdItem.fuzzySet) {
+                    k++;
+                }
+                this.degrees[i * this.labels.length + k] = pdItem.degree;
+                this.included[i] |= 1 << k;
+            }
+        }
+    }
+
+    /**
+     * Build the fuzzy descriptor of an angle.
+     *
+     * @param angle angle between 0 and 360 degrees.
+     * @return fuzzy descriptor with the same properties, in the same order, as the possibility distribution of the
+     * collection of fuzzy sets.
+     */
+    public Descriptor getDescriptor(double angle) {
+        double position = Math.max(0.0, Math.min(angle * SAMPLES_PER_DEGREE, NUMBER_OF_SAMPLES - 1));
+        int i = (int) position;
+        double fraction = position - i;
+
+        Descriptor descriptor = new Descriptor();
+        if (fraction == 0.0) {
+            for (int k = 0; k < this.labels.length; k++) {
+                if ((this.included[i] & (1 << k)) != 0) {
+                    descriptor.add(new PropertyWithDegree(this.labels[k], this.degrees[i * this.labels.length + k]));
+                }
+            }
+        } else {
+            // Between two samples the degrees are linear, so a fuzzy set is included if it is included in any of them.
+            int includedInSegment = this.included[i] | this.included[i + 1];
+            for (int k = 0; k < this.labels.length; k++) {
+                if ((includedInSegment & (1 << k)) != 0) {
+                    double previous = this.degrees[i * this.labels.length + k];
+                    double next = this.degrees[(i + 1) * this.labels.length + k];
+                    descriptor.add(new PropertyWithDegree(this.labels[k], previous + fraction * (next - previous)));
+                }
+            }
+        }
+        return descriptor;
+    }
+}
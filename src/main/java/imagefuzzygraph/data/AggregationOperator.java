@@ -10,5 +10,53 @@ import java.util.function.Function;
  * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
  */
 public interface AggregationOperator extends Function<ArrayList<Double>, Double> {
+
+    /**
+     * Aggregate the first values of an array, without boxing them. The default implementation copies them into a list
+     * and calls {@link #apply(Object)}, so operators only need to override it to avoid the copy.
+     *
+     * @param values values to be aggregated, followed by unused space.
+     * @param size   number of values to be aggregated.
+     * @return the aggregated value.
+     */
+    default double aggregate(double[] values, int size) {
+        ArrayList<Double> collection = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            collection.add(values[i]);
+        }
+        return this.apply(collection);
+    }
+
+    /**
+     * Return an upper bound of the aggregated value of any list of values which are all lower than or equal to a
+     * given maximum, up to rounding errors. The default implementation does not bound the aggregated value.
+     *
+     * @param maximum maximum of the values to be aggregated.
+     * @return an upper bound of the aggregated value.
+     */
+    default double upperBound(double maximum) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Return whether the aggregated value is never greater than any of the values aggregated, as the minimum is, so
+     * it is known to be lower than a cutoff as soon as any value is. The default implementation returns false.
+     *
+     * @return true if the aggregated value is not greater than any of the values aggregated.
+     */
+    default boolean isBoundedByEveryValue() {
+        return false;
+    }
+
+    /**
+     * Return a key identifying the aggregation computed by the operator, equal for operators built with the same
+     * parameters, so results computed with an operator can be reused for an equivalent one. The default implementation
+     * returns the operator itself, which is only equal to itself.
+     *
+     * @return the key of the operator.
+     */
+    default Object getKey() {
+        return this;
+    }
 }
 
@@ -1,11 +1,9 @@
 package imagefuzzygraph.data;
 
-import jfi.fuzzy.FunctionBasedFuzzySet;
-import jfi.fuzzy.FuzzySetCollection;
-import jfi.fuzzy.membershipfunction.TrapezoidalFunction;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.NoSuchElementException;
 
 /**
  * Class to build multiples {@link AggregationOperator} objects.
@@ -44,20 +42,32 @@ public class AggregationOperators {
      * @return operator representing the <i>At least percentage of elements should match the condition</i> semantic.
      */
     public static AggregationOperator atLeast(double alpha, double beta) {
-        return collection -> {
-            double sigmaCount = collection.stream().mapToDouble(i -> i).sum() / collection.size();
-            FunctionBasedFuzzySet<Double> atLeast = new FunctionBasedFuzzySet<>("atLeast", new TrapezoidalFunction<>(alpha, beta, 1.0, 1.0));
-            Descriptor atLeastDescriptor = new Descriptor();
-            FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double> fsc = new FuzzySetCollection<>(Collections.singletonList(atLeast));
-            ArrayList<FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem> pd = fsc.getPossibilityDistribution(sigmaCount);
-            for (FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem pdItem : pd) {
-                atLeastDescriptor.add(new PropertyWithDegree(pdItem.fuzzySet.getLabel(), pdItem.degree));
+        return new AggregationOperator() {
+            @Override
+            public Double apply(ArrayList<Double> collection) {
+                return this.aggregate(collection.stream().mapToDouble(i -> i).toArray(), collection.size());
+            }
+
+            @Override
+            public double aggregate(double[] values, int size) {
+                double sum = 0.0;
+                for (int i = 0; i < size; i++) {
+                    sum += values[i];
+                }
+                // The sigma count of an empty collection is undefined, and its membership degree is 0.
+                return atLeastDegree(sum / size, alpha, beta);
+            }
+
+            @Override
+            public double upperBound(double maximum) {
+                // The mean of the values is not greater than their maximum and the trapezoidal function is not
+                // decreasing, so the trapezoidal function of the maximum is an upper bound.
+                return atLeastDegree(maximum, alpha, beta);
             }
 
-            if (!atLeastDescriptor.isEmpty()) {
-                return atLeastDescriptor.get(0).getDegree();
-            } else {
-                return 0.0;
+            @Override
+            public Object getKey() {
+                return Arrays.asList("atLeast", alpha, beta);
             }
         };
     }
@@ -68,6 +78,57 @@ public class AggregationOperators {
      * @return operator representing the <i>All elements should match the condition</i> semantic.
      */
     public static AggregationOperator all() {
-        return Collections::min;
+        return new AggregationOperator() {
+            @Override
+            public Double apply(ArrayList<Double> collection) {
+                return Collections.min(collection);
+            }
+
+            @Override
+            public double aggregate(double[] values, int size) {
+                if (size == 0) {
+                    throw new NoSuchElementException();
+                }
+                double minimum = values[0];
+                for (int i = 1; i < size; i++) {
+                    minimum = Math.min(minimum, values[i]);
+                }
+                return minimum;
+            }
+
+            @Override
+            public double upperBound(double maximum) {
+                // The minimum of the values is not greater than their maximum.
+                return maximum;
+            }
+
+            @Override
+            public boolean isBoundedByEveryValue() {
+                return true;
+            }
+
+            @Override
+            public Object getKey() {
+                return "all";
+            }
+        };
+    }
+
+    /**
+     * Evaluate the trapezoidal function of {@link #atLeast(double, double)}, with <i>c = d = 1</i>, in closed form.
+     * Values above 1 are not possible, as they are means of degrees.
+     *
+     * @param x     value to be evaluated.
+     * @param alpha first point where the function changes.
+     * @param beta  second point where the function changes.
+     * @return the membership degree of the value, or 0 if it is not a number.
+     */
+    private static double atLeastDegree(double x, double alpha, double beta) {
+        if (x >= beta) {
+            return 1.0;
+        } else if (!(x > alpha)) {
+            return 0.0;
+        }
+        return (x - alpha) / (beta - alpha);
     }
 }
@@ -0,0 +1,85 @@
+package imagefuzzygraph.data;
+
+import java.util.Arrays;
+
+/**
+ * Class representing a fuzzy descriptor compiled to parallel arrays of label identifiers and degrees, sorted by label
+ * identifier. Labels are interned through the {@link LabelDictionary}. If a label appears more than once in the
+ * original descriptor, only its highest degree is kept, which does not change any inclusion degree.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class CompiledDescriptor {
+
+    /**
+     * Identifiers of the labels, in ascending order.
+     */
+    private final int[] labelIds;
+
+    /**
+     * Degrees of the labels.
+     */
+    private final double[] degrees;
+
+    /**
+     * Compile a fuzzy descriptor.
+     *
+     * @param descriptor fuzzy descriptor to be compiled.
+     */
+    public CompiledDescriptor(Descriptor descriptor) {
+        int[] ids = new int[descriptor.size()];
+        double[] values = new double[descriptor.size()];
+        Integer[] order = new Integer[descriptor.size()];
+        for (int i = 0; i < descriptor.size(); i++) {
+            ids[i] = LabelDictionary.getId(descriptor.get(i).getLabel());
+            values[i] = descriptor.get(i).getDegree();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(ids[a], ids[b]));
+
+        int size = 0;
+        int[] sortedIds = new int[ids.length];
+        double[] sortedValues = new double[values.length];
+        for (int i : order) {
+            if (size > 0 && sortedIds[size - 1] == ids[i]) {
+                sortedValues[size - 1] = Math.max(sortedValues[size - 1], values[i]);
+            } else {
+                sortedIds[size] = ids[i];
+                sortedValues[size] = values[i];
+                size++;
+            }
+        }
+
+        this.labelIds = Arrays.copyOf(sortedIds, size);
+        this.degrees = Arrays.copyOf(sortedValues, size);
+    }
+
+    /**
+     * Return the number of labels of the descriptor.
+     *
+     * @return the number of labels of the descriptor.
+     */
+    public int size() {
+        return this.labelIds.length;
+    }
+
+    /**
+     * Return the identifier of the i-th label, in ascending order.
+     *
+     * @param i position of the label.
+     * @return the identifier of the label.
+     */
+    public int getLabelId(int i) {
+        return this.labelIds[i];
+    }
+
+    /**
+     * Return the degree of the i-th label, in ascending order of identifier.
+     *
+     * @param i position of the label.
+     * @return the degree of the label.
+     */
+    public double getDegree(int i) {
+        return this.degrees[i];
+    }
+}
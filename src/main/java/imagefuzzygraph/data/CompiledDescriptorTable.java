@@ -0,0 +1,89 @@
+package imagefuzzygraph.data;
+
+import java.util.List;
+
+/**
+ * Class representing a list of {@link CompiledDescriptor} stored in flat primitive arrays. The properties of all the
+ * descriptors are stored one descriptor after another, so the properties of descriptor d are the ones in positions
+ * from {@code getFirstProperty(d)} to {@code getFirstProperty(d + 1)}, sorted by label identifier.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class CompiledDescriptorTable {
+
+    /**
+     * Position of the first property of every descriptor, plus a sentinel.
+     */
+    private final int[] firstProperties;
+
+    /**
+     * Identifiers of the labels of the properties.
+     */
+    private final int[] labelIds;
+
+    /**
+     * Degrees of the properties.
+     */
+    private final double[] degrees;
+
+    /**
+     * Construct a table from a list of compiled descriptors.
+     *
+     * @param descriptors compiled descriptors, in order.
+     */
+    public CompiledDescriptorTable(List<CompiledDescriptor> descriptors) {
+        this.firstProperties = new int[descriptors.size() + 1];
+        for (int d = 0; d < descriptors.size(); d++) {
+            this.firstProperties[d + 1] = this.firstProperties[d] + descriptors.get(d).size();
+        }
+        this.labelIds = new int[this.firstProperties[descriptors.size()]];
+        this.degrees = new double[this.labelIds.length];
+        for (int d = 0; d < descriptors.size(); d++) {
+            CompiledDescriptor descriptor = descriptors.get(d);
+            for (int i = 0; i < descriptor.size(); i++) {
+                this.labelIds[this.firstProperties[d] + i] = descriptor.getLabelId(i);
+                this.degrees[this.firstProperties[d] + i] = descriptor.getDegree(i);
+            }
+        }
+    }
+
+    /**
+     * Return the number of descriptors.
+     *
+     * @return the number of descriptors.
+     */
+    public int size() {
+        return this.firstProperties.length - 1;
+    }
+
+    /**
+     * Return the position of the first property of a descriptor. The position of the first property of
+     * {@link #size()} is the total number of properties.
+     *
+     * @param d position of the descriptor.
+     * @return the position of the first property of the descriptor.
+     */
+    public int getFirstProperty(int d) {
+        return this.firstProperties[d];
+    }
+
+    /**
+     * Return the identifier of the label of a property.
+     *
+     * @param p position of the property.
+     * @return the identifier of the label.
+     */
+    public int getLabelId(int p) {
+        return this.labelIds[p];
+    }
+
+    /**
+     * Return the degree of a property.
+     *
+     * @param p position of the property.
+     * @return the degree of the property.
+     */
+    public double getDegree(int p) {
+        return this.degrees[p];
+    }
+}
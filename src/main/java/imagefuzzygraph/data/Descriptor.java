@@ -3,7 +3,9 @@ package imagefuzzygraph.data;
 import java.util.ArrayList;
 
 /**
- * Class representing a fuzzy descriptor.
+ * Class representing a fuzzy descriptor. Once a descriptor has been added to a node or an edge it must not be
+ * modified, as it may be shared with other nodes and edges, for example by {@code BuildGraph} or by
+ * {@code BinaryGraphDatabaseFormat}, and nodes and edges cache its compiled form.
  *
  * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
  */
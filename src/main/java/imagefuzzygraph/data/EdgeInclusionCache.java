@@ -0,0 +1,197 @@
+package imagefuzzygraph.data;
+
+import java.util.Arrays;
+
+/**
+ * Class representing a cache of the inclusion degrees between the spatial relationship fuzzy descriptors of the edges
+ * of a source graph and the edges of a query graph. Edges are identified by their ordinal in their graph. The cache
+ * is an open addressing hash table, so its size depends on the number of pairs of edges evaluated instead of on the
+ * number of pairs of edges of both graphs. It also counts its hits and misses.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class EdgeInclusionCache {
+
+    /**
+     * Key of the empty slots.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Initial number of slots, it must be a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Keys of the slots, combining the ordinals of the source edge and the query edge.
+     */
+    private long[] keys;
+
+    /**
+     * Inclusion degrees stored in the slots.
+     */
+    private double[] values;
+
+    /**
+     * Number of used slots.
+     */
+    private int size;
+
+    /**
+     * Number of lookups that found an inclusion degree.
+     */
+    private long hits;
+
+    /**
+     * Number of lookups that did not find an inclusion degree.
+     */
+    private long misses;
+
+    /**
+     * Construct an empty cache.
+     */
+    public EdgeInclusionCache() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.values = new double[INITIAL_CAPACITY];
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    /**
+     * Return the cached inclusion degree of a source edge in a query edge.
+     *
+     * @param sourceEdge ordinal of the source edge.
+     * @param queryEdge  ordinal of the query edge.
+     * @return the cached inclusion degree, or NaN if it has not been cached.
+     */
+    public double get(int sourceEdge, int queryEdge) {
+        long key = key(sourceEdge, queryEdge);
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; this.keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (this.keys[slot] == key) {
+                this.hits++;
+                return this.values[slot];
+            }
+        }
+
+        this.misses++;
+        return Double.NaN;
+    }
+
+    /**
+     * Cache the inclusion degree of a source edge in a query edge.
+     *
+     * @param sourceEdge      ordinal of the source edge.
+     * @param queryEdge       ordinal of the query edge.
+     * @param inclusionDegree inclusion degree of the source edge in the query edge.
+     */
+    public void put(int sourceEdge, int queryEdge, double inclusionDegree) {
+        if (2 * (this.size + 1) > this.keys.length) {
+            this.resize(this.keys.length * 2);
+        }
+
+        long key = key(sourceEdge, queryEdge);
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.keys[slot] != EMPTY && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (this.keys[slot] == EMPTY) {
+            this.keys[slot] = key;
+            this.size++;
+        }
+        this.values[slot] = inclusionDegree;
+    }
+
+    /**
+     * Remove all the cached inclusion degrees, keeping the counters of hits and misses.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+    }
+
+    /**
+     * Remove all the cached inclusion degrees and reset the counters of hits and misses, so the cache can be reused
+     * as if it was new.
+     */
+    public void reset() {
+        this.clear();
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * Return the number of lookups that found an inclusion degree.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Return the number of lookups that did not find an inclusion degree.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Return the fraction of lookups that found an inclusion degree.
+     *
+     * @return the hit rate, or 0 if there have not been lookups.
+     */
+    public double getHitRate() {
+        long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0.0 : (double) this.hits / lookups;
+    }
+
+    /**
+     * Move all the cached inclusion degrees to a table with a new number of slots.
+     *
+     * @param capacity new number of slots, it must be a power of two.
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = this.keys;
+        double[] oldValues = this.values;
+        this.keys = new long[capacity];
+        this.values = new double[capacity];
+        Arrays.fill(this.keys, EMPTY);
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (this.keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Combine the ordinals of two edges into a key.
+     *
+     * @param sourceEdge ordinal of the source edge.
+     * @param queryEdge  ordinal of the query edge.
+     * @return the key of the pair of edges.
+     */
+    private static long key(int sourceEdge, int queryEdge) {
+        return ((long) sourceEdge << 32) | (queryEdge & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Spread the bits of a key.
+     *
+     * @param key key to be hashed.
+     * @return the hash of the key.
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,70 @@
+package imagefuzzygraph.data;
+
+import java.util.Map;
+
+/**
+ * Class representing a resemblance relation given by a table of degrees between pairs of labels, for example between
+ * close colors. Every label resembles itself with degree 1 and any pair of labels not in the table with degree 0. The
+ * table is stored as a dense matrix indexed by label identifier, so looking a degree up costs an array access, and the
+ * class is final, so {@link imagefuzzygraph.algorithm.FuzzyGraphMatching} calls it without dynamic dispatch.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public final class GradedResemblance implements Resemblance {
+
+    /**
+     * Number of rows and columns of the matrix of degrees.
+     */
+    private final int size;
+
+    /**
+     * Degrees of the pairs of labels, row i and column j at position i * size + j.
+     */
+    private final double[] degrees;
+
+    /**
+     * Construct a resemblance relation. The table is made symmetric, so a pair of labels only needs to appear in one
+     * order.
+     *
+     * @param degrees resemblance degrees between pairs of different labels, between 0 and 1.
+     */
+    public GradedResemblance(Map<Tuple<String, String>, Double> degrees) {
+        int maximumLabelId = -1;
+        for (Tuple<String, String> pair : degrees.keySet()) {
+            maximumLabelId = Math.max(maximumLabelId, Math.max(LabelDictionary.getId(pair.getFirst()),
+                    LabelDictionary.getId(pair.getSecond())));
+        }
+        this.size = maximumLabelId + 1;
+        this.degrees = new double[this.size * this.size];
+        for (Map.Entry<Tuple<String, String>, Double> entry : degrees.entrySet()) {
+            double degree = entry.getValue();
+            if (!(degree >= 0.0 && degree <= 1.0)) {
+                throw new IllegalArgumentException("Invalid resemblance degree: " + degree);
+            }
+            int first = LabelDictionary.getId(entry.getKey().getFirst());
+            int second = LabelDictionary.getId(entry.getKey().getSecond());
+            this.degrees[first * this.size + second] = degree;
+            this.degrees[second * this.size + first] = degree;
+        }
+        for (int i = 0; i < this.size; i++) {
+            this.degrees[i * this.size + i] = 1.0;
+        }
+    }
+
+    /**
+     * Return the resemblance between two labels.
+     *
+     * @param firstLabelId  identifier of the first label.
+     * @param secondLabelId identifier of the second label.
+     * @return the resemblance degree between the labels.
+     */
+    @Override
+    public double apply(int firstLabelId, int secondLabelId) {
+        if (firstLabelId == secondLabelId) {
+            return 1.0;
+        } else if (firstLabelId >= this.size || secondLabelId >= this.size) {
+            return 0.0;
+        }
+        return this.degrees[firstLabelId * this.size + secondLabelId];
+    }
+}
@@ -0,0 +1,66 @@
+package imagefuzzygraph.data;
+
+import java.util.ArrayList;
+
+/**
+ * Class representing the information needed to build a graph: its regions and the labels of those regions.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class GraphSpec {
+
+    /**
+     * Id of the graph.
+     */
+    private final String graphId;
+
+    /**
+     * Regions of the image.
+     */
+    private final ArrayList<Region> regions;
+
+    /**
+     * Information about the labels of the regions.
+     */
+    private final ArrayList<String> labelsInfo;
+
+    /**
+     * Construct the information needed to build a graph.
+     *
+     * @param graphId    id of the graph.
+     * @param regions    regions of an image.
+     * @param labelsInfo information about the labels of the regions.
+     */
+    public GraphSpec(String graphId, ArrayList<Region> regions, ArrayList<String> labelsInfo) {
+        this.graphId = graphId;
+        this.regions = regions;
+        this.labelsInfo = labelsInfo;
+    }
+
+    /**
+     * Return the id of the graph.
+     *
+     * @return the id of the graph.
+     */
+    public String getGraphId() {
+        return graphId;
+    }
+
+    /**
+     * Return the regions of the image.
+     *
+     * @return the regions of the image.
+     */
+    public ArrayList<Region> getRegions() {
+        return regions;
+    }
+
+    /**
+     * Return the information about the labels of the regions.
+     *
+     * @return the information about the labels of the regions.
+     */
+    public ArrayList<String> getLabelsInfo() {
+        return labelsInfo;
+    }
+}
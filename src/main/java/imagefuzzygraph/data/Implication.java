@@ -0,0 +1,19 @@
+package imagefuzzygraph.data;
+
+/**
+ * Interface representing a fuzzy implication, used to compute the degree in which a degree of a fuzzy descriptor is
+ * included in a degree of another one. The usual implications are provided by {@link Implications}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public interface Implication {
+
+    /**
+     * Perform the implication between two values.
+     *
+     * @param x antecedent.
+     * @param y consequent.
+     * @return the degree in which x implies y.
+     */
+    double apply(double x, double y);
+}
@@ -0,0 +1,44 @@
+package imagefuzzygraph.data;
+
+/**
+ * Enum representing the usual {@link Implication} objects, the residua of the usual {@link TNorms}. The operator is
+ * selected with a switch in a single final method, so calls to it are never dispatched dynamically.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public enum Implications implements Implication {
+
+    /**
+     * Goguen implication, residuum of the product t-norm: I(x, y) = 1 if x ≤ y, and y / x otherwise.
+     */
+    GOGUEN,
+
+    /**
+     * Gödel implication, residuum of the minimum t-norm: I(x, y) = 1 if x ≤ y, and y otherwise.
+     */
+    GODEL,
+
+    /**
+     * Łukasiewicz implication, residuum of the Łukasiewicz t-norm: I(x, y) = min(1, 1 - x + y).
+     */
+    LUKASIEWICZ;
+
+    /**
+     * Perform the implication between two values.
+     *
+     * @param x antecedent.
+     * @param y consequent.
+     * @return the degree in which x implies y.
+     */
+    @Override
+    public double apply(double x, double y) {
+        switch (this) {
+            case GODEL:
+                return x <= y ? 1.0 : y;
+            case LUKASIEWICZ:
+                return Math.min(1.0, 1.0 - x + y);
+            default:
+                return x <= y ? 1.0 : y / x;
+        }
+    }
+}
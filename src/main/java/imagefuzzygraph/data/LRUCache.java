@@ -0,0 +1,100 @@
+package imagefuzzygraph.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Class representing a thread-safe cache with a maximum number of entries. When the cache is full, the least recently
+ * used entry is evicted.
+ *
+ * @param <K> type of the keys.
+ * @param <V> type of the values.
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class LRUCache<K, V> {
+
+    /**
+     * Entries of the cache, in access order.
+     */
+    private final LinkedHashMap<K, V> entries;
+
+    /**
+     * Construct a cache.
+     *
+     * @param capacity maximum number of entries.
+     */
+    public LRUCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Return the value of a key.
+     *
+     * @param key key to look up.
+     * @return the value of the key, or null if it is not cached.
+     */
+    public synchronized V get(K key) {
+        return this.entries.get(key);
+    }
+
+    /**
+     * Cache the value of a key.
+     *
+     * @param key   key to be cached.
+     * @param value value of the key.
+     */
+    public synchronized void put(K key, V value) {
+        this.entries.put(key, value);
+    }
+
+    /**
+     * Return the value of a key, computing and caching it if it is not cached. The value is computed without holding
+     * the lock of the cache, so it may be computed more than once by concurrent callers.
+     *
+     * @param key             key to look up.
+     * @param mappingFunction function to compute the value of the key.
+     * @return the value of the key.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = this.get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            this.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Remove the value of a key.
+     *
+     * @param key key to be removed.
+     */
+    public synchronized void remove(K key) {
+        this.entries.remove(key);
+    }
+
+    /**
+     * Remove all the entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Return the number of cached entries.
+     *
+     * @return the number of cached entries.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+}
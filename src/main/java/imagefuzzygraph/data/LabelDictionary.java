@@ -0,0 +1,66 @@
+package imagefuzzygraph.data;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class representing a global dictionary of labels. Every label is interned to a dense integer identifier, so
+ * descriptors can be compared by identifier instead of by string.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class LabelDictionary {
+
+    /**
+     * Identifiers of the labels, indexed by label.
+     */
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Labels, indexed by identifier.
+     */
+    private static final ArrayList<String> labels = new ArrayList<>();
+
+    /**
+     * Return the identifier of a label, interning the label if it was not known.
+     *
+     * @param label label to be interned.
+     * @return the identifier of the label.
+     */
+    public static int getId(String label) {
+        Integer id = ids.get(label);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (labels) {
+            return ids.computeIfAbsent(label, newLabel -> {
+                labels.add(newLabel);
+                return labels.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Return the label of an identifier.
+     *
+     * @param id identifier of the label.
+     * @return the label of the identifier.
+     */
+    public static String getLabel(int id) {
+        synchronized (labels) {
+            return labels.get(id);
+        }
+    }
+
+    /**
+     * Return the number of labels interned.
+     *
+     * @return the number of labels interned.
+     */
+    public static int size() {
+        synchronized (labels) {
+            return labels.size();
+        }
+    }
+}
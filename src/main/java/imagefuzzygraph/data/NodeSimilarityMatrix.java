@@ -0,0 +1,261 @@
+package imagefuzzygraph.data;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class representing a dense matrix with the similarities between the nodes of a source graph and the nodes of a query
+ * graph. Rows are indexed by the ordinal of the source nodes and columns by the ordinal of the query nodes. Deleted rows
+ * and columns are tracked with a bitmask, so nodes can be deleted without rebuilding the matrix.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class NodeSimilarityMatrix {
+
+    /**
+     * Identifiers of the source nodes, indexed by ordinal.
+     */
+    private final String[] sourceNodeIds;
+
+    /**
+     * Identifiers of the query nodes, indexed by ordinal.
+     */
+    private final String[] queryNodeIds;
+
+    /**
+     * Ordinals of the source nodes, indexed by identifier, built the first time it is needed.
+     */
+    private HashMap<String, Integer> sourceNodeOrdinals;
+
+    /**
+     * Ordinals of the query nodes, indexed by identifier, built the first time it is needed.
+     */
+    private HashMap<String, Integer> queryNodeOrdinals;
+
+    /**
+     * Similarities stored in row-major order.
+     */
+    private final double[] similarities;
+
+    /**
+     * Deleted rows.
+     */
+    private final BitSet deletedSourceNodes;
+
+    /**
+     * Deleted columns.
+     */
+    private final BitSet deletedQueryNodes;
+
+    /**
+     * Construct a matrix with all the similarities equal to 0.
+     *
+     * @param sourceNodeIds identifiers of the source nodes, in ordinal order.
+     * @param queryNodeIds  identifiers of the query nodes, in ordinal order.
+     */
+    public NodeSimilarityMatrix(List<String> sourceNodeIds, List<String> queryNodeIds) {
+        this.sourceNodeIds = sourceNodeIds.toArray(new String[0]);
+        this.queryNodeIds = queryNodeIds.toArray(new String[0]);
+        this.similarities = new double[this.sourceNodeIds.length * this.queryNodeIds.length];
+        this.deletedSourceNodes = new BitSet(this.sourceNodeIds.length);
+        this.deletedQueryNodes = new BitSet(this.queryNodeIds.length);
+    }
+
+    /**
+     * Construct a matrix from a nested map of similarities indexed by node identifiers.
+     *
+     * @param sourceNodeIds identifiers of the source nodes, in ordinal order.
+     * @param queryNodeIds  identifiers of the query nodes, in ordinal order.
+     * @param similarities  nested map where, for key i and nested key j we have the similarity between the source node
+     *                      i and the query node j.
+     * @return matrix with the same similarities.
+     */
+    public static NodeSimilarityMatrix fromMap(List<String> sourceNodeIds, List<String> queryNodeIds,
+                                               Map<String, Map<String, Double>> similarities) {
+        NodeSimilarityMatrix matrix = new NodeSimilarityMatrix(sourceNodeIds, queryNodeIds);
+        for (int i = 0; i < matrix.sourceNodeIds.length; i++) {
+            Map<String, Double> queryNodeSimilarities = similarities.get(matrix.sourceNodeIds[i]);
+            for (int j = 0; j < matrix.queryNodeIds.length; j++) {
+                matrix.set(i, j, queryNodeSimilarities.get(matrix.queryNodeIds[j]));
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Return the similarities as a nested map indexed by node identifiers. Deleted nodes are included.
+     *
+     * @return nested map where, for key i and nested key j we have the similarity between the source node i and the
+     * query node j.
+     */
+    public Map<String, Map<String, Double>> toMap() {
+        Map<String, Map<String, Double>> map = new HashMap<>();
+        for (int i = 0; i < this.sourceNodeIds.length; i++) {
+            Map<String, Double> queryNodeSimilarities = new HashMap<>();
+            for (int j = 0; j < this.queryNodeIds.length; j++) {
+                queryNodeSimilarities.put(this.queryNodeIds[j], this.get(i, j));
+            }
+            map.put(this.sourceNodeIds[i], queryNodeSimilarities);
+        }
+        return map;
+    }
+
+    /**
+     * Return the similarity between a source node and a query node.
+     *
+     * @param sourceNode ordinal of the source node.
+     * @param queryNode  ordinal of the query node.
+     * @return the similarity between the source node and the query node.
+     */
+    public double get(int sourceNode, int queryNode) {
+        return this.similarities[sourceNode * this.queryNodeIds.length + queryNode];
+    }
+
+    /**
+     * Return the similarity between a source node and a query node.
+     *
+     * @param sourceNodeId id of the source node.
+     * @param queryNodeId  id of the query node.
+     * @return the similarity between the source node and the query node.
+     */
+    public double get(String sourceNodeId, String queryNodeId) {
+        return this.get(this.getSourceNodeOrdinal(sourceNodeId), this.getQueryNodeOrdinal(queryNodeId));
+    }
+
+    /**
+     * Set the similarity between a source node and a query node.
+     *
+     * @param sourceNode ordinal of the source node.
+     * @param queryNode  ordinal of the query node.
+     * @param similarity similarity between the source node and the query node.
+     */
+    public void set(int sourceNode, int queryNode, double similarity) {
+        this.similarities[sourceNode * this.queryNodeIds.length + queryNode] = similarity;
+    }
+
+    /**
+     * Return the ordinal of a source node.
+     *
+     * @param sourceNodeId id of the source node.
+     * @return the ordinal of the source node.
+     */
+    public int getSourceNodeOrdinal(String sourceNodeId) {
+        if (this.sourceNodeOrdinals == null) {
+            this.sourceNodeOrdinals = getOrdinals(this.sourceNodeIds);
+        }
+        return this.sourceNodeOrdinals.get(sourceNodeId);
+    }
+
+    /**
+     * Return the ordinal of a query node.
+     *
+     * @param queryNodeId id of the query node.
+     * @return the ordinal of the query node.
+     */
+    public int getQueryNodeOrdinal(String queryNodeId) {
+        if (this.queryNodeOrdinals == null) {
+            this.queryNodeOrdinals = getOrdinals(this.queryNodeIds);
+        }
+        return this.queryNodeOrdinals.get(queryNodeId);
+    }
+
+    /**
+     * Index a list of identifiers by their position.
+     *
+     * @param ids identifiers, in ordinal order.
+     * @return the ordinals, indexed by identifier.
+     */
+    private static HashMap<String, Integer> getOrdinals(String[] ids) {
+        HashMap<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            ordinals.put(ids[i], i);
+        }
+        return ordinals;
+    }
+
+    /**
+     * Return the id of a source node.
+     *
+     * @param sourceNode ordinal of the source node.
+     * @return the id of the source node.
+     */
+    public String getSourceNodeId(int sourceNode) {
+        return this.sourceNodeIds[sourceNode];
+    }
+
+    /**
+     * Return the id of a query node.
+     *
+     * @param queryNode ordinal of the query node.
+     * @return the id of the query node.
+     */
+    public String getQueryNodeId(int queryNode) {
+        return this.queryNodeIds[queryNode];
+    }
+
+    /**
+     * Return the number of source nodes, deleted ones included.
+     *
+     * @return the number of source nodes.
+     */
+    public int getNumberOfSourceNodes() {
+        return this.sourceNodeIds.length;
+    }
+
+    /**
+     * Return the number of query nodes, deleted ones included.
+     *
+     * @return the number of query nodes.
+     */
+    public int getNumberOfQueryNodes() {
+        return this.queryNodeIds.length;
+    }
+
+    /**
+     * Delete the row of a source node.
+     *
+     * @param sourceNode ordinal of the source node.
+     */
+    public void deleteSourceNode(int sourceNode) {
+        this.deletedSourceNodes.set(sourceNode);
+    }
+
+    /**
+     * Delete the column of a query node.
+     *
+     * @param queryNode ordinal of the query node.
+     */
+    public void deleteQueryNode(int queryNode) {
+        this.deletedQueryNodes.set(queryNode);
+    }
+
+    /**
+     * Return whether the row of a source node has been deleted.
+     *
+     * @param sourceNode ordinal of the source node.
+     * @return true if the row has been deleted.
+     */
+    public boolean isSourceNodeDeleted(int sourceNode) {
+        return this.deletedSourceNodes.get(sourceNode);
+    }
+
+    /**
+     * Return whether the column of a query node has been deleted.
+     *
+     * @param queryNode ordinal of the query node.
+     * @return true if the column has been deleted.
+     */
+    public boolean isQueryNodeDeleted(int queryNode) {
+        return this.deletedQueryNodes.get(queryNode);
+    }
+
+    /**
+     * Restore all the deleted rows and columns.
+     */
+    public void restoreNodes() {
+        this.deletedSourceNodes.clear();
+        this.deletedQueryNodes.clear();
+    }
+}
@@ -0,0 +1,25 @@
+package imagefuzzygraph.data;
+
+/**
+ * Interface representing a resemblance relation between labels, that is, a reflexive and symmetric fuzzy relation
+ * telling how much two labels of fuzzy descriptors are alike. Labels are given by their identifiers in the
+ * {@link LabelDictionary}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public interface Resemblance {
+
+    /**
+     * Crisp resemblance relation: S(x, y) = 1 if x = y, and 0 otherwise.
+     */
+    Resemblance CRISP = (firstLabelId, secondLabelId) -> firstLabelId == secondLabelId ? 1.0 : 0.0;
+
+    /**
+     * Return the resemblance between two labels.
+     *
+     * @param firstLabelId  identifier of the first label.
+     * @param secondLabelId identifier of the second label.
+     * @return the resemblance degree between the labels.
+     */
+    double apply(int firstLabelId, int secondLabelId);
+}
@@ -0,0 +1,19 @@
+package imagefuzzygraph.data;
+
+/**
+ * Interface representing a t-norm, that is, a commutative, associative and monotonic operator on [0, 1] with 1 as
+ * identity, used as the conjunction of fuzzy degrees. The usual t-norms are provided by {@link TNorms}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public interface TNorm {
+
+    /**
+     * Perform the t-norm between two values.
+     *
+     * @param a first value.
+     * @param b second value.
+     * @return t-norm of the two values.
+     */
+    double apply(double a, double b);
+}
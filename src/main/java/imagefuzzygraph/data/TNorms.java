@@ -0,0 +1,44 @@
+package imagefuzzygraph.data;
+
+/**
+ * Enum representing the usual {@link TNorm} objects. The operator is selected with a switch in a single final method,
+ * so calls to it are never dispatched dynamically.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public enum TNorms implements TNorm {
+
+    /**
+     * Minimum t-norm: T(a, b) = min(a, b).
+     */
+    MINIMUM,
+
+    /**
+     * Product t-norm: T(a, b) = a * b.
+     */
+    PRODUCT,
+
+    /**
+     * Łukasiewicz t-norm: T(a, b) = max(0, a + b - 1).
+     */
+    LUKASIEWICZ;
+
+    /**
+     * Perform the t-norm between two values.
+     *
+     * @param a first value.
+     * @param b second value.
+     * @return t-norm of the two values.
+     */
+    @Override
+    public double apply(double a, double b) {
+        switch (this) {
+            case PRODUCT:
+                return a * b;
+            case LUKASIEWICZ:
+                return Math.max(0.0, a + b - 1.0);
+            default:
+                return Math.min(a, b);
+        }
+    }
+}
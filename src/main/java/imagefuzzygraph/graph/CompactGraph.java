@@ -0,0 +1,321 @@
+package imagefuzzygraph.graph;
+
+import imagefuzzygraph.data.CompiledDescriptor;
+import imagefuzzygraph.data.CompiledDescriptorTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class representing an immutable graph where nodes and edges are identified by their ordinals, that is, their
+ * positions in {@link Graph#getNodes()} and {@link Graph#getEdges()}. The adjacency is stored in compressed sparse row
+ * form: the edges starting at node n are the ones in positions from {@code getFirstAdjacentEdge(n)} to
+ * {@code getFirstAdjacentEdge(n + 1)}, in the same order as in the graph, and the descriptors are stored in flat
+ * primitive arrays.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class CompactGraph {
+
+    /**
+     * Id of the graph.
+     */
+    private final String id;
+
+    /**
+     * Ids of the nodes, indexed by node ordinal.
+     */
+    private final String[] nodeIds;
+
+    /**
+     * Ids of the edges, indexed by edge ordinal.
+     */
+    private final String[] edgeIds;
+
+    /**
+     * Position in the adjacency of the first edge starting at every node, plus a sentinel.
+     */
+    private final int[] firstAdjacentEdges;
+
+    /**
+     * Ordinal of the end node of every edge of the adjacency.
+     */
+    private final int[] adjacentNodes;
+
+    /**
+     * Ordinal of every edge of the adjacency.
+     */
+    private final int[] adjacentEdges;
+
+    /**
+     * Ordinal of the start node of every edge, indexed by edge ordinal.
+     */
+    private final int[] startNodes;
+
+    /**
+     * Ordinal of the end node of every edge, indexed by edge ordinal.
+     */
+    private final int[] endNodes;
+
+    /**
+     * Color fuzzy descriptors of the nodes, indexed by node ordinal.
+     */
+    private final CompiledDescriptorTable colorFuzzyDescriptors;
+
+    /**
+     * Label descriptors of the nodes, indexed by node ordinal.
+     */
+    private final CompiledDescriptorTable labelDescriptors;
+
+    /**
+     * Spatial relationship fuzzy descriptors of the edges, indexed by edge ordinal.
+     */
+    private final CompiledDescriptorTable spatialRelationshipFuzzyDescriptors;
+
+    /**
+     * Construct a compact graph from a graph. Deleted nodes are ignored.
+     *
+     * @param graph graph to be compacted.
+     * @throws IllegalArgumentException exception thrown if an edge starts or ends at a node which is not in the graph.
+     */
+    public CompactGraph(Graph graph) {
+        ArrayList<Node> nodes = graph.getNodes();
+        ArrayList<Edge> edges = graph.getEdges();
+        this.id = graph.getId();
+
+        this.nodeIds = new String[nodes.size()];
+        HashMap<String, Integer> nodeOrdinals = new HashMap<>();
+        ArrayList<CompiledDescriptor> colorFuzzyDescriptors = new ArrayList<>(nodes.size());
+        ArrayList<CompiledDescriptor> labelDescriptors = new ArrayList<>(nodes.size());
+        for (int n = 0; n < nodes.size(); n++) {
+            Node node = nodes.get(n);
+            this.nodeIds[n] = node.getId();
+            nodeOrdinals.putIfAbsent(node.getId(), n);
+            colorFuzzyDescriptors.add(new CompiledDescriptor(node.getColorFuzzyDescriptor()));
+            labelDescriptors.add(new CompiledDescriptor(node.getLabelDescriptor()));
+        }
+        this.colorFuzzyDescriptors = new CompiledDescriptorTable(colorFuzzyDescriptors);
+        this.labelDescriptors = new CompiledDescriptorTable(labelDescriptors);
+
+        this.edgeIds = new String[edges.size()];
+        this.startNodes = new int[edges.size()];
+        this.endNodes = new int[edges.size()];
+        ArrayList<CompiledDescriptor> spatialRelationshipFuzzyDescriptors = new ArrayList<>(edges.size());
+        for (int e = 0; e < edges.size(); e++) {
+            Edge edge = edges.get(e);
+            this.edgeIds[e] = edge.getId();
+            this.startNodes[e] = getNodeOrdinal(nodeOrdinals, edge.getStartNodeId());
+            this.endNodes[e] = getNodeOrdinal(nodeOrdinals, edge.getEndNodeId());
+            spatialRelationshipFuzzyDescriptors.add(new CompiledDescriptor(edge.getSpatialRelationshipFuzzyDescriptor()));
+        }
+        this.spatialRelationshipFuzzyDescriptors = new CompiledDescriptorTable(spatialRelationshipFuzzyDescriptors);
+
+        this.firstAdjacentEdges = new int[nodes.size() + 1];
+        this.adjacentNodes = new int[edges.size()];
+        this.adjacentEdges = new int[edges.size()];
+        this.buildAdjacency();
+    }
+
+    /**
+     * Construct a compact graph from its parts, without building a {@link Graph}.
+     *
+     * @param id                                  id of the graph.
+     * @param nodeIds                             ids of the nodes, indexed by node ordinal.
+     * @param edgeIds                             ids of the edges, indexed by edge ordinal.
+     * @param startNodes                          ordinal of the start node of every edge, indexed by edge ordinal.
+     * @param endNodes                            ordinal of the end node of every edge, indexed by edge ordinal.
+     * @param colorFuzzyDescriptors               color fuzzy descriptors of the nodes, indexed by node ordinal.
+     * @param labelDescriptors                    label descriptors of the nodes, indexed by node ordinal.
+     * @param spatialRelationshipFuzzyDescriptors spatial relationship fuzzy descriptors of the edges, indexed by edge
+     *                                            ordinal.
+     * @throws IllegalArgumentException exception thrown if the sizes of the parts do not match or an edge starts or
+     *                                  ends at a node which is not in the graph.
+     */
+    public CompactGraph(String id, String[] nodeIds, String[] edgeIds, int[] startNodes, int[] endNodes,
+                        CompiledDescriptorTable colorFuzzyDescriptors, CompiledDescriptorTable labelDescriptors,
+                        CompiledDescriptorTable spatialRelationshipFuzzyDescriptors) {
+        if (colorFuzzyDescriptors.size() != nodeIds.length || labelDescriptors.size() != nodeIds.length
+                || startNodes.length != edgeIds.length || endNodes.length != edgeIds.length
+                || spatialRelationshipFuzzyDescriptors.size() != edgeIds.length) {
+            throw new IllegalArgumentException("The parts of the graph " + id + " have different sizes");
+        }
+        for (int e = 0; e < edgeIds.length; e++) {
+            if (startNodes[e] < 0 || startNodes[e] >= nodeIds.length || endNodes[e] < 0 || endNodes[e] >= nodeIds.length) {
+                throw new IllegalArgumentException("Edge references a node which is not in the graph: " + edgeIds[e]);
+            }
+        }
+        this.id = id;
+        this.nodeIds = nodeIds;
+        this.edgeIds = edgeIds;
+        this.startNodes = startNodes;
+        this.endNodes = endNodes;
+        this.colorFuzzyDescriptors = colorFuzzyDescriptors;
+        this.labelDescriptors = labelDescriptors;
+        this.spatialRelationshipFuzzyDescriptors = spatialRelationshipFuzzyDescriptors;
+
+        this.firstAdjacentEdges = new int[nodeIds.length + 1];
+        this.adjacentNodes = new int[edgeIds.length];
+        this.adjacentEdges = new int[edgeIds.length];
+        this.buildAdjacency();
+    }
+
+    /**
+     * Fill the adjacency from the start and end nodes of the edges.
+     */
+    private void buildAdjacency() {
+        for (int startNode : this.startNodes) {
+            this.firstAdjacentEdges[startNode + 1]++;
+        }
+        for (int n = 1; n < this.firstAdjacentEdges.length; n++) {
+            this.firstAdjacentEdges[n] += this.firstAdjacentEdges[n - 1];
+        }
+        int[] nextAdjacentEdges = Arrays.copyOf(this.firstAdjacentEdges, this.nodeIds.length);
+        for (int e = 0; e < this.edgeIds.length; e++) {
+            int position = nextAdjacentEdges[this.startNodes[e]]++;
+            this.adjacentNodes[position] = this.endNodes[e];
+            this.adjacentEdges[position] = e;
+        }
+    }
+
+    /**
+     * Return the ordinal of a node referenced by an edge.
+     *
+     * @param nodeOrdinals ordinals of the nodes, indexed by node id.
+     * @param nodeId       id of the node.
+     * @return the ordinal of the node.
+     * @throws IllegalArgumentException exception thrown if the node is not in the graph.
+     */
+    private static int getNodeOrdinal(HashMap<String, Integer> nodeOrdinals, String nodeId) {
+        Integer node = nodeOrdinals.get(nodeId);
+        if (node == null) {
+            throw new IllegalArgumentException("Edge references a node which is not in the graph: " + nodeId);
+        }
+        return node;
+    }
+
+    /**
+     * Return the id of the graph.
+     *
+     * @return the id of the graph.
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Return the number of nodes.
+     *
+     * @return the number of nodes.
+     */
+    public int getNumberOfNodes() {
+        return this.nodeIds.length;
+    }
+
+    /**
+     * Return the number of edges.
+     *
+     * @return the number of edges.
+     */
+    public int getNumberOfEdges() {
+        return this.edgeIds.length;
+    }
+
+    /**
+     * Return the id of a node.
+     *
+     * @param node ordinal of the node.
+     * @return the id of the node.
+     */
+    public String getNodeId(int node) {
+        return this.nodeIds[node];
+    }
+
+    /**
+     * Return the id of an edge.
+     *
+     * @param edge ordinal of the edge.
+     * @return the id of the edge.
+     */
+    public String getEdgeId(int edge) {
+        return this.edgeIds[edge];
+    }
+
+    /**
+     * Return the position in the adjacency of the first edge starting at a node. The position for the number of nodes
+     * is the total number of edges.
+     *
+     * @param node ordinal of the node.
+     * @return the position of the first edge starting at the node.
+     */
+    public int getFirstAdjacentEdge(int node) {
+        return this.firstAdjacentEdges[node];
+    }
+
+    /**
+     * Return the ordinal of the end node of an edge of the adjacency.
+     *
+     * @param position position of the edge in the adjacency.
+     * @return the ordinal of the end node.
+     */
+    public int getAdjacentNode(int position) {
+        return this.adjacentNodes[position];
+    }
+
+    /**
+     * Return the ordinal of an edge of the adjacency.
+     *
+     * @param position position of the edge in the adjacency.
+     * @return the ordinal of the edge.
+     */
+    public int getAdjacentEdge(int position) {
+        return this.adjacentEdges[position];
+    }
+
+    /**
+     * Return the ordinal of the start node of an edge.
+     *
+     * @param edge ordinal of the edge.
+     * @return the ordinal of the start node.
+     */
+    public int getStartNode(int edge) {
+        return this.startNodes[edge];
+    }
+
+    /**
+     * Return the ordinal of the end node of an edge.
+     *
+     * @param edge ordinal of the edge.
+     * @return the ordinal of the end node.
+     */
+    public int getEndNode(int edge) {
+        return this.endNodes[edge];
+    }
+
+    /**
+     * Return the color fuzzy descriptors of the nodes, indexed by node ordinal.
+     *
+     * @return the color fuzzy descriptors of the nodes.
+     */
+    public CompiledDescriptorTable getColorFuzzyDescriptors() {
+        return this.colorFuzzyDescriptors;
+    }
+
+    /**
+     * Return the label descriptors of the nodes, indexed by node ordinal.
+     *
+     * @return the label descriptors of the nodes.
+     */
+    public CompiledDescriptorTable getLabelDescriptors() {
+        return this.labelDescriptors;
+    }
+
+    /**
+     * Return the spatial relationship fuzzy descriptors of the edges, indexed by edge ordinal.
+     *
+     * @return the spatial relationship fuzzy descriptors of the edges.
+     */
+    public CompiledDescriptorTable getSpatialRelationshipFuzzyDescriptors() {
+        return this.spatialRelationshipFuzzyDescriptors;
+    }
+}
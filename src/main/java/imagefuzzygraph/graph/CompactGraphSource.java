@@ -0,0 +1,20 @@
+package imagefuzzygraph.graph;
+
+/**
+ * Interface representing a list of graphs which can return the {@link CompactGraph} of a graph without building the
+ * {@link Graph} itself, for example because it reads the compact graph from a file. Lists of graphs implementing it are
+ * scanned through their compact graphs by the query engine.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public interface CompactGraphSource {
+
+    /**
+     * Return the compact graph of a graph of the list. It must be the same as {@link Graph#getCompactGraph()} of the
+     * graph in that position.
+     *
+     * @param index position of the graph.
+     * @return the compact graph of the graph.
+     */
+    CompactGraph getCompactGraph(int index);
+}
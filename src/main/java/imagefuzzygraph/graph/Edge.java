@@ -1,5 +1,6 @@
 package imagefuzzygraph.graph;
 
+import imagefuzzygraph.data.CompiledDescriptor;
 import imagefuzzygraph.data.Descriptor;
 
 /**
@@ -29,6 +30,11 @@ public class Edge {
      */
     private final Descriptor spatialRelationshipFuzzyDescriptor;
 
+    /**
+     * Compiled spatial relationship fuzzy descriptor of the edge, built the first time it is needed.
+     */
+    private transient CompiledDescriptor compiledSpatialRelationshipFuzzyDescriptor;
+
     /**
      * Construct an edge
      *
@@ -79,4 +85,16 @@ public class Edge {
     public Descriptor getSpatialRelationshipFuzzyDescriptor() {
         return spatialRelationshipFuzzyDescriptor;
     }
+
+    /**
+     * Return the compiled spatial relationship fuzzy descriptor of the edge.
+     *
+     * @return the compiled spatial relationship fuzzy descriptor of the edge.
+     */
+    public CompiledDescriptor getCompiledSpatialRelationshipFuzzyDescriptor() {
+        if (compiledSpatialRelationshipFuzzyDescriptor == null) {
+            compiledSpatialRelationshipFuzzyDescriptor = new CompiledDescriptor(spatialRelationshipFuzzyDescriptor);
+        }
+        return compiledSpatialRelationshipFuzzyDescriptor;
+    }
 }
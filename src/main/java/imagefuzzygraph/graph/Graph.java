@@ -3,10 +3,11 @@ package imagefuzzygraph.graph;
 import com.google.gson.GsonBuilder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 
 /**
  * Class representing a graph.
@@ -31,9 +32,101 @@ public class Graph implements Iterable<Node> {
     private final ArrayList<Edge> edges = new ArrayList<>();
 
     /**
-     * Adjacency list to represent graph's structure.
+     * Adjacency of the nodes to represent graph's structure, built the first time it is needed. It never changes, so
+     * it is shared with the copies of the graph.
      */
-    private final LinkedHashMap<String, LinkedHashSet<Edge>> adjacencyList;
+    private transient volatile Adjacency adjacency;
+
+    /**
+     * Deleted nodes, indexed by node ordinal, or null if no node has been deleted.
+     */
+    private transient BitSet deletedNodes;
+
+    /**
+     * Deleted edges, indexed by edge ordinal, or null if no node has been deleted.
+     */
+    private transient BitSet deletedEdges;
+
+    /**
+     * Compact representation of the graph, built the first time it is needed.
+     */
+    private transient volatile CompactGraph compactGraph;
+
+    /**
+     * Class representing the outgoing and incoming edges of every node, indexed by node ordinal.
+     */
+    private static class Adjacency {
+
+        /**
+         * Ordinals of the nodes, indexed by node id. Ids only referenced by edges get an ordinal after the nodes.
+         */
+        private final HashMap<String, Integer> nodeOrdinals = new HashMap<>();
+
+        /**
+         * Position in {@link #outgoingEdges} of the first outgoing edge of every node, plus a sentinel.
+         */
+        private final int[] firstOutgoingEdges;
+
+        /**
+         * Ordinals of the outgoing edges of every node, in the order they were added.
+         */
+        private final int[] outgoingEdges;
+
+        /**
+         * Position in {@link #incomingEdges} of the first incoming edge of every node, plus a sentinel.
+         */
+        private final int[] firstIncomingEdges;
+
+        /**
+         * Ordinals of the incoming edges of every node, in the order they were added.
+         */
+        private final int[] incomingEdges;
+
+        /**
+         * Construct the adjacency of a graph.
+         *
+         * @param nodes nodes of the graph.
+         * @param edges edges of the graph.
+         */
+        private Adjacency(ArrayList<Node> nodes, ArrayList<Edge> edges) {
+            for (Node node : nodes) {
+                this.nodeOrdinals.putIfAbsent(node.getId(), this.nodeOrdinals.size());
+            }
+            int[] startNodes = new int[edges.size()];
+            int[] endNodes = new int[edges.size()];
+            for (int e = 0; e < edges.size(); e++) {
+                Edge edge = edges.get(e);
+                startNodes[e] = this.nodeOrdinals.computeIfAbsent(edge.getStartNodeId(), k -> this.nodeOrdinals.size());
+                endNodes[e] = this.nodeOrdinals.computeIfAbsent(edge.getEndNodeId(), k -> this.nodeOrdinals.size());
+            }
+            this.firstOutgoingEdges = new int[this.nodeOrdinals.size() + 1];
+            this.outgoingEdges = new int[edges.size()];
+            this.firstIncomingEdges = new int[this.nodeOrdinals.size() + 1];
+            this.incomingEdges = new int[edges.size()];
+            index(startNodes, this.firstOutgoingEdges, this.outgoingEdges);
+            index(endNodes, this.firstIncomingEdges, this.incomingEdges);
+        }
+
+        /**
+         * Group the edges by node, keeping their order.
+         *
+         * @param nodes      node of every edge, indexed by edge ordinal.
+         * @param firstEdges position of the first edge of every node, plus a sentinel, to be filled.
+         * @param edges      ordinals of the edges grouped by node, to be filled.
+         */
+        private static void index(int[] nodes, int[] firstEdges, int[] edges) {
+            for (int node : nodes) {
+                firstEdges[node + 1]++;
+            }
+            for (int n = 1; n < firstEdges.length; n++) {
+                firstEdges[n] += firstEdges[n - 1];
+            }
+            int[] nextEdges = Arrays.copyOf(firstEdges, firstEdges.length - 1);
+            for (int e = 0; e < nodes.length; e++) {
+                edges[nextEdges[nodes[e]]++] = e;
+            }
+        }
+    }
 
     /**
      * Construct a graph.
@@ -44,53 +137,97 @@ public class Graph implements Iterable<Node> {
      */
     public Graph(String id, Collection<Node> nodes, Collection<Edge> edges) {
         this.id = id;
-        this.adjacencyList = new LinkedHashMap<>();
         this.nodes.addAll(nodes);
-        edges.forEach(this::addEdge);
+        this.edges.addAll(edges);
     }
 
     /**
-     * Copy constructor.
+     * Copy constructor. Nodes deleted from the graph to copy are not deleted from the copy.
      *
      * @param graph graph to copy.
      */
     public Graph(Graph graph) {
         this.id = graph.getId();
-        this.adjacencyList = new LinkedHashMap<>();
         this.nodes.addAll(graph.getNodes());
-        graph.getEdges().forEach(this::addEdge);
+        this.edges.addAll(graph.getEdges());
+        this.adjacency = graph.getAdjacency();
+        this.compactGraph = graph.compactGraph;
     }
 
     /**
-     * Add an edge to the graph.
+     * Return the adjacency of the nodes, building it if it is needed.
      *
-     * @param edge new edge to be added.
+     * @return the adjacency of the nodes.
      */
-    private void addEdge(Edge edge) {
-        this.edges.add(edge);
-        this.adjacencyList.computeIfAbsent(edge.getStartNodeId(), k -> new LinkedHashSet<>()).add(edge);
+    private Adjacency getAdjacency() {
+        Adjacency adjacency = this.adjacency;
+        if (adjacency == null) {
+            adjacency = new Adjacency(this.nodes, this.edges);
+            this.adjacency = adjacency;
+        }
+        return adjacency;
     }
 
     /**
      * Delete a node from the graph and all the edges with the origin or destination node equals to the node to be
-     * deleted.
+     * deleted. Only the edges of the node are visited.
      *
      * @param nodeId id of the node to be deleted.
      */
     public void deleteNode(String nodeId) {
-        this.adjacencyList.remove(nodeId);
-        this.adjacencyList.forEach((k, v) -> v.removeIf(edge -> edge.getStartNodeId().equals(nodeId) ||
-                edge.getEndNodeId().equals(nodeId)));
+        Adjacency adjacency = this.getAdjacency();
+        Integer node = adjacency.nodeOrdinals.get(nodeId);
+        if (node == null) {
+            return;
+        }
+        if (this.deletedNodes == null) {
+            this.deletedNodes = new BitSet(adjacency.nodeOrdinals.size());
+            this.deletedEdges = new BitSet(this.edges.size());
+        }
+        this.deletedNodes.set(node);
+        for (int i = adjacency.firstOutgoingEdges[node]; i < adjacency.firstOutgoingEdges[node + 1]; i++) {
+            this.deletedEdges.set(adjacency.outgoingEdges[i]);
+        }
+        for (int i = adjacency.firstIncomingEdges[node]; i < adjacency.firstIncomingEdges[node + 1]; i++) {
+            this.deletedEdges.set(adjacency.incomingEdges[i]);
+        }
     }
 
     /**
-     * Return the adjacent edges of a node.
+     * Return the adjacent edges of a node, that is, its outgoing edges which have not been deleted. The result is a
+     * snapshot: it is a new collection, which later calls to {@link #deleteNode(String)} do not update.
      *
      * @param nodeId id of node to get the adjacent from.
-     * @return the adjacent of a node.
+     * @return a copy of the adjacent edges of the node, empty if the node does not exist or has been deleted.
      */
     public Collection<Edge> getAdjacentEdges(String nodeId) {
-        return this.adjacencyList.getOrDefault(nodeId, new LinkedHashSet<>());
+        Adjacency adjacency = this.getAdjacency();
+        Integer node = adjacency.nodeOrdinals.get(nodeId);
+        ArrayList<Edge> adjacentEdges = new ArrayList<>();
+        if (node != null && (this.deletedNodes == null || !this.deletedNodes.get(node))) {
+            for (int i = adjacency.firstOutgoingEdges[node]; i < adjacency.firstOutgoingEdges[node + 1]; i++) {
+                int edge = adjacency.outgoingEdges[i];
+                if (this.deletedEdges == null || !this.deletedEdges.get(edge)) {
+                    adjacentEdges.add(this.edges.get(edge));
+                }
+            }
+        }
+        return adjacentEdges;
+    }
+
+    /**
+     * Return the compact representation of the graph, used by the matching. It is built once from the nodes and edges
+     * of the graph, so it does not reflect deleted nodes.
+     *
+     * @return the compact representation of the graph.
+     */
+    public CompactGraph getCompactGraph() {
+        CompactGraph compactGraph = this.compactGraph;
+        if (compactGraph == null) {
+            compactGraph = new CompactGraph(this);
+            this.compactGraph = compactGraph;
+        }
+        return compactGraph;
     }
 
     /**
@@ -1,5 +1,6 @@
 package imagefuzzygraph.graph;
 
+import imagefuzzygraph.data.CompiledDescriptor;
 import imagefuzzygraph.data.Descriptor;
 import imagefuzzygraph.data.Tuple;
 
@@ -35,6 +36,16 @@ public class Node {
      */
     private final Tuple<Double, Double> location;
 
+    /**
+     * Compiled color fuzzy descriptor of the node, built the first time it is needed.
+     */
+    private transient CompiledDescriptor compiledColorFuzzyDescriptor;
+
+    /**
+     * Compiled label descriptor of the node, built the first time it is needed.
+     */
+    private transient CompiledDescriptor compiledLabelDescriptor;
+
     /**
      * Construct a node.
      *
@@ -71,6 +82,18 @@ public class Node {
         return colorFuzzyDescriptor;
     }
 
+    /**
+     * Return the compiled color fuzzy descriptor of the node.
+     *
+     * @return the compiled color fuzzy descriptor of the node.
+     */
+    public CompiledDescriptor getCompiledColorFuzzyDescriptor() {
+        if (compiledColorFuzzyDescriptor == null) {
+            compiledColorFuzzyDescriptor = new CompiledDescriptor(colorFuzzyDescriptor);
+        }
+        return compiledColorFuzzyDescriptor;
+    }
+
     /**
      * Return the label descriptor of the node.
      *
@@ -80,6 +103,18 @@ public class Node {
         return labelDescriptor;
     }
 
+    /**
+     * Return the compiled label descriptor of the node.
+     *
+     * @return the compiled label descriptor of the node.
+     */
+    public CompiledDescriptor getCompiledLabelDescriptor() {
+        if (compiledLabelDescriptor == null) {
+            compiledLabelDescriptor = new CompiledDescriptor(labelDescriptor);
+        }
+        return compiledLabelDescriptor;
+    }
+
     /**
      * Return the path to the image of the region represented by the node.
      *
@@ -0,0 +1,838 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.data.CompiledDescriptor;
+import imagefuzzygraph.data.CompiledDescriptorTable;
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.PropertyWithDegree;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.CompactGraph;
+import imagefuzzygraph.graph.Edge;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graph.Node;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Class to read and write databases of graphs in a compact, columnar binary format. The file starts with a header
+ * holding a magic number, the version of the format and the size of every table. Then, every column of the tables is
+ * stored contiguously, in this order:
+ *
+ * <pre>
+ * graphs:      id, first node, first edge (the last two with an extra sentinel element)
+ * nodes:       id, image path, color descriptor, label descriptor, location x, location y
+ * edges:       id, start node id, end node id, spatial relationship descriptor
+ * descriptors: first property (with an extra sentinel element)
+ * properties:  label, degree
+ * strings:     first byte (with an extra sentinel element), UTF-8 bytes
+ * </pre>
+ * <p>
+ * Every string (ids, image paths and labels) is stored once in the string dictionary and referenced by its index, or
+ * by -1 if it is null. Identical descriptors are stored once. Integers and doubles are stored in big-endian order.
+ * <p>
+ * Every column is loaded into a single buffer, so it can hold at most {@value #MAX_SECTION_SIZE} bytes. Writing a
+ * database with a larger column, or reading a file declaring one, throws an {@link IOException}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class BinaryGraphDatabaseFormat {
+
+    /**
+     * Magic number identifying the format, "IFGD" in ASCII.
+     */
+    public static final int MAGIC = 0x49464744;
+
+    /**
+     * Version of the format written.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header, in bytes.
+     */
+    static final int HEADER_SIZE = 9 * Integer.BYTES;
+
+    /**
+     * Maximum size of a column, in bytes, which is the capacity of the largest buffer.
+     */
+    public static final int MAX_SECTION_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Compiled descriptor of the null descriptors, shared by all of them as compiled descriptors are immutable.
+     */
+    private static final CompiledDescriptor EMPTY_COMPILED_DESCRIPTOR = new CompiledDescriptor(new Descriptor());
+
+    /**
+     * Interface representing a way to load a region of a file.
+     */
+    interface SectionLoader {
+
+        /**
+         * Load a region of a file.
+         *
+         * @param offset position of the region in the file.
+         * @param size   size of the region, in bytes.
+         * @return buffer with the content of the region, positioned at 0.
+         * @throws IOException exception thrown if the region can not be loaded.
+         */
+        ByteBuffer load(long offset, long size) throws IOException;
+    }
+
+    /**
+     * Number of graphs.
+     */
+    private final int numberOfGraphs;
+
+    /**
+     * Number of nodes of all the graphs.
+     */
+    private final int numberOfNodes;
+
+    /**
+     * Number of edges of all the graphs.
+     */
+    private final int numberOfEdges;
+
+    /**
+     * Columns of the graphs table.
+     */
+    private final ByteBuffer graphIds, graphFirstNodes, graphFirstEdges;
+
+    /**
+     * Columns of the nodes table.
+     */
+    private final ByteBuffer nodeIds, nodeImagePaths, nodeColorDescriptors, nodeLabelDescriptors, nodeXs, nodeYs;
+
+    /**
+     * Columns of the edges table.
+     */
+    private final ByteBuffer edgeIds, edgeStartNodeIds, edgeEndNodeIds, edgeDescriptors;
+
+    /**
+     * Column of the descriptors table.
+     */
+    private final ByteBuffer descriptorFirstProperties;
+
+    /**
+     * Columns of the properties table.
+     */
+    private final ByteBuffer propertyLabels, propertyDegrees;
+
+    /**
+     * Columns of the strings table.
+     */
+    private final ByteBuffer stringFirstBytes, stringBytes;
+
+    /**
+     * Strings already decoded, indexed by their position in the dictionary.
+     */
+    private final String[] strings;
+
+    /**
+     * Descriptors already compiled, indexed by their position in the descriptors table.
+     */
+    private final CompiledDescriptor[] compiledDescriptors;
+
+    /**
+     * Open a file written in this format.
+     *
+     * @param header header of the file.
+     * @param loader loader of the regions of the file.
+     * @throws IOException exception thrown if the file is not in this format or can not be loaded.
+     */
+    BinaryGraphDatabaseFormat(ByteBuffer header, SectionLoader loader) throws IOException {
+        if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary graph database");
+        }
+        int version = header.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary graph database version: " + version);
+        }
+
+        this.numberOfGraphs = header.getInt(2 * Integer.BYTES);
+        this.numberOfNodes = header.getInt(3 * Integer.BYTES);
+        this.numberOfEdges = header.getInt(4 * Integer.BYTES);
+        int numberOfDescriptors = header.getInt(5 * Integer.BYTES);
+        int numberOfProperties = header.getInt(6 * Integer.BYTES);
+        int numberOfStrings = header.getInt(7 * Integer.BYTES);
+        int numberOfStringBytes = header.getInt(8 * Integer.BYTES);
+        if (this.numberOfGraphs < 0 || this.numberOfNodes < 0 || this.numberOfEdges < 0 || numberOfDescriptors < 0
+                || numberOfProperties < 0 || numberOfStrings < 0 || numberOfStringBytes < 0) {
+            throw new IOException("Corrupted binary graph database header");
+        }
+        checkSectionSize((this.numberOfGraphs + 1L) * Integer.BYTES);
+        checkSectionSize((long) this.numberOfNodes * Double.BYTES);
+        checkSectionSize((long) this.numberOfEdges * Integer.BYTES);
+        checkSectionSize((numberOfDescriptors + 1L) * Integer.BYTES);
+        checkSectionSize((long) numberOfProperties * Double.BYTES);
+        checkSectionSize((numberOfStrings + 1L) * Integer.BYTES);
+
+        long offset = HEADER_SIZE;
+        this.graphIds = loader.load(offset, (long) this.numberOfGraphs * Integer.BYTES);
+        offset += (long) this.numberOfGraphs * Integer.BYTES;
+        this.graphFirstNodes = loader.load(offset, (this.numberOfGraphs + 1L) * Integer.BYTES);
+        offset += (this.numberOfGraphs + 1L) * Integer.BYTES;
+        this.graphFirstEdges = loader.load(offset, (this.numberOfGraphs + 1L) * Integer.BYTES);
+        offset += (this.numberOfGraphs + 1L) * Integer.BYTES;
+
+        ByteBuffer[] nodeIntColumns = new ByteBuffer[4];
+        for (int c = 0; c < nodeIntColumns.length; c++) {
+            nodeIntColumns[c] = loader.load(offset, (long) this.numberOfNodes * Integer.BYTES);
+            offset += (long) this.numberOfNodes * Integer.BYTES;
+        }
+        this.nodeIds = nodeIntColumns[0];
+        this.nodeImagePaths = nodeIntColumns[1];
+        this.nodeColorDescriptors = nodeIntColumns[2];
+        this.nodeLabelDescriptors = nodeIntColumns[3];
+        this.nodeXs = loader.load(offset, (long) this.numberOfNodes * Double.BYTES);
+        offset += (long) this.numberOfNodes * Double.BYTES;
+        this.nodeYs = loader.load(offset, (long) this.numberOfNodes * Double.BYTES);
+        offset += (long) this.numberOfNodes * Double.BYTES;
+
+        ByteBuffer[] edgeIntColumns = new ByteBuffer[4];
+        for (int c = 0; c < edgeIntColumns.length; c++) {
+            edgeIntColumns[c] = loader.load(offset, (long) this.numberOfEdges * Integer.BYTES);
+            offset += (long) this.numberOfEdges * Integer.BYTES;
+        }
+        this.edgeIds = edgeIntColumns[0];
+        this.edgeStartNodeIds = edgeIntColumns[1];
+        this.edgeEndNodeIds = edgeIntColumns[2];
+        this.edgeDescriptors = edgeIntColumns[3];
+
+        this.descriptorFirstProperties = loader.load(offset, (numberOfDescriptors + 1L) * Integer.BYTES);
+        offset += (numberOfDescriptors + 1L) * Integer.BYTES;
+        this.propertyLabels = loader.load(offset, (long) numberOfProperties * Integer.BYTES);
+        offset += (long) numberOfProperties * Integer.BYTES;
+        this.propertyDegrees = loader.load(offset, (long) numberOfProperties * Double.BYTES);
+        offset += (long) numberOfProperties * Double.BYTES;
+
+        this.stringFirstBytes = loader.load(offset, (numberOfStrings + 1L) * Integer.BYTES);
+        offset += (numberOfStrings + 1L) * Integer.BYTES;
+        this.stringBytes = loader.load(offset, numberOfStringBytes);
+        this.strings = new String[numberOfStrings];
+        this.compiledDescriptors = new CompiledDescriptor[numberOfDescriptors];
+    }
+
+    /**
+     * Check that a column fits in a buffer.
+     *
+     * @param size size of the column, in bytes.
+     * @throws IOException exception thrown if the column is larger than {@link #MAX_SECTION_SIZE}.
+     */
+    private static void checkSectionSize(long size) throws IOException {
+        if (size > MAX_SECTION_SIZE) {
+            throw new IOException("Binary graph database too large: a column of " + size
+                    + " bytes exceeds the maximum of " + MAX_SECTION_SIZE + " bytes");
+        }
+    }
+
+    /**
+     * Return an integer of a column.
+     *
+     * @param column column of integers.
+     * @param i      position of the integer in the column.
+     * @return the integer.
+     */
+    private static int getInt(ByteBuffer column, int i) {
+        return column.getInt(Math.toIntExact((long) i * Integer.BYTES));
+    }
+
+    /**
+     * Return a double of a column.
+     *
+     * @param column column of doubles.
+     * @param i      position of the double in the column.
+     * @return the double.
+     */
+    private static double getDouble(ByteBuffer column, int i) {
+        return column.getDouble(Math.toIntExact((long) i * Double.BYTES));
+    }
+
+    /**
+     * Return whether a file starts with the magic number of this format.
+     *
+     * @param file file to be checked.
+     * @return true if the file is a binary graph database.
+     * @throws IOException exception thrown if the file can not be read.
+     */
+    public static boolean isBinaryFile(File file) throws IOException {
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            byte[] magic = new byte[Integer.BYTES];
+            int read = 0;
+            while (read < magic.length) {
+                int n = input.read(magic, read, magic.length - read);
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+            return ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Read all the graphs of a file. Identical descriptors are stored once and read as a single {@link Descriptor},
+     * shared by all the nodes and edges referencing it, even in different graphs, so the descriptors of the graphs read
+     * must not be modified.
+     *
+     * @param file file to read from.
+     * @return graphs of the file, in the same order they were written.
+     * @throws IOException exception thrown if the file can not be read or is not in this format.
+     */
+    public static ArrayList<Graph> read(File file) throws IOException {
+        ArrayList<Graph> graphs = new ArrayList<>();
+        read(file, graphs::add);
+        return graphs;
+    }
+
+    /**
+     * Read the graphs of a file one by one, passing every graph to a consumer as soon as it has been built. As in
+     * {@link #read(File)}, the descriptors of the graphs are shared and must not be modified.
+     *
+     * @param file     file to read from.
+     * @param consumer consumer of the graphs, called in the same order they were written.
+     * @throws IOException exception thrown if the file can not be read or is not in this format.
+     */
+    public static void read(File file, Consumer<? super Graph> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            SectionLoader loader = (offset, size) -> {
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Section too large to be loaded: " + size + " bytes");
+                }
+                ByteBuffer section = ByteBuffer.allocate((int) size);
+                while (section.hasRemaining()) {
+                    if (channel.read(section, offset + section.position()) < 0) {
+                        throw new EOFException("Truncated binary graph database");
+                    }
+                }
+                section.flip();
+                return section;
+            };
+            BinaryGraphDatabaseFormat format = new BinaryGraphDatabaseFormat(loader.load(0, HEADER_SIZE), loader);
+
+            // Descriptors are shared between graphs once materialized, as they are stored once.
+            Descriptor[] descriptors = new Descriptor[format.descriptorFirstProperties.capacity() / Integer.BYTES - 1];
+            for (int g = 0; g < format.numberOfGraphs; g++) {
+                consumer.accept(format.getGraph(g, descriptors));
+            }
+        }
+    }
+
+    /**
+     * Write a list of graphs to a file.
+     *
+     * @param graphs graphs to be written.
+     * @param file   file to write to.
+     * @throws IOException exception thrown if the file can not be written.
+     */
+    public static void write(List<Graph> graphs, File file) throws IOException {
+        write(graphs.iterator(), file);
+    }
+
+    /**
+     * Write the graphs of an iterator to a file. Every graph is appended to the columns of the tables as soon as it is
+     * returned by the iterator, so the graphs themselves are not kept in memory.
+     *
+     * @param graphs iterator over the graphs to be written.
+     * @param file   file to write to.
+     * @throws IOException exception thrown if the file can not be written, or if a column of the graphs would exceed
+     *                     {@link #MAX_SECTION_SIZE} bytes, in which case nothing is written.
+     */
+    public static void write(Iterator<? extends Graph> graphs, File file) throws IOException {
+        Columns columns = new Columns();
+        while (graphs.hasNext()) {
+            columns.add(graphs.next());
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(columns.graphIds.size);
+            output.writeInt(columns.nodeIds.size);
+            output.writeInt(columns.edgeIds.size);
+            output.writeInt(columns.descriptorFirstProperties.size);
+            output.writeInt(columns.propertyLabels.size);
+            output.writeInt(columns.strings.size());
+            output.writeInt(columns.stringFirstBytes.get(columns.strings.size()));
+
+            columns.graphIds.writeTo(output);
+            columns.graphFirstNodes.writeTo(output);
+            columns.graphFirstEdges.writeTo(output);
+            columns.nodeIds.writeTo(output);
+            columns.nodeImagePaths.writeTo(output);
+            columns.nodeColorDescriptors.writeTo(output);
+            columns.nodeLabelDescriptors.writeTo(output);
+            columns.nodeXs.writeTo(output);
+            columns.nodeYs.writeTo(output);
+            columns.edgeIds.writeTo(output);
+            columns.edgeStartNodeIds.writeTo(output);
+            columns.edgeEndNodeIds.writeTo(output);
+            columns.edgeDescriptors.writeTo(output);
+            // Sentinel of the descriptors table.
+            columns.descriptorFirstProperties.add(columns.propertyLabels.size);
+            columns.descriptorFirstProperties.writeTo(output);
+            columns.propertyLabels.writeTo(output);
+            columns.propertyDegrees.writeTo(output);
+            columns.stringFirstBytes.writeTo(output);
+            for (String string : columns.strings) {
+                output.write(string.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Return the number of graphs.
+     *
+     * @return the number of graphs.
+     */
+    int getNumberOfGraphs() {
+        return this.numberOfGraphs;
+    }
+
+    /**
+     * Return the id of a graph without building it.
+     *
+     * @param g position of the graph.
+     * @return the id of the graph.
+     */
+    String getGraphId(int g) {
+        return this.getString(getInt(this.graphIds, g));
+    }
+
+    /**
+     * Return the number of nodes of a graph without building it.
+     *
+     * @param g position of the graph.
+     * @return the number of nodes of the graph.
+     */
+    int getNumberOfNodes(int g) {
+        return getInt(this.graphFirstNodes, g + 1) - getInt(this.graphFirstNodes, g);
+    }
+
+    /**
+     * Build a graph from the tables.
+     *
+     * @param g           position of the graph.
+     * @param descriptors descriptors already built, indexed by position, or null if they must not be reused.
+     * @return the graph.
+     */
+    Graph getGraph(int g, Descriptor[] descriptors) {
+        int firstNode = getInt(this.graphFirstNodes, g);
+        int lastNode = getInt(this.graphFirstNodes, g + 1);
+        int firstEdge = getInt(this.graphFirstEdges, g);
+        int lastEdge = getInt(this.graphFirstEdges, g + 1);
+
+        ArrayList<Node> nodes = new ArrayList<>(lastNode - firstNode);
+        for (int n = firstNode; n < lastNode; n++) {
+            double x = getDouble(this.nodeXs, n);
+            double y = getDouble(this.nodeYs, n);
+            Tuple<Double, Double> location = Double.isNaN(x) && Double.isNaN(y) ? null : new Tuple<>(x, y);
+            nodes.add(new Node(this.getString(getInt(this.nodeIds, n)),
+                    this.getDescriptor(getInt(this.nodeColorDescriptors, n), descriptors),
+                    this.getDescriptor(getInt(this.nodeLabelDescriptors, n), descriptors),
+                    this.getString(getInt(this.nodeImagePaths, n)), location));
+        }
+
+        ArrayList<Edge> edges = new ArrayList<>(lastEdge - firstEdge);
+        for (int e = firstEdge; e < lastEdge; e++) {
+            edges.add(new Edge(this.getString(getInt(this.edgeIds, e)),
+                    this.getString(getInt(this.edgeStartNodeIds, e)),
+                    this.getString(getInt(this.edgeEndNodeIds, e)),
+                    this.getDescriptor(getInt(this.edgeDescriptors, e), descriptors)));
+        }
+
+        return new Graph(this.getGraphId(g), nodes, edges);
+    }
+
+    /**
+     * Build the compact graph of a graph directly from the tables, without building the graph, its nodes, its edges
+     * nor its descriptors. Every descriptor of the tables is compiled once, the first time it is needed, and shared by
+     * all the compact graphs. A missing descriptor is compiled as an empty one.
+     *
+     * @param g position of the graph.
+     * @return the compact graph, the same as the one of the graph built by {@link #getGraph(int, Descriptor[])}.
+     */
+    CompactGraph getCompactGraph(int g) {
+        int firstNode = getInt(this.graphFirstNodes, g);
+        int numberOfNodes = getInt(this.graphFirstNodes, g + 1) - firstNode;
+        int firstEdge = getInt(this.graphFirstEdges, g);
+        int numberOfEdges = getInt(this.graphFirstEdges, g + 1) - firstEdge;
+
+        String[] nodeIds = new String[numberOfNodes];
+        CompiledDescriptor[] colorFuzzyDescriptors = new CompiledDescriptor[numberOfNodes];
+        CompiledDescriptor[] labelDescriptors = new CompiledDescriptor[numberOfNodes];
+        // Nodes are referenced by the edges through the position of their id in the dictionary.
+        int[] nodeIdPositions = new int[numberOfNodes];
+        for (int n = 0; n < numberOfNodes; n++) {
+            nodeIdPositions[n] = getInt(this.nodeIds, firstNode + n);
+            nodeIds[n] = this.getString(nodeIdPositions[n]);
+            colorFuzzyDescriptors[n] = this.getCompiledDescriptor(getInt(this.nodeColorDescriptors, firstNode + n));
+            labelDescriptors[n] = this.getCompiledDescriptor(getInt(this.nodeLabelDescriptors, firstNode + n));
+        }
+
+        String[] edgeIds = new String[numberOfEdges];
+        int[] startNodes = new int[numberOfEdges];
+        int[] endNodes = new int[numberOfEdges];
+        CompiledDescriptor[] spatialRelationshipFuzzyDescriptors = new CompiledDescriptor[numberOfEdges];
+        for (int e = 0; e < numberOfEdges; e++) {
+            edgeIds[e] = this.getString(getInt(this.edgeIds, firstEdge + e));
+            startNodes[e] = indexOf(nodeIdPositions, getInt(this.edgeStartNodeIds, firstEdge + e));
+            endNodes[e] = indexOf(nodeIdPositions, getInt(this.edgeEndNodeIds, firstEdge + e));
+            spatialRelationshipFuzzyDescriptors[e] = this.getCompiledDescriptor(getInt(this.edgeDescriptors, firstEdge + e));
+        }
+
+        return new CompactGraph(this.getGraphId(g), nodeIds, edgeIds, startNodes, endNodes,
+                new CompiledDescriptorTable(Arrays.asList(colorFuzzyDescriptors)),
+                new CompiledDescriptorTable(Arrays.asList(labelDescriptors)),
+                new CompiledDescriptorTable(Arrays.asList(spatialRelationshipFuzzyDescriptors)));
+    }
+
+    /**
+     * Return the first position of a value in an array. Graphs have few nodes, so a linear scan is cheaper than
+     * building a map for every graph.
+     *
+     * @param values array of values.
+     * @param value  value to be found.
+     * @return the first position of the value, or -1 if it is not in the array.
+     */
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return a compiled descriptor of the tables, compiling it the first time it is needed. Several threads may compile
+     * the same descriptor at the same time, which only wastes work, as compiled descriptors are immutable.
+     *
+     * @param d position of the descriptor, or -1 if it is null.
+     * @return the compiled descriptor, or {@link #EMPTY_COMPILED_DESCRIPTOR} if it is null.
+     */
+    private CompiledDescriptor getCompiledDescriptor(int d) {
+        if (d < 0) {
+            return EMPTY_COMPILED_DESCRIPTOR;
+        }
+        CompiledDescriptor compiledDescriptor = this.compiledDescriptors[d];
+        if (compiledDescriptor == null) {
+            compiledDescriptor = new CompiledDescriptor(this.getDescriptor(d, null));
+            this.compiledDescriptors[d] = compiledDescriptor;
+        }
+        return compiledDescriptor;
+    }
+
+    /**
+     * Build a descriptor from the tables.
+     *
+     * @param d           position of the descriptor, or -1 if it is null.
+     * @param descriptors descriptors already built, indexed by position, or null if they must not be reused.
+     * @return the descriptor.
+     */
+    private Descriptor getDescriptor(int d, Descriptor[] descriptors) {
+        if (d < 0) {
+            return null;
+        }
+        if (descriptors != null && descriptors[d] != null) {
+            return descriptors[d];
+        }
+
+        Descriptor descriptor = new Descriptor();
+        int firstProperty = getInt(this.descriptorFirstProperties, d);
+        int lastProperty = getInt(this.descriptorFirstProperties, d + 1);
+        for (int p = firstProperty; p < lastProperty; p++) {
+            descriptor.add(new PropertyWithDegree(this.getString(getInt(this.propertyLabels, p)),
+                    getDouble(this.propertyDegrees, p)));
+        }
+        if (descriptors != null) {
+            descriptors[d] = descriptor;
+        }
+        return descriptor;
+    }
+
+    /**
+     * Decode a string of the dictionary.
+     *
+     * @param s position of the string, or -1 if it is null.
+     * @return the string.
+     */
+    private String getString(int s) {
+        if (s < 0) {
+            return null;
+        }
+        String string = this.strings[s];
+        if (string == null) {
+            int firstByte = getInt(this.stringFirstBytes, s);
+            int lastByte = getInt(this.stringFirstBytes, s + 1);
+            byte[] bytes = new byte[lastByte - firstByte];
+            ByteBuffer source = this.stringBytes.duplicate();
+            source.position(firstByte);
+            source.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            this.strings[s] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Class representing a growable column of integers.
+     */
+    private static class IntColumn {
+        /**
+         * Values of the column, followed by unused space.
+         */
+        private int[] values = new int[16];
+
+        /**
+         * Number of values of the column.
+         */
+        private int size;
+
+        /**
+         * Append a value to the column.
+         *
+         * @param value value to be appended.
+         */
+        private void add(int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+        /**
+         * Return a value of the column.
+         *
+         * @param i position of the value.
+         * @return the value.
+         */
+        private int get(int i) {
+            return this.values[i];
+        }
+
+        /**
+         * Write the values of the column.
+         *
+         * @param output stream to write to.
+         * @throws IOException exception thrown if the stream can not be written.
+         */
+        private void writeTo(DataOutputStream output) throws IOException {
+            for (int i = 0; i < this.size; i++) {
+                output.writeInt(this.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Class representing a growable column of doubles.
+     */
+    private static class DoubleColumn {
+        /**
+         * Values of the column, followed by unused space.
+         */
+        private double[] values = new double[16];
+
+        /**
+         * Number of values of the column.
+         */
+        private int size;
+
+        /**
+         * Append a value to the column.
+         *
+         * @param value value to be appended.
+         */
+        private void add(double value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+        /**
+         * Write the values of the column.
+         *
+         * @param output stream to write to.
+         * @throws IOException exception thrown if the stream can not be written.
+         */
+        private void writeTo(DataOutputStream output) throws IOException {
+            for (int i = 0; i < this.size; i++) {
+                output.writeDouble(this.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Class representing the columns of all the tables while they are being written.
+     */
+    private static class Columns {
+        /**
+         * Columns of the graphs table.
+         */
+        private final IntColumn graphIds = new IntColumn();
+        private final IntColumn graphFirstNodes = new IntColumn();
+        private final IntColumn graphFirstEdges = new IntColumn();
+
+        /**
+         * Columns of the nodes table.
+         */
+        private final IntColumn nodeIds = new IntColumn();
+        private final IntColumn nodeImagePaths = new IntColumn();
+        private final IntColumn nodeColorDescriptors = new IntColumn();
+        private final IntColumn nodeLabelDescriptors = new IntColumn();
+        private final DoubleColumn nodeXs = new DoubleColumn();
+        private final DoubleColumn nodeYs = new DoubleColumn();
+
+        /**
+         * Columns of the edges table.
+         */
+        private final IntColumn edgeIds = new IntColumn();
+        private final IntColumn edgeStartNodeIds = new IntColumn();
+        private final IntColumn edgeEndNodeIds = new IntColumn();
+        private final IntColumn edgeDescriptors = new IntColumn();
+
+        /**
+         * Column of the descriptors table, without its sentinel.
+         */
+        private final IntColumn descriptorFirstProperties = new IntColumn();
+
+        /**
+         * Columns of the properties table.
+         */
+        private final IntColumn propertyLabels = new IntColumn();
+        private final DoubleColumn propertyDegrees = new DoubleColumn();
+
+        /**
+         * Column of the strings table.
+         */
+        private final IntColumn stringFirstBytes = new IntColumn();
+
+        /**
+         * Strings of the dictionary, in order.
+         */
+        private final ArrayList<String> strings = new ArrayList<>();
+
+        /**
+         * Positions of the strings of the dictionary.
+         */
+        private final HashMap<String, Integer> stringPositions = new HashMap<>();
+
+        /**
+         * Positions of the descriptors, indexed by their labels and degrees.
+         */
+        private final HashMap<List<Object>, Integer> descriptorPositions = new HashMap<>();
+
+        /**
+         * Construct empty columns.
+         */
+        private Columns() {
+            this.stringFirstBytes.add(0);
+            this.graphFirstNodes.add(0);
+            this.graphFirstEdges.add(0);
+        }
+
+        /**
+         * Append a graph to the tables.
+         *
+         * @param graph graph to be appended.
+         * @throws IOException exception thrown if a column exceeds {@link #MAX_SECTION_SIZE} bytes.
+         */
+        private void add(Graph graph) throws IOException {
+            this.graphIds.add(this.addString(graph.getId()));
+            for (Node node : graph.getNodes()) {
+                this.nodeIds.add(this.addString(node.getId()));
+                this.nodeImagePaths.add(this.addString(node.getImagePath()));
+                this.nodeColorDescriptors.add(this.addDescriptor(node.getColorFuzzyDescriptor()));
+                this.nodeLabelDescriptors.add(this.addDescriptor(node.getLabelDescriptor()));
+                Tuple<Double, Double> location = node.getLocation();
+                this.nodeXs.add(location == null ? Double.NaN : location.getFirst());
+                this.nodeYs.add(location == null ? Double.NaN : location.getSecond());
+            }
+            for (Edge edge : graph.getEdges()) {
+                this.edgeIds.add(this.addString(edge.getId()));
+                this.edgeStartNodeIds.add(this.addString(edge.getStartNodeId()));
+                this.edgeEndNodeIds.add(this.addString(edge.getEndNodeId()));
+                this.edgeDescriptors.add(this.addDescriptor(edge.getSpatialRelationshipFuzzyDescriptor()));
+            }
+            this.graphFirstNodes.add(this.nodeIds.size);
+            this.graphFirstEdges.add(this.edgeIds.size);
+
+            // Checked after every graph, long before the number of elements of a column can overflow.
+            checkSectionSize((this.graphIds.size + 1L) * Integer.BYTES);
+            checkSectionSize((long) this.nodeIds.size * Double.BYTES);
+            checkSectionSize((long) this.edgeIds.size * Integer.BYTES);
+            checkSectionSize((this.descriptorFirstProperties.size + 1L) * Integer.BYTES);
+            checkSectionSize((long) this.propertyLabels.size * Double.BYTES);
+            checkSectionSize((this.strings.size() + 1L) * Integer.BYTES);
+        }
+
+        /**
+         * Add a string to the dictionary if it is not there yet.
+         *
+         * @param string string to be added.
+         * @return the position of the string, or -1 if it is null.
+         * @throws IOException exception thrown if the bytes of the strings exceed {@link #MAX_SECTION_SIZE}.
+         */
+        private int addString(String string) throws IOException {
+            if (string == null) {
+                return -1;
+            }
+            Integer position = this.stringPositions.get(string);
+            if (position == null) {
+                position = this.strings.size();
+                this.strings.add(string);
+                this.stringPositions.put(string, position);
+                long lastByte = (long) this.stringFirstBytes.get(position) + string.getBytes(StandardCharsets.UTF_8).length;
+                checkSectionSize(lastByte);
+                this.stringFirstBytes.add((int) lastByte);
+            }
+            return position;
+        }
+
+        /**
+         * Add a descriptor to the tables if an identical one is not there yet.
+         *
+         * @param descriptor descriptor to be added.
+         * @return the position of the descriptor, or -1 if it is null.
+         * @throws IOException exception thrown if the bytes of the strings exceed {@link #MAX_SECTION_SIZE}.
+         */
+        private int addDescriptor(Descriptor descriptor) throws IOException {
+            if (descriptor == null) {
+                return -1;
+            }
+            List<Object> key = new ArrayList<>();
+            for (PropertyWithDegree property : descriptor) {
+                key.add(property.getLabel());
+                key.add(Double.doubleToLongBits(property.getDegree()));
+            }
+            Integer position = this.descriptorPositions.get(key);
+            if (position == null) {
+                position = this.descriptorFirstProperties.size;
+                this.descriptorFirstProperties.add(this.propertyLabels.size);
+                for (PropertyWithDegree property : descriptor) {
+                    this.propertyLabels.add(this.addString(property.getLabel()));
+                    this.propertyDegrees.add(property.getDegree());
+                }
+                this.descriptorPositions.put(key, position);
+            }
+            return position;
+        }
+    }
+}
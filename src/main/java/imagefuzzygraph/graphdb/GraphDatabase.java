@@ -2,29 +2,224 @@ package imagefuzzygraph.graphdb;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import imagefuzzygraph.algorithm.BuildGraph;
+import imagefuzzygraph.algorithm.FuzzyGraphMatching;
+import imagefuzzygraph.algorithm.RegionDescriptorCache;
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.GraphSpec;
 import imagefuzzygraph.graph.Graph;
 
-import java.io.FileReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
- * Class representing a database of graphs.
+ * Class representing a database of graphs. The database keeps an {@link InvertedGraphIndex} of the terms of its nodes
+ * and a {@link SpatialTripletIndex} of the triplets of its edges, which are updated as graphs are appended and rebuilt
+ * the next time they are needed after any other change.
  *
  * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
  */
 public class GraphDatabase extends ArrayList<Graph> {
 
+    /**
+     * Extension of the files saved in JSON.
+     */
+    public static final String JSON_EXTENSION = ".json";
+
+    /**
+     * Inverted index of the terms of the nodes of the graphs.
+     */
+    private transient InvertedGraphIndex index = new InvertedGraphIndex();
+
+    /**
+     * Index of the spatial triplets of the edges of the graphs.
+     */
+    private transient SpatialTripletIndex tripletIndex = new SpatialTripletIndex();
+
+    /**
+     * Number of graphs replaced by {@link #set(int, Graph)}, which does not change the modification count.
+     */
+    private transient long replacements;
+
+    /**
+     * Version of the database when the indexes were last updated.
+     */
+    private transient long indexedVersion = this.getVersion();
+
+    /**
+     * Append a graph to the database, adding it to the indexes.
+     *
+     * @param graph graph to be appended.
+     * @return true.
+     */
+    @Override
+    public boolean add(Graph graph) {
+        boolean upToDate = this.indexedVersion == this.getVersion();
+        super.add(graph);
+        if (upToDate) {
+            this.index(graph);
+            this.indexedVersion = this.getVersion();
+        }
+        return true;
+    }
+
+    /**
+     * Append a collection of graphs to the database, adding them to the indexes.
+     *
+     * @param graphs graphs to be appended.
+     * @return true if the database has changed.
+     */
+    @Override
+    public boolean addAll(Collection<? extends Graph> graphs) {
+        boolean upToDate = this.indexedVersion == this.getVersion();
+        int first = this.size();
+        boolean changed = super.addAll(graphs);
+        if (upToDate) {
+            for (int i = first; i < this.size(); i++) {
+                this.index(this.get(i));
+            }
+            this.indexedVersion = this.getVersion();
+        }
+        return changed;
+    }
+
+    /**
+     * Replace a graph of the database. The indexes are rebuilt the next time they are needed.
+     *
+     * @param position position of the graph to be replaced.
+     * @param graph    new graph.
+     * @return the graph replaced.
+     */
+    @Override
+    public Graph set(int position, Graph graph) {
+        this.replacements++;
+        return super.set(position, graph);
+    }
+
+    /**
+     * Remove all the graphs from the database and from the indexes.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        this.index.clear();
+        this.tripletIndex.clear();
+        this.indexedVersion = this.getVersion();
+    }
+
+    /**
+     * Return the version of the database, which changes every time the graphs of the database change.
+     *
+     * @return the version of the database.
+     */
+    public long getVersion() {
+        return this.modCount + this.replacements;
+    }
+
+    /**
+     * Return the inverted index of the terms of the nodes of the graphs, rebuilding it if the database has changed in
+     * any way other than appending graphs.
+     *
+     * @return the inverted index of the database.
+     */
+    public InvertedGraphIndex getIndex() {
+        this.updateIndexes();
+        return this.index;
+    }
+
+    /**
+     * Return the index of the spatial triplets of the edges of the graphs, rebuilding it if the database has changed
+     * in any way other than appending graphs.
+     *
+     * @return the triplet index of the database.
+     */
+    public SpatialTripletIndex getTripletIndex() {
+        this.updateIndexes();
+        return this.tripletIndex;
+    }
+
+    /**
+     * Return the positions of the graphs whose inclusion degree of the query graph may be greater than 0 with a
+     * matching. The candidates of the indexes are only valid for matchings comparing the color labels with the crisp
+     * resemblance relation, so every position is a candidate for any other matching.
+     *
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param fuzzyGraphMatching  matching computing the inclusion degrees.
+     * @return the positions of the candidate graphs, in ascending order.
+     */
+    public int[] getCandidates(Graph query, AggregationOperator aggregationOperator, FuzzyGraphMatching fuzzyGraphMatching) {
+        if (!fuzzyGraphMatching.hasCrispColorResemblance()) {
+            int[] candidates = new int[this.size()];
+            Arrays.setAll(candidates, i -> i);
+            return candidates;
+        }
+        return this.getCandidates(query, aggregationOperator);
+    }
+
+    /**
+     * Return the positions of the graphs whose inclusion degree of the query graph may be greater than 0, intersecting
+     * the candidates of the inverted index and of the triplet index. The inclusion degree of any other graph is 0 with
+     * the crisp resemblance relation between color labels, see
+     * {@link #getCandidates(Graph, AggregationOperator, FuzzyGraphMatching)} for any other matching.
+     *
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @return the positions of the candidate graphs, in ascending order.
+     */
+    public int[] getCandidates(Graph query, AggregationOperator aggregationOperator) {
+        int[] nodeCandidates = this.getIndex().getCandidates(query, aggregationOperator);
+        int[] tripletCandidates = this.getTripletIndex().getCandidates(query, aggregationOperator);
+        int[] candidates = new int[Math.min(nodeCandidates.length, tripletCandidates.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < nodeCandidates.length && j < tripletCandidates.length; ) {
+            if (nodeCandidates[i] < tripletCandidates[j]) {
+                i++;
+            } else if (nodeCandidates[i] > tripletCandidates[j]) {
+                j++;
+            } else {
+                candidates[size++] = nodeCandidates[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(candidates, size);
+    }
+
+    /**
+     * Add a graph appended to the database to the indexes.
+     *
+     * @param graph graph appended.
+     */
+    private void index(Graph graph) {
+        this.index.add(graph);
+        this.tripletIndex.add(graph);
+    }
+
+    /**
+     * Rebuild the indexes if the database has changed in any way other than appending graphs.
+     */
+    private void updateIndexes() {
+        if (this.indexedVersion != this.getVersion()) {
+            this.index.clear();
+            this.tripletIndex.clear();
+            this.forEach(this::index);
+            this.indexedVersion = this.getVersion();
+        }
+    }
+
     /**
      * Build a DataBase querying all the methods in {@link GraphExamples}.
      *
@@ -50,36 +245,148 @@ public class GraphDatabase extends ArrayList<Graph> {
      * @param numberOfGraphs number of graphs to build.
      */
     public void buildRandomDatabase(int numberOfGraphs) throws IOException {
+        this.buildRandomDatabase(numberOfGraphs, new GraphExamples());
+    }
+
+    /**
+     * Build a database of random graphs, reusing the descriptors of the images already processed and persisting the
+     * new ones.
+     *
+     * @param numberOfGraphs        number of graphs to build.
+     * @param regionDescriptorCache cache of the descriptors of the images of the regions.
+     * @throws IOException exception thrown if an image can not be read or the cache can not be saved.
+     */
+    public void buildRandomDatabase(int numberOfGraphs, RegionDescriptorCache regionDescriptorCache) throws IOException {
+        this.buildRandomDatabase(numberOfGraphs, new GraphExamples(new BuildGraph(false, regionDescriptorCache)));
+        regionDescriptorCache.save();
+    }
+
+    /**
+     * Build a database of random graphs. The random regions of every graph are drawn one graph after another, so the
+     * graphs are the same as building them one by one, and then the graphs are built in parallel.
+     *
+     * @param numberOfGraphs number of graphs to build.
+     * @param graphExamples  builder of the random graphs.
+     * @throws IOException exception thrown if an image can not be read.
+     */
+    private void buildRandomDatabase(int numberOfGraphs, GraphExamples graphExamples) throws IOException {
         this.clear();
-        GraphExamples graphExamples = new GraphExamples();
+        ArrayList<GraphSpec> graphSpecs = new ArrayList<>();
         for (int i = 0; i < numberOfGraphs; i++) {
-            this.add(graphExamples.randomGraph(i));
+            graphSpecs.add(graphExamples.randomGraphSpec(i));
         }
+        this.addAll(graphExamples.getGraphBuilder().buildGraphs(graphSpecs));
+    }
+
+    /**
+     * Build a database of synthetic graphs, which are generated without reading any image.
+     *
+     * @param numberOfGraphs          number of graphs to build.
+     * @param syntheticGraphGenerator generator of the graphs.
+     */
+    public void buildSyntheticDatabase(int numberOfGraphs, SyntheticGraphGenerator syntheticGraphGenerator) {
+        this.clear();
+        this.ensureCapacity(numberOfGraphs);
+        syntheticGraphGenerator.generate(numberOfGraphs, this::add);
     }
 
     /**
-     * Read database from a file.
+     * Read database from a file, either in the binary format of {@link BinaryGraphDatabaseFormat} or in JSON. The
+     * format is detected from the content of the file.
      *
      * @param fileName file to read from.
      * @throws IOException exception thrown if file can not be opened.
      */
     public void readDatabase(String fileName) throws IOException {
-        try (Reader reader = new FileReader(fileName)) {
+        if (BinaryGraphDatabaseFormat.isBinaryFile(new File(fileName))) {
+            ArrayList<Graph> graphs = BinaryGraphDatabaseFormat.read(new File(fileName));
             this.clear();
-            Type type = new TypeToken<ArrayList<Graph>>() {
-            }.getType();
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            this.addAll(gson.fromJson(new JsonReader(reader), type));
+            this.addAll(graphs);
+        } else {
+            this.importJson(fileName);
         }
     }
 
     /**
-     * Save the database to a file.
+     * Save the database to a file. Files with the extension ".json" are written in JSON, and any other file in the
+     * binary format of {@link BinaryGraphDatabaseFormat}.
      *
      * @param fileName file to write to.
      * @throws IOException exception thrown if file can not be opened.
      */
     public void saveDatabase(String fileName) throws IOException {
+        if (fileName.toLowerCase().endsWith(JSON_EXTENSION)) {
+            this.exportJson(fileName);
+        } else {
+            BinaryGraphDatabaseFormat.write(this, new File(fileName));
+        }
+    }
+
+    /**
+     * Save the graphs of an iterator to a file, in the same formats as {@link #saveDatabase(String)}, without keeping
+     * them in a database. JSON files are written one graph at a time, and binary files keep only the columns of the
+     * tables in memory.
+     *
+     * @param fileName file to write to.
+     * @param graphs   iterator over the graphs to be saved, for example {@link SyntheticGraphGenerator#iterator(long)}.
+     * @throws IOException exception thrown if file can not be opened.
+     */
+    public static void saveDatabase(String fileName, Iterator<? extends Graph> graphs) throws IOException {
+        if (fileName.toLowerCase().endsWith(JSON_EXTENSION)) {
+            Gson gson = new Gson();
+            try (JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(new FileWriter(fileName)))) {
+                jsonWriter.setIndent("  ");
+                jsonWriter.beginArray();
+                while (graphs.hasNext()) {
+                    gson.toJson(graphs.next(), Graph.class, jsonWriter);
+                }
+                jsonWriter.endArray();
+            }
+        } else {
+            BinaryGraphDatabaseFormat.write(graphs, new File(fileName));
+        }
+    }
+
+    /**
+     * Read database from a JSON file.
+     *
+     * @param fileName file to read from.
+     * @throws IOException exception thrown if file can not be opened.
+     */
+    public void importJson(String fileName) throws IOException {
+        try (JsonGraphReader jsonGraphReader = new JsonGraphReader(fileName, false)) {
+            this.clear();
+            jsonGraphReader.forEachRemaining(this::add);
+        }
+    }
+
+    /**
+     * Read the graphs of a file one by one, passing every graph to a consumer as soon as it has been read, without
+     * keeping them in a database. The format of the file is detected from its content.
+     *
+     * @param fileName       file to read from.
+     * @param skipImagePaths whether the path to the image of the nodes is skipped when reading JSON, leaving it null.
+     *                       It is always read from binary files, where it is stored only once.
+     * @param consumer       consumer of the graphs, called in the same order they are stored.
+     * @throws IOException exception thrown if file can not be opened.
+     */
+    public static void streamDatabase(String fileName, boolean skipImagePaths, Consumer<? super Graph> consumer) throws IOException {
+        if (BinaryGraphDatabaseFormat.isBinaryFile(new File(fileName))) {
+            BinaryGraphDatabaseFormat.read(new File(fileName), consumer);
+        } else {
+            try (JsonGraphReader jsonGraphReader = new JsonGraphReader(fileName, skipImagePaths)) {
+                jsonGraphReader.forEachRemaining(consumer);
+            }
+        }
+    }
+
+    /**
+     * Save the database to a JSON file.
+     *
+     * @param fileName file to write to.
+     * @throws IOException exception thrown if file can not be opened.
+     */
+    public void exportJson(String fileName) throws IOException {
         try (Writer writer = new FileWriter(fileName)) {
             new GsonBuilder().setPrettyPrinting().create().toJson(this, writer);
         }
@@ -1,6 +1,7 @@
 package imagefuzzygraph.graphdb;
 
 import imagefuzzygraph.algorithm.BuildGraph;
+import imagefuzzygraph.data.GraphSpec;
 import imagefuzzygraph.data.Region;
 import imagefuzzygraph.data.Tuple;
 import imagefuzzygraph.graph.Graph;
@@ -17,7 +18,7 @@ import java.util.Random;
  * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
  */
 public class GraphExamples {
-    private final BuildGraph bg = new BuildGraph();
+    private final BuildGraph bg;
     private final Random random = new Random(1);
     private final ArrayList<Tuple<Double, Double>> locations = new ArrayList<>(Arrays.asList(
             new Tuple<>(0.0, 50.0), new Tuple<>(0.0, 250.0), new Tuple<>(0.0, 450.0), new Tuple<>(0.0, 650.0), new Tuple<>(0.0, 850.0),
@@ -26,12 +27,28 @@ public class GraphExamples {
             new Tuple<>(600.0, 50.0), new Tuple<>(600.0, 250.0), new Tuple<>(600.0, 450.0), new Tuple<>(600.0, 650.0), new Tuple<>(600.0, 850.0),
             new Tuple<>(800.0, 50.0), new Tuple<>(800.0, 250.0), new Tuple<>(800.0, 450.0), new Tuple<>(800.0, 650.0), new Tuple<>(800.0, 850.0)));
 
+    public GraphExamples() {
+        this(new BuildGraph());
+    }
+
+    public GraphExamples(BuildGraph bg) {
+        this.bg = bg;
+    }
+
     public Region buildRegion(String folder, String file, double x, double y) {
         String filename = String.format("db/%s/%s.png", folder, file);
         return new Region(filename, new Tuple<>(x, y));
     }
 
+    public BuildGraph getGraphBuilder() {
+        return this.bg;
+    }
+
     public Graph randomGraph(int graphId) throws IOException {
+        return this.bg.buildGraph(this.randomGraphSpec(graphId));
+    }
+
+    public GraphSpec randomGraphSpec(int graphId) {
         ArrayList<String> labels = new ArrayList<>();
         ArrayList<Region> regions = new ArrayList<>();
 
@@ -52,7 +69,7 @@ public class GraphExamples {
             regions.add(this.buildRegion(randomFigure, randomColor, l.getFirst(), l.getSecond()));
         }
 
-        return this.bg.buildGraph("Graph_" + graphId, regions, labels);
+        return new GraphSpec("Graph_" + graphId, regions, labels);
     }
 
     public Graph source_example1() throws IOException {
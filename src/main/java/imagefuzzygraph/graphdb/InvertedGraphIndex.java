@@ -0,0 +1,225 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.CompiledDescriptorTable;
+import imagefuzzygraph.graph.CompactGraph;
+import imagefuzzygraph.graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Class representing an inverted index from the colour and label terms of the nodes of a database to the graphs
+ * containing them. Every term is mapped to a posting list with the nodes whose fuzzy descriptor contains the term,
+ * ignoring its degree, and the position of their graph in the database.
+ * <p>
+ * With a crisp resemblance relation between colour labels, as the one of the default
+ * {@link imagefuzzygraph.algorithm.FuzzyGraphMatching}, a term of a source node which is not a term of the query node
+ * is included in it in degree 0, whatever the t-norm and the implication, so the similarity between a source node and
+ * a query node can only be greater than 0 if every colour and label term of the source node is also a term of the
+ * query node. The degrees of the shared terms are not considered, as some implications, for example the Łukasiewicz
+ * one, include a positive degree in degree 0 with a positive result. The index finds those source nodes counting, for
+ * every query node, how many terms of each source node appear in the posting lists of the query terms, so the cost of
+ * {@link #getCandidates(Graph, AggregationOperator)} depends on the length of those posting lists and not on the size
+ * of the database. The candidates are not valid for a matching with a graded resemblance relation between colour
+ * labels, where a source term may be included in a different query term.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class InvertedGraphIndex {
+
+    /**
+     * Class representing the posting list of a term.
+     */
+    private static class Postings {
+
+        /**
+         * Nodes containing the term, numbered in the order they were indexed.
+         */
+        private int[] nodes = new int[4];
+
+        /**
+         * Number of nodes containing the term.
+         */
+        private int size;
+
+        /**
+         * Add a node to the posting list.
+         *
+         * @param node number of the node.
+         */
+        private void add(int node) {
+            if (this.size == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+            }
+            this.nodes[this.size] = node;
+            this.size++;
+        }
+    }
+
+    /**
+     * Posting lists of the colour terms, indexed by label identifier. Terms which do not appear are null.
+     */
+    private final ArrayList<Postings> colorPostings = new ArrayList<>();
+
+    /**
+     * Posting lists of the label terms, indexed by label identifier. Terms which do not appear are null.
+     */
+    private final ArrayList<Postings> labelPostings = new ArrayList<>();
+
+    /**
+     * Position in the database of the graph of every node, indexed by node number.
+     */
+    private int[] nodeGraphs = new int[16];
+
+    /**
+     * Number of colour and label terms of every node, indexed by node number.
+     */
+    private int[] nodeTerms = new int[16];
+
+    /**
+     * Number of nodes indexed.
+     */
+    private int numberOfNodes;
+
+    /**
+     * Number of graphs indexed.
+     */
+    private int numberOfGraphs;
+
+    /**
+     * Positions of the graphs which are always candidates, because they have no nodes or they have a node without
+     * terms, which is similar to any query node.
+     */
+    private final TreeSet<Integer> unconditionalCandidates = new TreeSet<>();
+
+    /**
+     * Add the next graph of the database to the index.
+     *
+     * @param graph graph added to the database.
+     */
+    public void add(Graph graph) {
+        int position = this.numberOfGraphs++;
+        CompactGraph compactGraph = graph.getCompactGraph();
+        if (compactGraph.getNumberOfNodes() == 0) {
+            this.unconditionalCandidates.add(position);
+        }
+        CompiledDescriptorTable colorDescriptors = compactGraph.getColorFuzzyDescriptors();
+        CompiledDescriptorTable labelDescriptors = compactGraph.getLabelDescriptors();
+        for (int n = 0; n < compactGraph.getNumberOfNodes(); n++) {
+            int node = this.numberOfNodes++;
+            if (node == this.nodeGraphs.length) {
+                this.nodeGraphs = Arrays.copyOf(this.nodeGraphs, node * 2);
+                this.nodeTerms = Arrays.copyOf(this.nodeTerms, node * 2);
+            }
+            this.nodeGraphs[node] = position;
+            this.nodeTerms[node] = addPostings(this.colorPostings, colorDescriptors, n, node)
+                    + addPostings(this.labelPostings, labelDescriptors, n, node);
+            if (this.nodeTerms[node] == 0) {
+                this.unconditionalCandidates.add(position);
+            }
+        }
+    }
+
+    /**
+     * Remove all the graphs from the index.
+     */
+    public void clear() {
+        this.colorPostings.clear();
+        this.labelPostings.clear();
+        this.numberOfNodes = 0;
+        this.numberOfGraphs = 0;
+        this.unconditionalCandidates.clear();
+    }
+
+    /**
+     * Return the number of graphs indexed.
+     *
+     * @return the number of graphs indexed.
+     */
+    public int size() {
+        return this.numberOfGraphs;
+    }
+
+    /**
+     * Return the positions of the graphs whose inclusion degree of the query graph may be greater than 0. The
+     * inclusion degree of any other graph is 0, because none of its nodes is similar to any query node, unless the
+     * aggregation operator does not bound it, in which case every graph is returned.
+     *
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @return the positions of the candidate graphs, in ascending order.
+     */
+    public int[] getCandidates(Graph query, AggregationOperator aggregationOperator) {
+        CompactGraph compactQuery = query.getCompactGraph();
+        if (compactQuery.getNumberOfNodes() == 0 || aggregationOperator.upperBound(0.0) > 0.0) {
+            int[] candidates = new int[this.numberOfGraphs];
+            Arrays.setAll(candidates, i -> i);
+            return candidates;
+        }
+
+        TreeSet<Integer> candidates = new TreeSet<>(this.unconditionalCandidates);
+        for (int j = 0; j < compactQuery.getNumberOfNodes(); j++) {
+            Map<Integer, Integer> matchedTerms = new HashMap<>();
+            countMatchedTerms(this.colorPostings, compactQuery.getColorFuzzyDescriptors(), j, matchedTerms);
+            countMatchedTerms(this.labelPostings, compactQuery.getLabelDescriptors(), j, matchedTerms);
+            for (Map.Entry<Integer, Integer> entry : matchedTerms.entrySet()) {
+                if (entry.getValue() == this.nodeTerms[entry.getKey()]) {
+                    candidates.add(this.nodeGraphs[entry.getKey()]);
+                }
+            }
+        }
+        return candidates.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Add a node to the posting lists of the terms of one of its descriptors.
+     *
+     * @param postings    posting lists, indexed by label identifier.
+     * @param descriptors table with the descriptors of the nodes of a graph.
+     * @param descriptor  ordinal of the node in its graph.
+     * @param node        number of the node in the index.
+     * @return the number of terms of the descriptor.
+     */
+    private static int addPostings(ArrayList<Postings> postings, CompiledDescriptorTable descriptors, int descriptor, int node) {
+        int first = descriptors.getFirstProperty(descriptor);
+        int last = descriptors.getFirstProperty(descriptor + 1);
+        for (int p = first; p < last; p++) {
+            int labelId = descriptors.getLabelId(p);
+            while (postings.size() <= labelId) {
+                postings.add(null);
+            }
+            if (postings.get(labelId) == null) {
+                postings.set(labelId, new Postings());
+            }
+            postings.get(labelId).add(node);
+        }
+        return last - first;
+    }
+
+    /**
+     * Count, for every indexed node, how many of its terms are also terms of a query descriptor, whatever their
+     * degrees.
+     *
+     * @param postings     posting lists, indexed by label identifier.
+     * @param descriptors  table with the descriptors of the nodes of the query graph.
+     * @param descriptor   ordinal of the query node.
+     * @param matchedTerms number of terms shared, indexed by node number. It is updated.
+     */
+    private static void countMatchedTerms(ArrayList<Postings> postings, CompiledDescriptorTable descriptors, int descriptor,
+                                          Map<Integer, Integer> matchedTerms) {
+        for (int p = descriptors.getFirstProperty(descriptor); p < descriptors.getFirstProperty(descriptor + 1); p++) {
+            int labelId = descriptors.getLabelId(p);
+            Postings termPostings = labelId < postings.size() ? postings.get(labelId) : null;
+            if (termPostings == null) {
+                continue;
+            }
+            for (int i = 0; i < termPostings.size; i++) {
+                matchedTerms.merge(termPostings.nodes[i], 1, Integer::sum);
+            }
+        }
+    }
+}
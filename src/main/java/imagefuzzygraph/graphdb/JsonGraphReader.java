@@ -0,0 +1,125 @@
+package imagefuzzygraph.graphdb;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graph.Node;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Class to read a JSON database of graphs one graph at a time, so a graph can be used as soon as it has been parsed
+ * and only one graph is kept in memory by the reader.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class JsonGraphReader implements Iterator<Graph>, Closeable {
+
+    /**
+     * Strategy to skip the path to the image of the nodes, which is not needed by the matching.
+     */
+    private static final ExclusionStrategy SKIP_IMAGE_PATHS = new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes f) {
+            return f.getDeclaringClass() == Node.class && f.getName().equals("imagePath");
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    };
+
+    /**
+     * Reader positioned inside the array of graphs.
+     */
+    private final JsonReader jsonReader;
+
+    /**
+     * Parser of every graph.
+     */
+    private final Gson gson;
+
+    /**
+     * Construct a reader of a JSON file.
+     *
+     * @param fileName       file to read from.
+     * @param skipImagePaths whether the path to the image of the nodes is skipped, leaving it null.
+     * @throws IOException exception thrown if file can not be opened or does not contain an array.
+     */
+    public JsonGraphReader(String fileName, boolean skipImagePaths) throws IOException {
+        this(new BufferedReader(new FileReader(fileName)), skipImagePaths);
+    }
+
+    /**
+     * Construct a reader of a JSON stream. The stream is closed by {@link #close()}.
+     *
+     * @param reader         stream containing an array of graphs.
+     * @param skipImagePaths whether the path to the image of the nodes is skipped, leaving it null.
+     * @throws IOException exception thrown if the stream can not be read or does not contain an array.
+     */
+    public JsonGraphReader(Reader reader, boolean skipImagePaths) throws IOException {
+        this.jsonReader = new JsonReader(reader);
+        try {
+            this.jsonReader.beginArray();
+        } catch (IOException | RuntimeException ex) {
+            this.jsonReader.close();
+            throw ex;
+        }
+        GsonBuilder gsonBuilder = new GsonBuilder();
+        if (skipImagePaths) {
+            gsonBuilder.addDeserializationExclusionStrategy(SKIP_IMAGE_PATHS);
+        }
+        this.gson = gsonBuilder.create();
+    }
+
+    /**
+     * Return whether there are graphs left to read.
+     *
+     * @return true if there is at least one graph left.
+     * @throws UncheckedIOException exception thrown if the stream can not be read.
+     */
+    @Override
+    public boolean hasNext() {
+        try {
+            return this.jsonReader.hasNext();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Read the next graph.
+     *
+     * @return the next graph.
+     * @throws NoSuchElementException exception thrown if there are no graphs left.
+     * @throws UncheckedIOException   exception thrown if the stream can not be read.
+     */
+    @Override
+    public Graph next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.gson.fromJson(this.jsonReader, Graph.class);
+    }
+
+    /**
+     * Close the stream.
+     *
+     * @throws IOException exception thrown if the stream can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.jsonReader.close();
+    }
+}
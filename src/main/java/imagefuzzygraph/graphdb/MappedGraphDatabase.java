@@ -0,0 +1,119 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.graph.CompactGraph;
+import imagefuzzygraph.graph.CompactGraphSource;
+import imagefuzzygraph.graph.Graph;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Class representing a read-only database of graphs backed by a memory-mapped file in the format of
+ * {@link BinaryGraphDatabaseFormat}. Graphs are not kept in memory: every call to {@link #get(int)} builds the graph
+ * from the mapped bytes, so a scan of the whole database only holds the graphs being scored at that moment, and the
+ * operating system pages the file in and out as needed. The query engine does not build the graphs at all: it scores
+ * the compact graphs returned by {@link #getCompactGraph(int)}, read directly from the mapped bytes.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class MappedGraphDatabase extends AbstractList<Graph> implements RandomAccess, CompactGraphSource {
+
+    /**
+     * Tables of the mapped file.
+     */
+    private final BinaryGraphDatabaseFormat format;
+
+    /**
+     * Map a database file.
+     *
+     * @param file file in the format of {@link BinaryGraphDatabaseFormat}.
+     * @throws IOException exception thrown if the file can not be mapped or is not in the expected format.
+     */
+    public MappedGraphDatabase(File file) throws IOException {
+        // The mappings remain valid once the channel is closed.
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            BinaryGraphDatabaseFormat.SectionLoader loader = (offset, size) -> {
+                if (offset + size > fileSize) {
+                    throw new EOFException("Truncated binary graph database");
+                }
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Section too large to be mapped: " + size + " bytes");
+                }
+                return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            };
+            this.format = new BinaryGraphDatabaseFormat(loader.load(0, BinaryGraphDatabaseFormat.HEADER_SIZE), loader);
+        }
+    }
+
+    /**
+     * Return a graph of the database. The graph is built from the mapped file on every call and is not retained by
+     * the database.
+     *
+     * @param index position of the graph.
+     * @return the graph.
+     */
+    @Override
+    public Graph get(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+        return this.format.getGraph(index, null);
+    }
+
+    /**
+     * Return the compact graph of a graph of the database without building the graph. Descriptors are compiled once
+     * and shared by the compact graphs of the database.
+     *
+     * @param index position of the graph.
+     * @return the compact graph of the graph.
+     */
+    @Override
+    public CompactGraph getCompactGraph(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+        return this.format.getCompactGraph(index);
+    }
+
+    /**
+     * Return the id of a graph of the database without building the graph.
+     *
+     * @param index position of the graph.
+     * @return the id of the graph.
+     */
+    public String getGraphId(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+        return this.format.getGraphId(index);
+    }
+
+    /**
+     * Return the number of nodes of a graph of the database without building the graph.
+     *
+     * @param index position of the graph.
+     * @return the number of nodes of the graph.
+     */
+    public int getNumberOfNodes(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+        return this.format.getNumberOfNodes(index);
+    }
+
+    /**
+     * Return the number of graphs of the database.
+     *
+     * @return the number of graphs.
+     */
+    @Override
+    public int size() {
+        return this.format.getNumberOfGraphs();
+    }
+}
@@ -0,0 +1,223 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.algorithm.FuzzyGraphMatching;
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.CompiledDescriptorTable;
+import imagefuzzygraph.data.LRUCache;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.CompactGraph;
+import imagefuzzygraph.graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * Class representing a cache of the results of the queries to a {@link GraphDatabase}. Results are indexed by the
+ * canonical form of the query graph, that is, the descriptors and structure used by the matching, whatever the ids of
+ * its nodes and edges and the order of the properties of its descriptors, together with the keys of the matching and of
+ * the aggregation operator and the number of matches requested. The cache belongs to a single database and is cleared
+ * as soon as the version of the database changes.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class QueryResultCache {
+
+    /**
+     * Class representing the key of a result.
+     */
+    private static class Key {
+
+        /**
+         * Structure of the query graph and identifiers of the labels of its descriptors.
+         */
+        private final int[] structure;
+
+        /**
+         * Degrees of the properties of the descriptors of the query graph.
+         */
+        private final double[] degrees;
+
+        /**
+         * Key of the matching.
+         */
+        private final Object fuzzyGraphMatchingKey;
+
+        /**
+         * Key of the aggregation operator.
+         */
+        private final Object aggregationOperatorKey;
+
+        /**
+         * Maximum number of matches returned.
+         */
+        private final int k;
+
+        /**
+         * Hash code of the key.
+         */
+        private final int hashCode;
+
+        /**
+         * Construct the key of a result.
+         *
+         * @param query               query graph.
+         * @param fuzzyGraphMatching  matching computing the inclusion degrees.
+         * @param aggregationOperator an {@link AggregationOperator}.
+         * @param k                   maximum number of matches returned.
+         */
+        private Key(Graph query, FuzzyGraphMatching fuzzyGraphMatching, AggregationOperator aggregationOperator, int k) {
+            CompactGraph compactQuery = query.getCompactGraph();
+            IntStream.Builder structure = IntStream.builder();
+            DoubleStream.Builder degrees = DoubleStream.builder();
+            structure.add(compactQuery.getNumberOfNodes()).add(compactQuery.getNumberOfEdges());
+            for (int e = 0; e < compactQuery.getNumberOfEdges(); e++) {
+                structure.add(compactQuery.getStartNode(e)).add(compactQuery.getEndNode(e));
+            }
+            addDescriptors(compactQuery.getColorFuzzyDescriptors(), structure, degrees);
+            addDescriptors(compactQuery.getLabelDescriptors(), structure, degrees);
+            addDescriptors(compactQuery.getSpatialRelationshipFuzzyDescriptors(), structure, degrees);
+
+            this.structure = structure.build().toArray();
+            this.degrees = degrees.build().toArray();
+            this.fuzzyGraphMatchingKey = fuzzyGraphMatching.getKey();
+            this.aggregationOperatorKey = aggregationOperator.getKey();
+            this.k = k;
+            this.hashCode = Objects.hash(Arrays.hashCode(this.structure), Arrays.hashCode(this.degrees),
+                    this.fuzzyGraphMatchingKey, this.aggregationOperatorKey, this.k);
+        }
+
+        /**
+         * Add a table of descriptors to the canonical form of a graph.
+         *
+         * @param descriptors table of descriptors.
+         * @param structure   builder of the structure of the graph.
+         * @param degrees     builder of the degrees of the graph.
+         */
+        private static void addDescriptors(CompiledDescriptorTable descriptors, IntStream.Builder structure,
+                                           DoubleStream.Builder degrees) {
+            for (int d = 0; d < descriptors.size(); d++) {
+                structure.add(descriptors.getFirstProperty(d + 1) - descriptors.getFirstProperty(d));
+                for (int p = descriptors.getFirstProperty(d); p < descriptors.getFirstProperty(d + 1); p++) {
+                    structure.add(descriptors.getLabelId(p));
+                    degrees.add(descriptors.getDegree(p));
+                }
+            }
+        }
+
+        /**
+         * Return whether another object is the same key.
+         *
+         * @param o object to compare with.
+         * @return true if the object is a key of the same query graph, matching, operator and number of matches.
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.k == key.k && Arrays.equals(this.structure, key.structure)
+                    && Arrays.equals(this.degrees, key.degrees)
+                    && Objects.equals(this.fuzzyGraphMatchingKey, key.fuzzyGraphMatchingKey)
+                    && Objects.equals(this.aggregationOperatorKey, key.aggregationOperatorKey);
+        }
+
+        /**
+         * Return the hash code of the key.
+         *
+         * @return the hash code of the key.
+         */
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+    /**
+     * Database whose results are cached.
+     */
+    private final GraphDatabase database;
+
+    /**
+     * Results of the queries.
+     */
+    private final LRUCache<Key, ArrayList<Tuple<Integer, Double>>> results;
+
+    /**
+     * Version of the database of the cached results.
+     */
+    private long version;
+
+    /**
+     * Construct a cache of the results of the queries to a database.
+     *
+     * @param database database whose results are cached.
+     * @param capacity maximum number of results cached.
+     */
+    public QueryResultCache(GraphDatabase database, int capacity) {
+        this.database = database;
+        this.results = new LRUCache<>(capacity);
+        this.version = database.getVersion();
+    }
+
+    /**
+     * Return the cached result of a query.
+     *
+     * @param query               query graph.
+     * @param fuzzyGraphMatching  matching computing the inclusion degrees.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches returned.
+     * @return a copy of the result of the query, or null if it is not cached.
+     */
+    public synchronized ArrayList<Tuple<Integer, Double>> get(Graph query, FuzzyGraphMatching fuzzyGraphMatching,
+                                                              AggregationOperator aggregationOperator, int k) {
+        this.invalidateIfChanged();
+        ArrayList<Tuple<Integer, Double>> result = this.results.get(new Key(query, fuzzyGraphMatching, aggregationOperator, k));
+        return result == null ? null : new ArrayList<>(result);
+    }
+
+    /**
+     * Cache the result of a query. The result is discarded if the database has changed since the query started.
+     *
+     * @param query               query graph.
+     * @param fuzzyGraphMatching  matching computing the inclusion degrees.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   maximum number of matches returned.
+     * @param version             version of the database when the query started.
+     * @param result              result of the query.
+     */
+    public synchronized void put(Graph query, FuzzyGraphMatching fuzzyGraphMatching, AggregationOperator aggregationOperator,
+                                 int k, long version, ArrayList<Tuple<Integer, Double>> result) {
+        this.invalidateIfChanged();
+        if (version == this.version) {
+            this.results.put(new Key(query, fuzzyGraphMatching, aggregationOperator, k), new ArrayList<>(result));
+        }
+    }
+
+    /**
+     * Return the number of cached results.
+     *
+     * @return the number of cached results.
+     */
+    public synchronized int size() {
+        this.invalidateIfChanged();
+        return this.results.size();
+    }
+
+    /**
+     * Remove all the cached results if the database has changed since they were computed.
+     */
+    private void invalidateIfChanged() {
+        long currentVersion = this.database.getVersion();
+        if (currentVersion != this.version) {
+            this.results.clear();
+            this.version = currentVersion;
+        }
+    }
+}
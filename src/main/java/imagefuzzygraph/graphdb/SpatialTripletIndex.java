@@ -0,0 +1,223 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.CompiledDescriptorTable;
+import imagefuzzygraph.graph.CompactGraph;
+import imagefuzzygraph.graph.Graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Class representing an index from the spatial triplets of the edges of a database to the graphs containing them. A
+ * triplet is made of a label term of the start node, a spatial relationship term of the edge and a label term of the
+ * end node, ignoring their degrees, and every edge is indexed under all the triplets formed by its terms.
+ * <p>
+ * When every node of the source graph and of the query graph has an outgoing edge, the matching only aggregates the
+ * inclusion degrees of pairs of edges, and the inclusion degree of a source edge in a query edge considering their
+ * nodes can only be greater than 0 if every triplet of the source edge is also a triplet of the query edge. The index
+ * finds those source edges counting, for every query edge, how many triplets of each source edge appear in the posting
+ * lists of the query triplets.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class SpatialTripletIndex {
+
+    /**
+     * Number of bits of each term of a triplet key.
+     */
+    private static final int TERM_BITS = 21;
+
+    /**
+     * Class representing the posting list of a triplet.
+     */
+    private static class Postings {
+
+        /**
+         * Edges with the triplet, numbered in the order they were indexed.
+         */
+        private int[] edges = new int[4];
+
+        /**
+         * Number of edges with the triplet.
+         */
+        private int size;
+
+        /**
+         * Add an edge to the posting list.
+         *
+         * @param edge number of the edge.
+         */
+        private void add(int edge) {
+            if (this.size == this.edges.length) {
+                this.edges = Arrays.copyOf(this.edges, this.size * 2);
+            }
+            this.edges[this.size++] = edge;
+        }
+    }
+
+    /**
+     * Posting lists, indexed by triplet key.
+     */
+    private final HashMap<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Position in the database of the graph of every edge, indexed by edge number.
+     */
+    private int[] edgeGraphs = new int[16];
+
+    /**
+     * Number of triplets of every edge, indexed by edge number.
+     */
+    private int[] edgeTriplets = new int[16];
+
+    /**
+     * Number of edges indexed.
+     */
+    private int numberOfEdges;
+
+    /**
+     * Number of graphs indexed.
+     */
+    private int numberOfGraphs;
+
+    /**
+     * Positions of the graphs which can not be discarded by their triplets, because they have a node without outgoing
+     * edges, which may be matched without any edge, or an edge without triplets.
+     */
+    private final TreeSet<Integer> unconditionalCandidates = new TreeSet<>();
+
+    /**
+     * Add the next graph of the database to the index.
+     *
+     * @param graph graph added to the database.
+     */
+    public void add(Graph graph) {
+        int position = this.numberOfGraphs++;
+        CompactGraph compactGraph = graph.getCompactGraph();
+        if (hasNodeWithoutOutgoingEdges(compactGraph)) {
+            this.unconditionalCandidates.add(position);
+        }
+        CompiledDescriptorTable labelDescriptors = compactGraph.getLabelDescriptors();
+        CompiledDescriptorTable relationDescriptors = compactGraph.getSpatialRelationshipFuzzyDescriptors();
+        for (int e = 0; e < compactGraph.getNumberOfEdges(); e++) {
+            int edge = this.numberOfEdges++;
+            if (edge == this.edgeGraphs.length) {
+                this.edgeGraphs = Arrays.copyOf(this.edgeGraphs, edge * 2);
+                this.edgeTriplets = Arrays.copyOf(this.edgeTriplets, edge * 2);
+            }
+            this.edgeGraphs[edge] = position;
+            int startNode = compactGraph.getStartNode(e);
+            int endNode = compactGraph.getEndNode(e);
+            for (int s = labelDescriptors.getFirstProperty(startNode); s < labelDescriptors.getFirstProperty(startNode + 1); s++) {
+                for (int r = relationDescriptors.getFirstProperty(e); r < relationDescriptors.getFirstProperty(e + 1); r++) {
+                    for (int t = labelDescriptors.getFirstProperty(endNode); t < labelDescriptors.getFirstProperty(endNode + 1); t++) {
+                        long key = getKey(labelDescriptors.getLabelId(s), relationDescriptors.getLabelId(r), labelDescriptors.getLabelId(t));
+                        this.postings.computeIfAbsent(key, k -> new Postings()).add(edge);
+                        this.edgeTriplets[edge]++;
+                    }
+                }
+            }
+            if (this.edgeTriplets[edge] == 0) {
+                this.unconditionalCandidates.add(position);
+            }
+        }
+    }
+
+    /**
+     * Remove all the graphs from the index.
+     */
+    public void clear() {
+        this.postings.clear();
+        Arrays.fill(this.edgeTriplets, 0, this.numberOfEdges, 0);
+        this.numberOfEdges = 0;
+        this.numberOfGraphs = 0;
+        this.unconditionalCandidates.clear();
+    }
+
+    /**
+     * Return the number of graphs indexed.
+     *
+     * @return the number of graphs indexed.
+     */
+    public int size() {
+        return this.numberOfGraphs;
+    }
+
+    /**
+     * Return the positions of the graphs whose inclusion degree of the query graph may be greater than 0. The
+     * inclusion degree of any other graph is 0, because none of its edges is included in any query edge, unless the
+     * query graph has a node without outgoing edges or the aggregation operator does not bound it, in which case every
+     * graph is returned.
+     *
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @return the positions of the candidate graphs, in ascending order.
+     */
+    public int[] getCandidates(Graph query, AggregationOperator aggregationOperator) {
+        CompactGraph compactQuery = query.getCompactGraph();
+        if (hasNodeWithoutOutgoingEdges(compactQuery) || aggregationOperator.upperBound(0.0) > 0.0) {
+            int[] candidates = new int[this.numberOfGraphs];
+            Arrays.setAll(candidates, i -> i);
+            return candidates;
+        }
+
+        CompiledDescriptorTable labelDescriptors = compactQuery.getLabelDescriptors();
+        CompiledDescriptorTable relationDescriptors = compactQuery.getSpatialRelationshipFuzzyDescriptors();
+        TreeSet<Integer> candidates = new TreeSet<>(this.unconditionalCandidates);
+        for (int e = 0; e < compactQuery.getNumberOfEdges(); e++) {
+            Map<Integer, Integer> matchedTriplets = new HashMap<>();
+            int startNode = compactQuery.getStartNode(e);
+            int endNode = compactQuery.getEndNode(e);
+            for (int s = labelDescriptors.getFirstProperty(startNode); s < labelDescriptors.getFirstProperty(startNode + 1); s++) {
+                for (int r = relationDescriptors.getFirstProperty(e); r < relationDescriptors.getFirstProperty(e + 1); r++) {
+                    for (int t = labelDescriptors.getFirstProperty(endNode); t < labelDescriptors.getFirstProperty(endNode + 1); t++) {
+                        long key = getKey(labelDescriptors.getLabelId(s), relationDescriptors.getLabelId(r), labelDescriptors.getLabelId(t));
+                        Postings tripletPostings = this.postings.get(key);
+                        for (int i = 0; tripletPostings != null && i < tripletPostings.size; i++) {
+                            matchedTriplets.merge(tripletPostings.edges[i], 1, Integer::sum);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<Integer, Integer> entry : matchedTriplets.entrySet()) {
+                if (entry.getValue() == this.edgeTriplets[entry.getKey()]) {
+                    candidates.add(this.edgeGraphs[entry.getKey()]);
+                }
+            }
+        }
+        return candidates.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Return the key of a triplet.
+     *
+     * @param startLabelId identifier of the label term of the start node.
+     * @param relationId   identifier of the spatial relationship term of the edge.
+     * @param endLabelId   identifier of the label term of the end node.
+     * @return the key of the triplet.
+     */
+    private static long getKey(int startLabelId, int relationId, int endLabelId) {
+        return ((long) startLabelId << (2 * TERM_BITS)) | ((long) relationId << TERM_BITS) | endLabelId;
+    }
+
+    /**
+     * Return whether a graph has a node without outgoing edges.
+     *
+     * @param graph graph to be checked.
+     * @return true if any node of the graph has no outgoing edges, or the graph has no nodes.
+     */
+    private static boolean hasNodeWithoutOutgoingEdges(CompactGraph graph) {
+        if (graph.getNumberOfNodes() == 0) {
+            return true;
+        }
+        for (int n = 0; n < graph.getNumberOfNodes(); n++) {
+            if (graph.getFirstAdjacentEdge(n) == graph.getFirstAdjacentEdge(n + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,231 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.algorithm.BuildGraph;
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.PropertyWithDegree;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.Edge;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graph.Node;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Class to synthesize random graphs without reading any image, so databases of millions of graphs can be generated
+ * as fast as they are written. Unlike {@link GraphExamples#randomGraph(int)}, the color and label descriptors of the
+ * nodes are drawn directly from seeded distributions, the nodes are placed anywhere on a canvas which grows with their
+ * number, and every ordered pair of different nodes is connected with a given probability. The spatial relationships
+ * of the edges are built from the locations of their nodes as {@link BuildGraph} builds them.
+ * <p>
+ * The same seed and parameters always generate the same sequence of graphs.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class SyntheticGraphGenerator {
+
+    /**
+     * Labels of the basic colors of the ISCC color map.
+     */
+    private static final String[] COLORS = {"pink", "red", "orange", "brown", "yellow", "olive", "yellowgreen",
+            "green", "blue", "purple", "white", "gray", "black"};
+
+    /**
+     * Labels of the figures, with their degrees, as they are used by {@link GraphExamples}.
+     */
+    private static final String[] FIGURES = {"circle_1.0", "cross_1.0", "heart_1.0", "square_0.8", "square_1.0",
+            "star_1.0", "triangle_1.0"};
+
+    /**
+     * Maximum number of colors of a node.
+     */
+    private static final int MAX_NUMBER_OF_COLORS = 3;
+
+    /**
+     * Number of steps the degrees of the secondary colors are rounded to, so identical descriptors are frequent and
+     * they are stored once by {@link BinaryGraphDatabaseFormat}.
+     */
+    private static final int DEGREE_STEPS = 100;
+
+    /**
+     * Area of the canvas per node, as the side of a square.
+     */
+    private static final double NODE_SPACING = 200.0;
+
+    /**
+     * Random generator of the graphs.
+     */
+    private final Random random;
+
+    /**
+     * Minimum number of nodes of every graph.
+     */
+    private final int minNumberOfNodes;
+
+    /**
+     * Maximum number of nodes of every graph.
+     */
+    private final int maxNumberOfNodes;
+
+    /**
+     * Probability of every edge between two different nodes. With 1.0 every graph is complete.
+     */
+    private final double edgeProbability;
+
+    /**
+     * Builder of the spatial relationships of the edges.
+     */
+    private final BuildGraph buildGraph = new BuildGraph(true);
+
+    /**
+     * Label descriptors of the figures, shared by all the nodes with the same figure.
+     */
+    private final Descriptor[] figureDescriptors = new Descriptor[FIGURES.length];
+
+    /**
+     * Number of graphs generated.
+     */
+    private int numberOfGraphs;
+
+    /**
+     * Construct a generator of complete graphs with 3-11 nodes, as {@link GraphExamples#randomGraph(int)} builds them.
+     *
+     * @param seed seed of the random generator.
+     */
+    public SyntheticGraphGenerator(long seed) {
+        this(seed, 3, 11, 1.0);
+    }
+
+    /**
+     * Construct a generator of random graphs.
+     *
+     * @param seed             seed of the random generator.
+     * @param minNumberOfNodes minimum number of nodes of every graph.
+     * @param maxNumberOfNodes maximum number of nodes of every graph.
+     * @param edgeProbability  probability of every edge between two different nodes, greater than 0 and at most 1.
+     */
+    public SyntheticGraphGenerator(long seed, int minNumberOfNodes, int maxNumberOfNodes, double edgeProbability) {
+        if (minNumberOfNodes < 0 || maxNumberOfNodes < minNumberOfNodes) {
+            throw new IllegalArgumentException("Invalid number of nodes: " + minNumberOfNodes + "-" + maxNumberOfNodes);
+        }
+        if (!(edgeProbability > 0.0 && edgeProbability <= 1.0)) {
+            throw new IllegalArgumentException("Invalid edge probability: " + edgeProbability);
+        }
+        this.random = new Random(seed);
+        this.minNumberOfNodes = minNumberOfNodes;
+        this.maxNumberOfNodes = maxNumberOfNodes;
+        this.edgeProbability = edgeProbability;
+        for (int f = 0; f < FIGURES.length; f++) {
+            String[] parts = FIGURES[f].split("_");
+            this.figureDescriptors[f] = new Descriptor();
+            this.figureDescriptors[f].add(new PropertyWithDegree(parts[0], Double.parseDouble(parts[1])));
+        }
+    }
+
+    /**
+     * Generate the next graph, with id "Graph_" followed by the number of graphs generated before it.
+     *
+     * @return a random graph.
+     */
+    public Graph nextGraph() {
+        int numberOfNodes = this.minNumberOfNodes + this.random.nextInt(this.maxNumberOfNodes - this.minNumberOfNodes + 1);
+        return this.nextGraph("Graph_" + this.numberOfGraphs, numberOfNodes);
+    }
+
+    /**
+     * Generate the next graph.
+     *
+     * @param graphId       id of the graph.
+     * @param numberOfNodes number of nodes of the graph.
+     * @return a random graph.
+     */
+    public Graph nextGraph(String graphId, int numberOfNodes) {
+        this.numberOfGraphs++;
+        double canvasSize = NODE_SPACING * Math.ceil(Math.sqrt(numberOfNodes));
+        ArrayList<Node> nodes = new ArrayList<>(numberOfNodes);
+        for (int i = 0; i < numberOfNodes; i++) {
+            Tuple<Double, Double> location = new Tuple<>(Math.floor(canvasSize * this.random.nextDouble()),
+                    Math.floor(canvasSize * this.random.nextDouble()));
+            nodes.add(new Node("node_" + i, this.randomColorFuzzyDescriptor(),
+                    this.figureDescriptors[this.random.nextInt(FIGURES.length)], null, location));
+        }
+
+        ArrayList<Edge> edges = new ArrayList<>();
+        for (Node start : nodes) {
+            for (Node end : nodes) {
+                if (start != end && (this.edgeProbability == 1.0 || this.random.nextDouble() < this.edgeProbability)) {
+                    Tuple<Double, Double> firstPoint = start.getLocation();
+                    Tuple<Double, Double> secondPoint = end.getLocation();
+                    edges.add(new Edge("edge_" + start.getId() + "_" + end.getId(), start.getId(), end.getId(),
+                            this.buildGraph.buildSpatialRelationshipFuzzyDescriptor(firstPoint.getFirst(),
+                                    firstPoint.getSecond(), secondPoint.getFirst(), secondPoint.getSecond())));
+                }
+            }
+        }
+        return new Graph(graphId, nodes, edges);
+    }
+
+    /**
+     * Generate several graphs, passing every graph to a consumer as soon as it has been generated, without keeping
+     * them in memory.
+     *
+     * @param numberOfGraphs number of graphs to generate.
+     * @param consumer       consumer of the graphs, for example {@link GraphDatabase#add(Graph)}.
+     */
+    public void generate(long numberOfGraphs, Consumer<? super Graph> consumer) {
+        for (long i = 0; i < numberOfGraphs; i++) {
+            consumer.accept(this.nextGraph());
+        }
+    }
+
+    /**
+     * Return an iterator which generates several graphs lazily, one graph every time it is advanced, so they can be
+     * written with {@link GraphDatabase#saveDatabase(String, Iterator)} without keeping them in memory.
+     *
+     * @param numberOfGraphs number of graphs to generate.
+     * @return an iterator over the graphs generated.
+     */
+    public Iterator<Graph> iterator(long numberOfGraphs) {
+        return new Iterator<Graph>() {
+            private long remaining = numberOfGraphs;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining > 0;
+            }
+
+            @Override
+            public Graph next() {
+                if (this.remaining <= 0) {
+                    throw new NoSuchElementException();
+                }
+                this.remaining--;
+                return SyntheticGraphGenerator.this.nextGraph();
+            }
+        };
+    }
+
+    /**
+     * Draw the color fuzzy descriptor of a node: a dominant color with degree 1 and up to two other colors with lower
+     * degrees.
+     *
+     * @return a random color fuzzy descriptor.
+     */
+    private Descriptor randomColorFuzzyDescriptor() {
+        Descriptor colorFuzzyDescriptor = new Descriptor();
+        int numberOfColors = 1 + this.random.nextInt(MAX_NUMBER_OF_COLORS);
+        boolean[] used = new boolean[COLORS.length];
+        for (int c = 0; c < numberOfColors; c++) {
+            int color = this.random.nextInt(COLORS.length);
+            if (!used[color]) {
+                used[color] = true;
+                double degree = c == 0 ? 1.0 : (1 + this.random.nextInt(DEGREE_STEPS - 1)) / (double) DEGREE_STEPS;
+                colorFuzzyDescriptor.add(new PropertyWithDegree(COLORS[color], degree));
+            }
+        }
+        return colorFuzzyDescriptor;
+    }
+}
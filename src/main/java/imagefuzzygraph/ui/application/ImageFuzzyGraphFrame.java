@@ -2,15 +2,19 @@ package imagefuzzygraph.ui.application;
 
 import imagefuzzygraph.algorithm.BuildGraph;
 import imagefuzzygraph.algorithm.FuzzyGraphMatching;
+import imagefuzzygraph.algorithm.GraphQueryEngine;
+import imagefuzzygraph.algorithm.RegionDescriptorCache;
 import imagefuzzygraph.data.AggregationOperator;
 import imagefuzzygraph.data.AggregationOperators;
 import imagefuzzygraph.data.ListOfMatches;
+import imagefuzzygraph.data.NodeSimilarityMatrix;
 import imagefuzzygraph.data.Region;
 import imagefuzzygraph.data.Tuple;
 import imagefuzzygraph.graph.Edge;
 import imagefuzzygraph.graph.Graph;
 import imagefuzzygraph.graphdb.GraphDatabase;
 import imagefuzzygraph.graphdb.GraphExamples;
+import imagefuzzygraph.graphdb.QueryResultCache;
 import imagefuzzygraph.ui.elements.MatchingAlgorithmPreferencesDialog;
 import imagefuzzygraph.ui.elements.GraphPlotter;
 import imagefuzzygraph.ui.elements.ImageListInternalFrame;
@@ -22,10 +26,9 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -33,6 +36,7 @@ import javax.swing.JFileChooser;
 import javax.swing.JInternalFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
 
 /**
  * Class representing the main JFrame of the application.
@@ -45,8 +49,14 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
     private final GraphDatabase queryGraphDatabase;
     private Graph queryGraph;
     private ArrayList<Tuple<Integer, Double>> inclusionDegrees;
-    private final Comparator<Tuple<Integer, Double>> tupleComparator = Comparator.comparing(Tuple::getSecond);
+    private final GraphQueryEngine queryEngine = new GraphQueryEngine();
+    private final QueryResultCache queryResultCache;
+    private SwingWorker<ArrayList<Tuple<Integer, Double>>, Void> queryWorker;
     public static final int GP_SIZE = 300;
+    private static final String TITLE = "ImageFuzzyGraph";
+    private static final int QUERY_RESULT_CACHE_CAPACITY = 32;
+    // Number of best matches kept by a query and listed as the sorted matches.
+    private static final int MAX_MATCHES = 50;
     private int lastGraphPlotted;
 
     /**
@@ -56,6 +66,7 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
         initComponents();
         this.sourceGraphDatabase = new GraphDatabase();
         this.queryGraphDatabase = new GraphDatabase();
+        this.queryResultCache = new QueryResultCache(this.sourceGraphDatabase, QUERY_RESULT_CACHE_CAPACITY);
         this.queryGraph = null;
         this.inclusionDegrees = new ArrayList<>();
         this.lastGraphPlotted = 0;
@@ -109,6 +120,36 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
         this.textSearchPreferencesButton.setEnabled(visibility);
     }
     
+    /**
+     * Method to change the visibility of the buttons which replace the graphs of the Source DataBase.
+     * 
+     * @param visibility new visibility of those buttons.
+     */
+    private void changeSourceDBLoadButtonsVisibility(boolean visibility) {
+        this.generateRandomGraphSourceDBButton.setEnabled(visibility);
+        this.createSourceDBButton.setEnabled(visibility);
+        this.openSourceDBButton.setEnabled(visibility);
+    }
+    
+    /**
+     * Cancel the query running, if any, and forget the result of the last query, as the positions of the matches are
+     * no longer valid once the graphs of the Source DataBase change.
+     */
+    private void discardQuery() {
+        if (this.queryWorker != null) {
+            this.queryWorker.cancel(true);
+            this.queryWorker = null;
+            setCursor(java.awt.Cursor.getDefaultCursor());
+            setTitle(TITLE);
+            this.changeSourceDBLoadButtonsVisibility(true);
+        }
+        this.inclusionDegrees = new ArrayList<>();
+        this.queryGraph = null;
+        this.viewMatchesButton.setEnabled(false);
+        this.drawSortedMatchesButton.setEnabled(false);
+        this.explainMatchesButton.setEnabled(false);
+    }
+    
     /**
      * Method to change the visibility of the Query DataBase section buttons. 
      * 
@@ -147,6 +188,7 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
     private void createDatabase(String sourceOrQuery) {
         try {
             if (sourceOrQuery.equals("source")) {
+                this.discardQuery();
                 this.sourceGraphDatabase.buildDatabase(sourceOrQuery);
                 this.changeSourceDBButtonsVisibility(true);
             } else if (sourceOrQuery.equals("query")) {
@@ -173,6 +215,7 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
             File file = dlg.getSelectedFile();
             try {
                 if (sourceOrQuery.equals("source")) {
+                    this.discardQuery();
                     this.sourceGraphDatabase.readDatabase(file.getAbsolutePath());
                     this.changeSourceDBButtonsVisibility(true);
                 } else if (sourceOrQuery.equals("query")) {
@@ -521,38 +564,111 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
     }//GEN-LAST:event_openSourceDBButtonActionPerformed
 
     /**
-     * Query database to compare textSearchGraph with all the graphs in the database.
+     * Query database to compare textSearchGraph with all the graphs in the database, keeping the best
+     * {@value #MAX_MATCHES} matches. Graphs which can not include the query graph are not scored, so they are not
+     * listed. The query runs in background and, once finished, the best match is plotted. The indexes of the database
+     * are updated before the query starts and the query scores a copy of the list of graphs, and the buttons which
+     * replace the graphs of the database are disabled until it finishes.
      * 
      * @param graph textSearchGraph to be compared with all the graphs in the database.
      */
     private void queryDatabase(Graph graph) {
-        FuzzyGraphMatching fuzzyGraphMatching = new FuzzyGraphMatching();
         AggregationOperator aggregationOperator;
         if (MatchingAlgorithmPreferences.getAggregationOperator().equals("atLeast")) {
             aggregationOperator = AggregationOperators.atLeast(MatchingAlgorithmPreferences.getAlpha(), MatchingAlgorithmPreferences.getBeta());
         } else {
             aggregationOperator = AggregationOperators.all();
         }
-            
-        this.inclusionDegrees = new ArrayList<>();
-        for (int i = 0; i < this.sourceGraphDatabase.size(); i++) {
-            double inclusionDegree = fuzzyGraphMatching.computeInclusion(this.sourceGraphDatabase.get(i), graph, aggregationOperator);
-            inclusionDegrees.add(new Tuple<>(i, inclusionDegree));
+
+        // If a previous query is still running, the current cursor is the wait cursor.
+        java.awt.Cursor cursor = this.queryWorker == null ? this.getCursor() : java.awt.Cursor.getDefaultCursor();
+        if (this.queryWorker != null) {
+            this.queryWorker.cancel(true);
         }
+        GraphDatabase database = this.sourceGraphDatabase;
+        int k = MAX_MATCHES;
+        ArrayList<Tuple<Integer, Double>> cachedResult = this.queryResultCache.get(graph, this.queryEngine.getFuzzyGraphMatching(), aggregationOperator, k);
+        if (cachedResult != null) {
+            this.queryWorker = null;
+            setCursor(cursor);
+            setTitle(TITLE);
+            this.changeSourceDBLoadButtonsVisibility(true);
+            this.showQueryResult(database, graph, cachedResult);
+            return;
+        }
+
+        setCursor(new java.awt.Cursor(java.awt.Cursor.WAIT_CURSOR));
+        this.changeSourceDBLoadButtonsVisibility(false);
+        long version = database.getVersion();
+        // The indexes are rebuilt here, if needed, so the background thread only reads them.
+        int[] candidates = database.getCandidates(graph, aggregationOperator, this.queryEngine.getFuzzyGraphMatching());
+        ArrayList<Graph> graphs = new ArrayList<>(database);
+        this.queryWorker = new SwingWorker<ArrayList<Tuple<Integer, Double>>, Void>() {
+            @Override
+            protected ArrayList<Tuple<Integer, Double>> doInBackground() {
+                return queryEngine.query(graphs, candidates, graph, aggregationOperator, k,
+                        (scoredGraphs, totalGraphs) -> setProgress(100 * scoredGraphs / totalGraphs), this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                // A newer query has replaced this one.
+                if (queryWorker != this) {
+                    return;
+                }
+                queryWorker = null;
+                setCursor(cursor);
+                setTitle(TITLE);
+                changeSourceDBLoadButtonsVisibility(true);
+                if (this.isCancelled() || database.getVersion() != version) {
+                    return;
+                }
+
+                try {
+                    ArrayList<Tuple<Integer, Double>> result = this.get();
+                    queryResultCache.put(graph, queryEngine.getFuzzyGraphMatching(), aggregationOperator, k, version, result);
+                    showQueryResult(database, graph, result);
+                } catch (InterruptedException | ExecutionException ex) {
+                    Logger.getLogger(ImageFuzzyGraphFrame.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        };
+        this.queryWorker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                setTitle(TITLE + " - Querying database: " + evt.getNewValue() + "%");
+            }
+        });
+        this.queryWorker.execute();
+    }
 
-        this.inclusionDegrees.sort(Collections.reverseOrder(this.tupleComparator));
+    /**
+     * Show the result of a query, plotting the best match. If the result is empty, because no graph of the database
+     * can include the query graph, the user is told so and the buttons showing the matches are disabled.
+     *
+     * @param database database queried.
+     * @param graph    query graph.
+     * @param result   inclusion degrees of the graphs of the database, sorted in descending order.
+     */
+    private void showQueryResult(GraphDatabase database, Graph graph, ArrayList<Tuple<Integer, Double>> result) {
+        this.inclusionDegrees = result;
+        this.queryGraph = graph;
+        boolean hasMatches = !this.inclusionDegrees.isEmpty();
+        this.viewMatchesButton.setEnabled(hasMatches);
+        this.drawSortedMatchesButton.setEnabled(hasMatches);
+        this.explainMatchesButton.setEnabled(hasMatches);
+        if (hasMatches) {
+            Graph bestMatchGraph = database.get(this.inclusionDegrees.get(0).getFirst());
+            this.plotGraphInInternalFrame(bestMatchGraph, bestMatchGraph.getId() + ": " + this.inclusionDegrees.get(0).getSecond());
+        } else {
+            JOptionPane.showInternalMessageDialog(desktop, "No graph of the database can include the query graph",
+                    "Query", JOptionPane.INFORMATION_MESSAGE);
+        }
     }
     
     private void matchingButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_matchingButtonActionPerformed
-        this.queryGraph = this.getSelectedGraph();
-        if (this.queryGraph != null) {
-            this.queryDatabase(queryGraph);
-            
-            Graph graph = this.sourceGraphDatabase.get(this.inclusionDegrees.get(0).getFirst());
-            this.plotGraphInInternalFrame(graph, graph.getId() + ": " + this.inclusionDegrees.get(0).getSecond());
-            this.viewMatchesButton.setEnabled(true);
-            this.drawSortedMatchesButton.setEnabled(true);
-            this.explainMatchesButton.setEnabled(true);
+        Graph selectedGraph = this.getSelectedGraph();
+        if (selectedGraph != null) {
+            this.queryDatabase(selectedGraph);
         }
     }//GEN-LAST:event_matchingButtonActionPerformed
 
@@ -588,7 +704,7 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
 
     private void drawSortedMatchesButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_drawSortedMatchesButtonActionPerformed
         ImageListInternalFrame listFrame = new ImageListInternalFrame();
-        listFrame.setTitle("Sorted matches.");
+        listFrame.setTitle("Sorted matches: best " + this.inclusionDegrees.size() + " of " + this.sourceGraphDatabase.size() + " graphs.");
         GraphPlotter gp = new GraphPlotter();
         for(Tuple<Integer, Double> match: this.inclusionDegrees) {
             Graph graph = this.sourceGraphDatabase.get(match.getFirst());
@@ -628,7 +744,7 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
         if (this.queryGraph != null && !this.inclusionDegrees.isEmpty()) {
             int bestGraphIdx = this.inclusionDegrees.get(0).getFirst();
             Graph sourceGraph = this.sourceGraphDatabase.get(bestGraphIdx);
-            Map<String, Map<String, Double>> similarities = fuzzyGraphMatching.computeSimilarities(sourceGraph.getNodes(), this.queryGraph.getNodes());
+            NodeSimilarityMatrix similarities = fuzzyGraphMatching.computeSimilarityMatrix(sourceGraph.getNodes(), this.queryGraph.getNodes());
             Tuple<ListOfMatches, ListOfMatches> matches = fuzzyGraphMatching.computeMatching(this.sourceGraphDatabase.get(bestGraphIdx), this.queryGraph, similarities);
             
             JInternalFrame internalFrame = new JInternalFrame("Matches explanation.", true, true, true);
@@ -651,7 +767,7 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
                 }
             } else {
                 for (Tuple<String, String> nodesMatch : matches.getFirst()) {
-                    double inclusionDegree = similarities.get(nodesMatch.getFirst()).get(nodesMatch.getSecond());
+                    double inclusionDegree = similarities.get(nodesMatch.getFirst(), nodesMatch.getSecond());
                     areaTextBuilder.append(nodesMatch.getFirst()).append(" -> ").append(nodesMatch.getSecond()).append(": ").append(inclusionDegree).append("\n");
                 }
             }
@@ -670,9 +786,12 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
 
     private void generateRandomGraphSourceDBButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_generateRandomGraphSourceDBButtonActionPerformed
         try {
-            this.sourceGraphDatabase.buildRandomDatabase(1000);
+            RegionDescriptorCache regionDescriptorCache = new RegionDescriptorCache(new File(System.getProperty("user.dir") + "/region_descriptors.json"),
+                    BuildGraph.REGION_DESCRIPTOR_BUILDER_KEY);
+            this.discardQuery();
+            this.sourceGraphDatabase.buildRandomDatabase(1000, regionDescriptorCache);
             this.changeSourceDBButtonsVisibility(true);
-            this.sourceGraphDatabase.saveDatabase(System.getProperty("user.dir") + "/random_database.json");
+            this.sourceGraphDatabase.saveDatabase(System.getProperty("user.dir") + "/random_database.ifgdb");
         } catch (IOException ex) {
             Logger.getLogger(ImageFuzzyGraphFrame.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -718,12 +837,6 @@ public class ImageFuzzyGraphFrame extends javax.swing.JFrame {
         try {
             Graph textSearchGraph = bg.buildGraph("text_search_graph", regions, labels);
             this.queryDatabase(textSearchGraph);
-            this.queryGraph = textSearchGraph;
-            Graph bestMatchGraph = this.sourceGraphDatabase.get(this.inclusionDegrees.get(0).getFirst());
-            this.plotGraphInInternalFrame(bestMatchGraph, bestMatchGraph.getId() + ": " + this.inclusionDegrees.get(0).getSecond());
-            this.viewMatchesButton.setEnabled(true);
-            this.drawSortedMatchesButton.setEnabled(true);
-            this.explainMatchesButton.setEnabled(true);
         } catch (IOException ex) {
             Logger.getLogger(ImageFuzzyGraphFrame.class.getName()).log(Level.SEVERE, null, ex);
         }
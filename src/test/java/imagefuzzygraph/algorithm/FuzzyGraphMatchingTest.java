@@ -0,0 +1,110 @@
+package imagefuzzygraph.algorithm;
+
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.AggregationOperators;
+import imagefuzzygraph.data.CompiledDescriptor;
+import imagefuzzygraph.data.CompiledDescriptorTable;
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.NodeSimilarityMatrix;
+import imagefuzzygraph.data.PropertyWithDegree;
+import imagefuzzygraph.graph.CompactGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link FuzzyGraphMatching}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class FuzzyGraphMatchingTest {
+
+    /**
+     * Number of terms of every kind of descriptor.
+     */
+    private static final int VOCABULARY_SIZE = 8;
+
+    /**
+     * A matching with a cutoff under {@link AggregationOperators#all()} returns the exact inclusion degree whenever it
+     * is not below the cutoff, and {@link FuzzyGraphMatching#BELOW_CUTOFF} only when it is.
+     */
+    @Test
+    public void cutoffKeepsInclusionsAboveIt() {
+        Random random = new Random(19);
+        FuzzyGraphMatching fuzzyGraphMatching = new FuzzyGraphMatching();
+        AggregationOperator all = AggregationOperators.all();
+        int abandonedMatchings = 0;
+        for (int g = 0; g < 500; g++) {
+            CompactGraph source = buildGraph(random, "source");
+            CompactGraph query = buildGraph(random, "query");
+            NodeSimilarityMatrix similarities = fuzzyGraphMatching.computeSimilarityMatrix(source, query);
+            double inclusion = fuzzyGraphMatching.computeInclusion(source, query, similarities, all);
+            for (double cutoff : new double[]{0.0, inclusion, Math.nextUp(inclusion), random.nextDouble()}) {
+                double inclusionWithCutoff = fuzzyGraphMatching.computeInclusion(source, query, similarities, all, cutoff);
+                if (inclusion >= cutoff) {
+                    assertEquals(inclusion, inclusionWithCutoff, "graph " + g + " with cutoff " + cutoff);
+                } else if (inclusionWithCutoff == FuzzyGraphMatching.BELOW_CUTOFF) {
+                    abandonedMatchings++;
+                } else {
+                    assertEquals(inclusion, inclusionWithCutoff, "graph " + g + " with cutoff " + cutoff);
+                }
+            }
+        }
+        assertTrue(abandonedMatchings > 0);
+    }
+
+    /**
+     * Build a random compact graph with at least one node.
+     *
+     * @param random random generator.
+     * @param id     id of the graph.
+     * @return the graph.
+     */
+    private static CompactGraph buildGraph(Random random, String id) {
+        int numberOfNodes = 1 + random.nextInt(5);
+        int numberOfEdges = random.nextInt(2 * numberOfNodes);
+        String[] nodeIds = new String[numberOfNodes];
+        List<CompiledDescriptor> colorFuzzyDescriptors = new ArrayList<>();
+        List<CompiledDescriptor> labelDescriptors = new ArrayList<>();
+        for (int n = 0; n < numberOfNodes; n++) {
+            nodeIds[n] = "node_" + n;
+            colorFuzzyDescriptors.add(buildDescriptor(random, "color"));
+            labelDescriptors.add(buildDescriptor(random, "label"));
+        }
+        String[] edgeIds = new String[numberOfEdges];
+        int[] startNodes = new int[numberOfEdges];
+        int[] endNodes = new int[numberOfEdges];
+        List<CompiledDescriptor> spatialRelationshipFuzzyDescriptors = new ArrayList<>();
+        for (int e = 0; e < numberOfEdges; e++) {
+            edgeIds[e] = "edge_" + e;
+            startNodes[e] = random.nextInt(numberOfNodes);
+            endNodes[e] = random.nextInt(numberOfNodes);
+            spatialRelationshipFuzzyDescriptors.add(buildDescriptor(random, "relation"));
+        }
+        return new CompactGraph(id, nodeIds, edgeIds, startNodes, endNodes, new CompiledDescriptorTable(colorFuzzyDescriptors),
+                new CompiledDescriptorTable(labelDescriptors), new CompiledDescriptorTable(spatialRelationshipFuzzyDescriptors));
+    }
+
+    /**
+     * Build a random compiled descriptor, which may be empty and may repeat terms.
+     *
+     * @param random random generator.
+     * @param kind   prefix of the terms.
+     * @return the compiled descriptor.
+     */
+    private static CompiledDescriptor buildDescriptor(Random random, String kind) {
+        Descriptor descriptor = new Descriptor();
+        int size = random.nextInt(6) == 0 ? 0 : 1 + random.nextInt(3);
+        for (int p = 0; p < size; p++) {
+            String term = kind + "_" + random.nextInt(VOCABULARY_SIZE);
+            double[] degrees = {0.0, 1.0, 0.5, random.nextDouble(), random.nextDouble()};
+            descriptor.add(new PropertyWithDegree(term, degrees[random.nextInt(degrees.length)]));
+        }
+        return new CompiledDescriptor(descriptor);
+    }
+}
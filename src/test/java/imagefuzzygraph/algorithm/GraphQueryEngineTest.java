@@ -0,0 +1,259 @@
+package imagefuzzygraph.algorithm;
+
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.AggregationOperators;
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.GradedResemblance;
+import imagefuzzygraph.data.Implications;
+import imagefuzzygraph.data.PropertyWithDegree;
+import imagefuzzygraph.data.TNorms;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.Edge;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graph.Node;
+import imagefuzzygraph.graphdb.GraphDatabase;
+import imagefuzzygraph.graphdb.SyntheticGraphGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link GraphQueryEngine}, comparing its best matches with a stable sort of the inclusion degrees of the
+ * whole database.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class GraphQueryEngineTest {
+
+    /**
+     * Numbers of best matches requested, from a single one to more than the size of the database.
+     */
+    private static final int[] KS = {1, 3, 10, 40, 200};
+
+    /**
+     * Engines of the tests: one scoring the database sequentially, so the k-th best inclusion degree is known early,
+     * and one scoring several partitions at the same time.
+     */
+    private static final GraphQueryEngine[] ENGINES = {new GraphQueryEngine(new ForkJoinPool(1)), new GraphQueryEngine(new ForkJoinPool(4))};
+
+    /**
+     * Database of the tests, made of copies of a few graphs with some degrees raised, so the inclusion degrees of the
+     * copies in the original graphs are graded and many of them are the same.
+     */
+    private final List<Graph> database = new ArrayList<>();
+
+    /**
+     * Query graphs of the tests.
+     */
+    private final List<Graph> queries = new ArrayList<>();
+
+    /**
+     * Build the database and the queries.
+     */
+    public GraphQueryEngineTest() {
+        Random random = new Random(23);
+        SyntheticGraphGenerator syntheticGraphGenerator = new SyntheticGraphGenerator(29, 1, 5, 0.5);
+        List<Graph> graphs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            graphs.add(syntheticGraphGenerator.nextGraph());
+        }
+        for (int i = 0; i < 150; i++) {
+            this.database.add(raiseDegrees(graphs.get(random.nextInt(graphs.size())), random));
+        }
+        for (int q = 0; q < 6; q++) {
+            this.queries.add(q % 2 == 0 ? graphs.get(random.nextInt(graphs.size())) : syntheticGraphGenerator.nextGraph());
+        }
+    }
+
+    /**
+     * The best matches of a query are the first k graphs of a stable sort of the database, and the upper bound of the
+     * inclusion degree prunes some graphs.
+     */
+    @Test
+    public void queryMatchesFullSort() {
+        for (GraphQueryEngine engine : ENGINES) {
+            long prunedGraphs = engine.getPrunedGraphs();
+            for (AggregationOperator aggregationOperator : new AggregationOperator[]{AggregationOperators.all(), AggregationOperators.atLeast(0.3, 0.8)}) {
+                for (Graph query : this.queries) {
+                    for (int k : KS) {
+                        assertSameMatches(this.fullSort(query, aggregationOperator, k),
+                                engine.query(this.database, query, aggregationOperator, k), query.getId() + " with k " + k);
+                    }
+                }
+            }
+            assertTrue(engine.getPrunedGraphs() > prunedGraphs);
+        }
+    }
+
+    /**
+     * The matchings abandoned under {@link AggregationOperators#all()}, once they fall below the k-th best inclusion
+     * degree, do not change the best matches.
+     */
+    @Test
+    public void abandonedMatchingsKeepFullSort() {
+        AggregationOperator all = AggregationOperators.all();
+        for (GraphQueryEngine engine : ENGINES) {
+            long abandonedMatchings = engine.getAbandonedMatchings();
+            for (Graph query : this.queries) {
+                for (int k : KS) {
+                    assertSameMatches(this.fullSort(query, all, k), engine.query(this.database, query, all, k),
+                            query.getId() + " with k " + k);
+                }
+            }
+            assertTrue(engine.getAbandonedMatchings() > abandonedMatchings);
+        }
+    }
+
+    /**
+     * The best matches of every query of a batch, and of a query of a stream of graphs, are the first k graphs of a
+     * stable sort of the database.
+     */
+    @Test
+    public void queryAllAndStreamMatchFullSort() {
+        for (GraphQueryEngine engine : ENGINES) {
+            for (AggregationOperator aggregationOperator : new AggregationOperator[]{AggregationOperators.all(), AggregationOperators.atLeast(0.3, 0.8)}) {
+                for (int k : KS) {
+                    List<ArrayList<Tuple<Integer, Double>>> results = engine.queryAll(this.database, this.queries, aggregationOperator, k);
+                    assertEquals(this.queries.size(), results.size());
+                    for (int q = 0; q < this.queries.size(); q++) {
+                        Graph query = this.queries.get(q);
+                        List<Tuple<Integer, Double>> expected = this.fullSort(query, aggregationOperator, k);
+                        assertSameMatches(expected, results.get(q), query.getId() + " in a batch with k " + k);
+                        assertSameMatches(expected, engine.query(this.database.iterator(), query, aggregationOperator, k),
+                                query.getId() + " in a stream with k " + k);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An engine built with a matching other than the default one, with a graded resemblance relation between colors,
+     * returns the first k graphs of a stable sort by the inclusion degrees of that matching, scoring the candidates of
+     * the database for that matching, which are all its graphs.
+     */
+    @Test
+    public void queryWithMatchingMatchesFullSort() {
+        Map<Tuple<String, String>, Double> resemblances = new HashMap<>();
+        resemblances.put(new Tuple<>("red", "orange"), 0.8);
+        resemblances.put(new Tuple<>("pink", "red"), 0.6);
+        resemblances.put(new Tuple<>("yellow", "olive"), 0.5);
+        resemblances.put(new Tuple<>("yellowgreen", "green"), 0.7);
+        resemblances.put(new Tuple<>("white", "gray"), 0.4);
+        FuzzyGraphMatching fuzzyGraphMatching = new FuzzyGraphMatching(TNorms.PRODUCT, Implications.LUKASIEWICZ,
+                new GradedResemblance(resemblances));
+        GraphQueryEngine engine = new GraphQueryEngine(new ForkJoinPool(4), 4, fuzzyGraphMatching);
+        GraphDatabase graphDatabase = new GraphDatabase();
+        graphDatabase.addAll(this.database);
+        int[] allGraphs = new int[graphDatabase.size()];
+        Arrays.setAll(allGraphs, i -> i);
+        for (AggregationOperator aggregationOperator : new AggregationOperator[]{AggregationOperators.all(), AggregationOperators.atLeast(0.3, 0.8)}) {
+            for (Graph query : this.queries) {
+                int[] candidates = graphDatabase.getCandidates(query, aggregationOperator, engine.getFuzzyGraphMatching());
+                assertArrayEquals(allGraphs, candidates, query.getId());
+                for (int k : KS) {
+                    assertSameMatches(this.fullSort(fuzzyGraphMatching, query, aggregationOperator, k),
+                            engine.query(graphDatabase, candidates, query, aggregationOperator, k, (scoredGraphs, totalGraphs) -> {
+                            }, () -> false), query.getId() + " with k " + k);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy a graph raising the degrees of some terms of its nodes and edges, or keeping them all.
+     *
+     * @param graph  graph to be copied.
+     * @param random random generator choosing the terms and the degrees.
+     * @return the copy of the graph.
+     */
+    static Graph raiseDegrees(Graph graph, Random random) {
+        if (random.nextBoolean()) {
+            return new Graph(graph);
+        }
+        List<Node> nodes = new ArrayList<>();
+        for (Node node : graph.getNodes()) {
+            nodes.add(new Node(node.getId(), raiseDegrees(node.getColorFuzzyDescriptor(), random),
+                    raiseDegrees(node.getLabelDescriptor(), random), node.getImagePath(), node.getLocation()));
+        }
+        List<Edge> edges = new ArrayList<>();
+        for (Edge edge : graph.getEdges()) {
+            edges.add(new Edge(edge.getId(), edge.getStartNodeId(), edge.getEndNodeId(),
+                    raiseDegrees(edge.getSpatialRelationshipFuzzyDescriptor(), random)));
+        }
+        return new Graph(graph.getId(), nodes, edges);
+    }
+
+    /**
+     * Copy a descriptor raising the degrees of some of its terms to a random degree between their degree and 1.
+     *
+     * @param descriptor descriptor to be copied.
+     * @param random     random generator choosing the terms and the degrees.
+     * @return the copy of the descriptor.
+     */
+    private static Descriptor raiseDegrees(Descriptor descriptor, Random random) {
+        Descriptor copy = new Descriptor();
+        for (PropertyWithDegree property : descriptor) {
+            double degree = property.getDegree();
+            copy.add(new PropertyWithDegree(property.getLabel(), random.nextInt(3) == 0 ? degree + (1.0 - degree) * random.nextDouble() : degree));
+        }
+        return copy;
+    }
+
+    /**
+     * Return the first k graphs of a stable sort of the database in descending order by inclusion degree of a query.
+     *
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   number of matches to return.
+     * @return list of tuples with the position and the inclusion degree of every match.
+     */
+    private List<Tuple<Integer, Double>> fullSort(Graph query, AggregationOperator aggregationOperator, int k) {
+        return this.fullSort(new FuzzyGraphMatching(), query, aggregationOperator, k);
+    }
+
+    /**
+     * Return the first k graphs of a stable sort of the database in descending order by inclusion degree of a query,
+     * computed by a matching.
+     *
+     * @param fuzzyGraphMatching  matching computing the inclusion degrees.
+     * @param query               query graph.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param k                   number of matches to return.
+     * @return list of tuples with the position and the inclusion degree of every match.
+     */
+    private List<Tuple<Integer, Double>> fullSort(FuzzyGraphMatching fuzzyGraphMatching, Graph query, AggregationOperator aggregationOperator, int k) {
+        List<Tuple<Integer, Double>> matches = new ArrayList<>();
+        for (int i = 0; i < this.database.size(); i++) {
+            matches.add(new Tuple<>(i, fuzzyGraphMatching.computeInclusion(this.database.get(i), query, aggregationOperator)));
+        }
+        matches.sort(Comparator.comparing(Tuple<Integer, Double>::getSecond).reversed());
+        return matches.subList(0, Math.min(k, matches.size()));
+    }
+
+    /**
+     * Check that two lists of matches have the same positions and inclusion degrees, in the same order.
+     *
+     * @param expected matches expected.
+     * @param actual   matches found.
+     * @param where    description of the case checked.
+     */
+    private static void assertSameMatches(List<Tuple<Integer, Double>> expected, List<Tuple<Integer, Double>> actual, String where) {
+        assertEquals(expected.size(), actual.size(), where);
+        for (int m = 0; m < expected.size(); m++) {
+            assertEquals(Arrays.asList(expected.get(m).getFirst(), expected.get(m).getSecond()),
+                    Arrays.asList(actual.get(m).getFirst(), actual.get(m).getSecond()), "match " + m + " of " + where);
+        }
+    }
+}
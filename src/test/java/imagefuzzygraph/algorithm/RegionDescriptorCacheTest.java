@@ -0,0 +1,128 @@
+package imagefuzzygraph.algorithm;
+
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.PropertyWithDegree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link RegionDescriptorCache}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class RegionDescriptorCacheTest {
+
+    /**
+     * Key of the builder of the descriptors of the tests.
+     */
+    private static final String BUILDER_KEY = "test/v1";
+
+    /**
+     * Directory of the images and the cache files of a test.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * The descriptors persisted by a cache are served by a new cache of the same file and builder, without building
+     * them again.
+     */
+    @Test
+    public void persistedDescriptorsAreReused() throws IOException {
+        File image = this.writeImage("region.png");
+        File cacheFile = this.directory.resolve("region_descriptors.json").toFile();
+        AtomicInteger builtDescriptors = new AtomicInteger();
+        Function<BufferedImage, Descriptor> builder = countingBuilder(builtDescriptors, 0.5);
+
+        RegionDescriptorCache cache = new RegionDescriptorCache(cacheFile, BUILDER_KEY);
+        cache.get(image, builder);
+        cache.save();
+        RegionDescriptorCache reloaded = new RegionDescriptorCache(cacheFile, BUILDER_KEY);
+
+        assertEquals(1, reloaded.size());
+        assertEquals(0.5, reloaded.get(image, builder).get(0).getDegree());
+        assertEquals(1, builtDescriptors.get());
+    }
+
+    /**
+     * A file written by another builder of the descriptors, or with another version of the format, is ignored.
+     */
+    @Test
+    public void filesOfOtherBuildersOrVersionsAreIgnored() throws IOException {
+        File image = this.writeImage("region.png");
+        File cacheFile = this.directory.resolve("region_descriptors.json").toFile();
+        RegionDescriptorCache cache = new RegionDescriptorCache(cacheFile, BUILDER_KEY);
+        cache.get(image, countingBuilder(new AtomicInteger(), 0.5));
+        cache.save();
+
+        assertEquals(0, new RegionDescriptorCache(cacheFile, "test/v2").size());
+
+        String content = new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.contains("\"version\":1"));
+        Files.write(cacheFile.toPath(), content.replace("\"version\":1", "\"version\":0").getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, new RegionDescriptorCache(cacheFile, BUILDER_KEY).size());
+    }
+
+    /**
+     * A cache which can not be written leaves neither its file nor a temporary file behind.
+     */
+    @Test
+    public void failedSaveLeavesNoTemporaryFile() throws IOException {
+        File image = this.writeImage("region.png");
+        File cacheFile = this.directory.resolve("region_descriptors.json").toFile();
+        RegionDescriptorCache cache = new RegionDescriptorCache(cacheFile, BUILDER_KEY);
+        // JSON can not represent NaN, so serializing the descriptor fails.
+        cache.get(image, countingBuilder(new AtomicInteger(), Double.NaN));
+
+        assertThrows(IllegalArgumentException.class, cache::save);
+        try (Stream<Path> files = Files.list(this.directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    /**
+     * Write a small image to the directory of the test.
+     *
+     * @param name name of the file.
+     * @return the file of the image.
+     * @throws IOException exception thrown if the image can not be written.
+     */
+    private File writeImage(String name) throws IOException {
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xff0000);
+        File file = this.directory.resolve(name).toFile();
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+
+    /**
+     * Return a builder of descriptors with a single property, counting how many descriptors it builds.
+     *
+     * @param builtDescriptors counter of the descriptors built.
+     * @param degree           degree of the property.
+     * @return the builder.
+     */
+    private static Function<BufferedImage, Descriptor> countingBuilder(AtomicInteger builtDescriptors, double degree) {
+        return image -> {
+            builtDescriptors.incrementAndGet();
+            Descriptor descriptor = new Descriptor();
+            descriptor.add(new PropertyWithDegree("red", degree));
+            return descriptor;
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package imagefuzzygraph.algorithm;
+
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.PropertyWithDegree;
+import jfi.fuzzy.FunctionBasedFuzzySet;
+import jfi.fuzzy.FuzzySetCollection;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of {@link SpatialRelationshipLookupTable}, comparing the descriptors looked up in the table of the directions
+ * with the possibility distributions of the fuzzy sets of the directions.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class SpatialRelationshipLookupTableTest {
+
+    /**
+     * Maximum difference allowed between a degree looked up in the table and the degree of the fuzzy set. The table is
+     * exact at its samples and interpolates linear segments between them, so only rounding errors are expected.
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Points of the trapezoids of the directions where their degrees change slope.
+     */
+    private static final double[] BREAKPOINTS = {0.0, 20.0, 70.0, 110.0, 160.0, 200.0, 250.0, 290.0, 340.0, 360.0};
+
+    /**
+     * Lookup table of the directions.
+     */
+    private final SpatialRelationshipLookupTable table = new SpatialRelationshipLookupTable(BuildGraph.DIRECTIONS);
+
+    /**
+     * The directions of the four axes are looked up exactly.
+     */
+    @Test
+    public void axes() {
+        for (double angle : new double[]{0.0, 90.0, 180.0, 270.0, 360.0}) {
+            this.assertMatchesFuzzySets(angle);
+        }
+    }
+
+    /**
+     * The degrees match at the breakpoints of the trapezoids and around them, where a direction enters or leaves the
+     * descriptor.
+     */
+    @Test
+    public void breakpoints() {
+        for (double breakpoint : BREAKPOINTS) {
+            for (double offset : new double[]{0.0, 1e-9, 1e-7, 0.01, 0.05, 0.1, 0.15}) {
+                this.assertMatchesFuzzySets(Math.max(0.0, breakpoint - offset));
+                this.assertMatchesFuzzySets(Math.min(360.0, breakpoint + offset));
+            }
+        }
+    }
+
+    /**
+     * The degrees match every hundredth of a degree and at random angles, between the samples of the table.
+     */
+    @Test
+    public void sweep() {
+        for (int i = 0; i <= 360 * 100; i++) {
+            this.assertMatchesFuzzySets(i / 100.0);
+        }
+        Random random = new Random(5);
+        for (int i = 0; i < 100000; i++) {
+            this.assertMatchesFuzzySets(360.0 * random.nextDouble());
+        }
+    }
+
+    /**
+     * A graph builder using the table builds the same spatial relationships as one evaluating the fuzzy sets, for points
+     * in every direction.
+     */
+    @Test
+    public void buildGraph() {
+        BuildGraph withTable = new BuildGraph(true);
+        BuildGraph withoutTable = new BuildGraph(false);
+        double[][] points = new double[3600 + 4][];
+        for (int i = 0; i < 3600; i++) {
+            double angle = Math.toRadians(i / 10.0);
+            points[i] = new double[]{Math.floor(1000.0 * Math.cos(angle)), Math.floor(1000.0 * Math.sin(angle))};
+        }
+        points[3600] = new double[]{1.0, 0.0};
+        points[3601] = new double[]{0.0, 1.0};
+        points[3602] = new double[]{-1.0, 0.0};
+        points[3603] = new double[]{0.0, -1.0};
+        for (double[] point : points) {
+            Descriptor expected = withoutTable.buildSpatialRelationshipFuzzyDescriptor(0.0, 0.0, point[0], point[1]);
+            Descriptor actual = withTable.buildSpatialRelationshipFuzzyDescriptor(0.0, 0.0, point[0], point[1]);
+            assertSameDegrees(getDegrees(expected), getDegrees(actual), "point (" + point[0] + ", " + point[1] + ")");
+        }
+    }
+
+    /**
+     * Check that the descriptor of an angle looked up in the table has the degrees of the possibility distribution of
+     * the directions.
+     *
+     * @param angle angle between 0 and 360 degrees.
+     */
+    private void assertMatchesFuzzySets(double angle) {
+        Map<String, Double> expected = new HashMap<>();
+        for (FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem pdItem : BuildGraph.DIRECTIONS.getPossibilityDistribution(angle)) {
+            expected.merge(pdItem.fuzzySet.getLabel(), pdItem.degree, Math::max);
+        }
+        assertSameDegrees(expected, getDegrees(this.table.getDescriptor(angle)), "angle " + angle);
+    }
+
+    /**
+     * Return the degree of every label of a descriptor.
+     *
+     * @param descriptor fuzzy descriptor.
+     * @return the highest degree of every label of the descriptor.
+     */
+    private static Map<String, Double> getDegrees(Descriptor descriptor) {
+        Map<String, Double> degrees = new HashMap<>();
+        for (PropertyWithDegree property : descriptor) {
+            degrees.merge(property.getLabel(), property.getDegree(), Math::max);
+        }
+        return degrees;
+    }
+
+    /**
+     * Check that two sets of degrees are the same up to {@link #EPSILON}, a missing label having degree 0.
+     *
+     * @param expected degrees expected.
+     * @param actual   degrees found.
+     * @param where    description of the case checked.
+     */
+    private static void assertSameDegrees(Map<String, Double> expected, Map<String, Double> actual, String where) {
+        Set<String> labels = new HashSet<>(expected.keySet());
+        labels.addAll(actual.keySet());
+        for (String label : labels) {
+            assertEquals(expected.getOrDefault(label, 0.0), actual.getOrDefault(label, 0.0), EPSILON, label + " at " + where);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package imagefuzzygraph.data;
+
+import jfi.fuzzy.FunctionBasedFuzzySet;
+import jfi.fuzzy.FuzzySetCollection;
+import jfi.fuzzy.membershipfunction.TrapezoidalFunction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link AggregationOperators}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class AggregationOperatorsTest {
+
+    /**
+     * Maximum difference allowed between the degrees computed in closed form and by the fuzzy sets.
+     */
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * Pairs of points where the trapezoidal function of <i>at least</i> changes.
+     */
+    private static final double[][] POINTS = {{0.3, 0.8}, {0.0, 1.0}, {0.5, 0.5001}, {0.1, 0.2}, {0.7, 0.9}};
+
+    /**
+     * The closed form of <i>at least</i> computes the same degree as the trapezoidal fuzzy set it replaced, both
+     * through {@link AggregationOperator#aggregate(double[], int)} and through {@link AggregationOperator#apply}, at the
+     * points of the trapezoid and for random collections, and its upper bound is not lower than the degree of any
+     * collection with the same maximum.
+     */
+    @Test
+    public void atLeastMatchesTrapezoid() {
+        Random random = new Random(31);
+        for (double[] points : POINTS) {
+            double alpha = points[0];
+            double beta = points[1];
+            AggregationOperator atLeast = AggregationOperators.atLeast(alpha, beta);
+            for (double value : new double[]{0.0, alpha, Math.nextUp(alpha), (alpha + beta) / 2.0, Math.nextDown(beta), beta, 1.0}) {
+                assertAtLeast(atLeast, alpha, beta, new double[]{value});
+            }
+            for (int c = 0; c < 1000; c++) {
+                double[] values = new double[1 + random.nextInt(10)];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = random.nextInt(4) == 0 ? random.nextInt(2) : random.nextDouble();
+                }
+                assertAtLeast(atLeast, alpha, beta, values);
+            }
+        }
+    }
+
+    /**
+     * Check that <i>at least</i> aggregates a collection as the trapezoidal fuzzy set, and that its upper bound holds.
+     *
+     * @param atLeast operator <i>at least</i>.
+     * @param alpha   first point where the function changes.
+     * @param beta    second point where the function changes.
+     * @param values  collection of degrees.
+     */
+    private static void assertAtLeast(AggregationOperator atLeast, double alpha, double beta, double[] values) {
+        ArrayList<Double> collection = new ArrayList<>();
+        for (double value : values) {
+            collection.add(value);
+        }
+        double expected = trapezoid(collection, alpha, beta);
+        String where = collection + " with alpha " + alpha + " and beta " + beta;
+        assertEquals(expected, atLeast.aggregate(values, values.length), EPSILON, where);
+        assertEquals(expected, atLeast.apply(collection), EPSILON, where);
+        assertTrue(atLeast.upperBound(Collections.max(collection)) >= atLeast.aggregate(values, values.length), where);
+    }
+
+    /**
+     * Compute <i>at least</i> as it was computed before its closed form, with the possibility distribution of a
+     * trapezoidal fuzzy set.
+     *
+     * @param collection collection of degrees.
+     * @param alpha      first point where the function changes.
+     * @param beta       second point where the function changes.
+     * @return the membership degree of the sigma count of the collection.
+     */
+    private static double trapezoid(ArrayList<Double> collection, double alpha, double beta) {
+        double sigmaCount = collection.stream().mapToDouble(i -> i).sum() / collection.size();
+        FunctionBasedFuzzySet<Double> atLeast = new FunctionBasedFuzzySet<>("atLeast", new TrapezoidalFunction<>(alpha, beta, 1.0, 1.0));
+        FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double> fsc = new FuzzySetCollection<>(Collections.singletonList(atLeast));
+        ArrayList<FuzzySetCollection<FunctionBasedFuzzySet<Double>, Double>.PossibilityDistributionItem> pd = fsc.getPossibilityDistribution(sigmaCount);
+        return pd.isEmpty() ? 0.0 : pd.get(0).degree;
+    }
+}
@@ -0,0 +1,125 @@
+package imagefuzzygraph.graph;
+
+import imagefuzzygraph.graphdb.SyntheticGraphGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of {@link Graph}, comparing the adjacent edges of its nodes with an adjacency list updated as it was before
+ * the graph indexed the incoming edges of every node.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class GraphTest {
+
+    /**
+     * After deleting nodes in a random order, the adjacent edges of every node are the edges of an adjacency list from
+     * which the deleted nodes and every edge with one of them as origin or destination have been removed, for complete
+     * graphs, sparse graphs, and graphs with loops and repeated edges.
+     */
+    @Test
+    public void deleteNodeMatchesAdjacencyList() {
+        Random random = new Random(41);
+        SyntheticGraphGenerator completeGraphs = new SyntheticGraphGenerator(43, 2, 12, 1.0);
+        SyntheticGraphGenerator sparseGraphs = new SyntheticGraphGenerator(47, 1, 12, 0.3);
+        for (int g = 0; g < 100; g++) {
+            Graph graph = (g % 2 == 0 ? completeGraphs : sparseGraphs).nextGraph();
+            if (g % 5 == 0) {
+                graph = withLoopsAndRepeatedEdges(graph, random);
+            }
+            Map<String, LinkedHashSet<Edge>> adjacencyList = buildAdjacencyList(graph);
+            List<Node> nodes = new ArrayList<>(graph.getNodes());
+            Collections.shuffle(nodes, random);
+            for (Node node : nodes) {
+                graph.deleteNode(node.getId());
+                adjacencyList.remove(node.getId());
+                adjacencyList.values().forEach(edges -> edges.removeIf(edge ->
+                        edge.getStartNodeId().equals(node.getId()) || edge.getEndNodeId().equals(node.getId())));
+                for (Node other : graph.getNodes()) {
+                    assertEquals(getIds(adjacencyList.getOrDefault(other.getId(), new LinkedHashSet<>())),
+                            getIds(graph.getAdjacentEdges(other.getId())),
+                            other.getId() + " of " + graph.getId() + " after deleting " + node.getId());
+                }
+            }
+            graph.deleteNode("missing_node");
+        }
+    }
+
+    /**
+     * The nodes deleted from a graph are not deleted from a copy of it, built before or after the deletion.
+     */
+    @Test
+    public void copiesKeepDeletedNodes() {
+        Graph graph = new SyntheticGraphGenerator(53, 4, 4, 1.0).nextGraph();
+        Graph copyBefore = new Graph(graph);
+        Map<String, LinkedHashSet<Edge>> adjacencyList = buildAdjacencyList(graph);
+        String deletedNode = graph.getNodes().get(0).getId();
+        graph.deleteNode(deletedNode);
+        Graph copyAfter = new Graph(graph);
+        for (Node node : graph.getNodes()) {
+            List<String> expected = getIds(adjacencyList.get(node.getId()));
+            assertEquals(expected, getIds(copyBefore.getAdjacentEdges(node.getId())), node.getId());
+            assertEquals(expected, getIds(copyAfter.getAdjacentEdges(node.getId())), node.getId());
+        }
+        assertEquals(Collections.emptyList(), getIds(graph.getAdjacentEdges(deletedNode)));
+    }
+
+    /**
+     * Build the adjacency list of a graph, mapping every node to its outgoing edges in the order of the edges.
+     *
+     * @param graph graph.
+     * @return the adjacency list of the graph.
+     */
+    private static Map<String, LinkedHashSet<Edge>> buildAdjacencyList(Graph graph) {
+        Map<String, LinkedHashSet<Edge>> adjacencyList = new HashMap<>();
+        for (Node node : graph.getNodes()) {
+            adjacencyList.put(node.getId(), new LinkedHashSet<>());
+        }
+        for (Edge edge : graph.getEdges()) {
+            adjacencyList.get(edge.getStartNodeId()).add(edge);
+        }
+        return adjacencyList;
+    }
+
+    /**
+     * Copy a graph adding a loop to a random node and repeating a random edge, if it has any.
+     *
+     * @param graph  graph to be copied.
+     * @param random random generator choosing the node and the edge.
+     * @return the copy of the graph.
+     */
+    private static Graph withLoopsAndRepeatedEdges(Graph graph, Random random) {
+        List<Edge> edges = new ArrayList<>(graph.getEdges());
+        Node node = graph.getNodes().get(random.nextInt(graph.getNodes().size()));
+        edges.add(new Edge("loop", node.getId(), node.getId(), null));
+        if (!graph.getEdges().isEmpty()) {
+            Edge edge = graph.getEdges().get(random.nextInt(graph.getEdges().size()));
+            edges.add(new Edge("repeated", edge.getStartNodeId(), edge.getEndNodeId(), null));
+        }
+        return new Graph(graph.getId(), graph.getNodes(), edges);
+    }
+
+    /**
+     * Return the ids of some edges, in their order.
+     *
+     * @param edges edges.
+     * @return the ids of the edges.
+     */
+    private static List<String> getIds(Collection<Edge> edges) {
+        List<String> ids = new ArrayList<>();
+        for (Edge edge : edges) {
+            ids.add(edge.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,204 @@
+package imagefuzzygraph.graphdb;
+
+import com.google.gson.Gson;
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.PropertyWithDegree;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.Edge;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graph.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link BinaryGraphDatabaseFormat}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class BinaryGraphDatabaseFormatTest {
+
+    /**
+     * Directory of the files written by the tests.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Every field of the graphs, including null values and non-ASCII strings, is read as it was written.
+     *
+     * @throws IOException exception thrown if the file can not be written or read.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        List<Graph> graphs = buildGraphs();
+        File file = this.directory.resolve("graphs.ifgdb").toFile();
+        BinaryGraphDatabaseFormat.write(graphs, file);
+
+        assertTrue(BinaryGraphDatabaseFormat.isBinaryFile(file));
+        assertSameGraphs(graphs, BinaryGraphDatabaseFormat.read(file));
+        ArrayList<Graph> streamed = new ArrayList<>();
+        BinaryGraphDatabaseFormat.read(file, streamed::add);
+        assertSameGraphs(graphs, streamed);
+    }
+
+    /**
+     * Writing the graphs of an iterator produces the same file as writing a list.
+     *
+     * @throws IOException exception thrown if the files can not be written.
+     */
+    @Test
+    public void iteratorWritesSameFile() throws IOException {
+        List<Graph> graphs = buildGraphs();
+        File fromList = this.directory.resolve("list.ifgdb").toFile();
+        File fromIterator = this.directory.resolve("iterator.ifgdb").toFile();
+        BinaryGraphDatabaseFormat.write(graphs, fromList);
+        BinaryGraphDatabaseFormat.write(graphs.iterator(), fromIterator);
+
+        assertArrayEquals(Files.readAllBytes(fromList.toPath()), Files.readAllBytes(fromIterator.toPath()));
+    }
+
+    /**
+     * Identical descriptors are stored once and read as a single shared descriptor.
+     *
+     * @throws IOException exception thrown if the file can not be written or read.
+     */
+    @Test
+    public void identicalDescriptorsAreShared() throws IOException {
+        File file = this.directory.resolve("shared.ifgdb").toFile();
+        BinaryGraphDatabaseFormat.write(Arrays.asList(buildGraph("a"), buildGraph("b")), file);
+
+        ArrayList<Graph> graphs = BinaryGraphDatabaseFormat.read(file);
+        assertSame(graphs.get(0).getNodes().get(0).getLabelDescriptor(), graphs.get(1).getNodes().get(0).getLabelDescriptor());
+    }
+
+    /**
+     * A file declaring a column larger than {@link BinaryGraphDatabaseFormat#MAX_SECTION_SIZE} bytes is rejected,
+     * both when it is read and when it is mapped.
+     *
+     * @throws IOException exception thrown if the file can not be written.
+     */
+    @Test
+    public void oversizedColumnsAreRejected() throws IOException {
+        // 300 million nodes need 2.4 GB for each column of coordinates.
+        File file = this.writeHeader(1, 300_000_000, 0);
+
+        IOException readException = assertThrows(IOException.class, () -> BinaryGraphDatabaseFormat.read(file));
+        assertTrue(readException.getMessage().contains("exceeds the maximum"), readException.getMessage());
+        IOException mapException = assertThrows(IOException.class, () -> new MappedGraphDatabase(file));
+        assertTrue(mapException.getMessage().contains("exceeds the maximum"), mapException.getMessage());
+    }
+
+    /**
+     * A file declaring a negative number of elements is rejected.
+     *
+     * @throws IOException exception thrown if the file can not be written.
+     */
+    @Test
+    public void negativeCountsAreRejected() throws IOException {
+        File file = this.writeHeader(1, -1, 0);
+
+        assertThrows(IOException.class, () -> BinaryGraphDatabaseFormat.read(file));
+    }
+
+    /**
+     * A truncated file is rejected.
+     *
+     * @throws IOException exception thrown if the file can not be written.
+     */
+    @Test
+    public void truncatedFilesAreRejected() throws IOException {
+        File file = this.directory.resolve("truncated.ifgdb").toFile();
+        BinaryGraphDatabaseFormat.write(buildGraphs(), file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IOException.class, () -> BinaryGraphDatabaseFormat.read(file));
+        assertThrows(IOException.class, () -> new MappedGraphDatabase(file));
+    }
+
+    /**
+     * Write a file made only of a header.
+     *
+     * @param numberOfGraphs number of graphs declared.
+     * @param numberOfNodes  number of nodes declared.
+     * @param numberOfEdges  number of edges declared.
+     * @return the file written.
+     * @throws IOException exception thrown if the file can not be written.
+     */
+    private File writeHeader(int numberOfGraphs, int numberOfNodes, int numberOfEdges) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BinaryGraphDatabaseFormat.HEADER_SIZE);
+        header.putInt(BinaryGraphDatabaseFormat.MAGIC).putInt(BinaryGraphDatabaseFormat.VERSION)
+                .putInt(numberOfGraphs).putInt(numberOfNodes).putInt(numberOfEdges).putInt(0).putInt(0).putInt(0).putInt(0);
+        File file = this.directory.resolve("header.ifgdb").toFile();
+        Files.write(file.toPath(), header.array());
+        return file;
+    }
+
+    /**
+     * Build graphs covering every case of the format: synthetic graphs, a graph without nodes, and nodes without
+     * image, location or descriptors.
+     *
+     * @return the graphs.
+     */
+    static List<Graph> buildGraphs() {
+        List<Graph> graphs = new ArrayList<>();
+        SyntheticGraphGenerator syntheticGraphGenerator = new SyntheticGraphGenerator(7, 0, 12, 0.5);
+        for (int i = 0; i < 50; i++) {
+            graphs.add(syntheticGraphGenerator.nextGraph());
+        }
+        graphs.add(new Graph("empty", Collections.emptyList(), Collections.emptyList()));
+        graphs.add(buildGraph("graph_ñ"));
+        graphs.add(new Graph(null, Collections.singletonList(new Node("alone", null, null, null, null)), Collections.emptyList()));
+        return graphs;
+    }
+
+    /**
+     * Build a graph with two nodes and an edge, one node without image path nor location.
+     *
+     * @param id id of the graph.
+     * @return the graph.
+     */
+    private static Graph buildGraph(String id) {
+        Descriptor color = new Descriptor();
+        color.add(new PropertyWithDegree("red", 1.0));
+        color.add(new PropertyWithDegree("orange", 0.25));
+        Descriptor label = new Descriptor();
+        label.add(new PropertyWithDegree("círculo", 0.8));
+        Descriptor relation = new Descriptor();
+        relation.add(new PropertyWithDegree("up", 0.5));
+        relation.add(new PropertyWithDegree("right", 0.0));
+        Node first = new Node("node_0", color, label, "images/circle.png", new Tuple<>(10.0, -3.5));
+        Node second = new Node("node_1", new Descriptor(), label, null, null);
+        return new Graph(id, Arrays.asList(first, second), Collections.singletonList(new Edge("edge_0_1", "node_0", "node_1", relation)));
+    }
+
+    /**
+     * Check that two lists of graphs have the same graphs, comparing all their fields.
+     *
+     * @param expected graphs expected.
+     * @param actual   graphs found.
+     */
+    static void assertSameGraphs(List<Graph> expected, List<Graph> actual) {
+        Gson gson = new Gson();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(gson.toJson(expected.get(i)), gson.toJson(actual.get(i)), "graph " + i);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.algorithm.FuzzyGraphMatching;
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.AggregationOperators;
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.Implications;
+import imagefuzzygraph.data.PropertyWithDegree;
+import imagefuzzygraph.data.Resemblance;
+import imagefuzzygraph.data.TNorms;
+import imagefuzzygraph.graph.Edge;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graph.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link InvertedGraphIndex}, comparing its candidates with the graphs found by a full scan of the database.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class InvertedGraphIndexTest {
+
+    /**
+     * Every graph with a positive inclusion degree of the query is a candidate, with every implication, when some
+     * degrees of the database and of the queries are 0.
+     */
+    @Test
+    public void candidatesIncludeFullScan() {
+        Random random = new Random(3);
+        // Copies of a few graphs, so many graphs of the database are included in a copy.
+        SyntheticGraphGenerator syntheticGraphGenerator = new SyntheticGraphGenerator(5, 1, 4, 0.5);
+        List<Graph> graphs = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            graphs.add(syntheticGraphGenerator.nextGraph());
+        }
+        List<Graph> database = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            Graph graph = graphs.get(random.nextInt(graphs.size()));
+            database.add(i % 3 == 0 ? withZeroDegrees(graph, random) : graph);
+        }
+        InvertedGraphIndex index = new InvertedGraphIndex();
+        database.forEach(index::add);
+
+        for (int q = 0; q < 20; q++) {
+            Graph query = q % 3 == 2 ? syntheticGraphGenerator.nextGraph() : graphs.get(random.nextInt(graphs.size()));
+            if (q % 3 == 1) {
+                query = withZeroDegrees(query, random);
+            }
+            for (Implications implication : Implications.values()) {
+                FuzzyGraphMatching fuzzyGraphMatching = new FuzzyGraphMatching(TNorms.MINIMUM, implication, Resemblance.CRISP);
+                for (AggregationOperator aggregationOperator : new AggregationOperator[]{AggregationOperators.all(), AggregationOperators.atLeast(0.3, 0.8)}) {
+                    assertIncludesFullScan(database, index.getCandidates(query, aggregationOperator), query,
+                            fuzzyGraphMatching, aggregationOperator, implication.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * A source node is a candidate of a query node with the same terms in degree 0, which include it in a positive
+     * degree with the Łukasiewicz implication.
+     */
+    @Test
+    public void zeroQueryDegreesAreCandidates() {
+        InvertedGraphIndex index = new InvertedGraphIndex();
+        index.add(buildGraph("source", 0.5));
+        Graph query = buildGraph("query", 0.0);
+        FuzzyGraphMatching fuzzyGraphMatching = new FuzzyGraphMatching(TNorms.MINIMUM, Implications.LUKASIEWICZ, Resemblance.CRISP);
+
+        assertTrue(fuzzyGraphMatching.computeInclusion(buildGraph("source", 0.5), query) > 0.0);
+        assertArrayEquals(new int[]{0}, index.getCandidates(query, AggregationOperators.all()));
+    }
+
+    /**
+     * Check that the candidates include every graph of the database whose inclusion degree of the query is greater
+     * than 0.
+     *
+     * @param database            graphs of the database.
+     * @param candidates          positions of the candidate graphs.
+     * @param query               query graph.
+     * @param fuzzyGraphMatching  matching computing the inclusion degrees.
+     * @param aggregationOperator an {@link AggregationOperator}.
+     * @param where               description of the case checked.
+     */
+    static void assertIncludesFullScan(List<Graph> database, int[] candidates, Graph query, FuzzyGraphMatching fuzzyGraphMatching,
+                                       AggregationOperator aggregationOperator, String where) {
+        for (int i = 0; i < database.size(); i++) {
+            if (fuzzyGraphMatching.computeInclusion(database.get(i), query, aggregationOperator) > 0.0) {
+                assertTrue(Arrays.binarySearch(candidates, i) >= 0, "graph " + i + " of " + query.getId() + " with " + where);
+            }
+        }
+    }
+
+    /**
+     * Copy a graph setting to 0 the degrees of some terms of its nodes and edges.
+     *
+     * @param graph  graph to be copied.
+     * @param random random generator choosing the terms.
+     * @return the copy of the graph.
+     */
+    static Graph withZeroDegrees(Graph graph, Random random) {
+        List<Node> nodes = new ArrayList<>();
+        for (Node node : graph.getNodes()) {
+            nodes.add(new Node(node.getId(), withZeroDegrees(node.getColorFuzzyDescriptor(), random),
+                    withZeroDegrees(node.getLabelDescriptor(), random), node.getImagePath(), node.getLocation()));
+        }
+        List<Edge> edges = new ArrayList<>();
+        for (Edge edge : graph.getEdges()) {
+            edges.add(new Edge(edge.getId(), edge.getStartNodeId(), edge.getEndNodeId(),
+                    withZeroDegrees(edge.getSpatialRelationshipFuzzyDescriptor(), random)));
+        }
+        return new Graph(graph.getId(), nodes, edges);
+    }
+
+    /**
+     * Copy a descriptor setting to 0 the degrees of some of its terms.
+     *
+     * @param descriptor descriptor to be copied.
+     * @param random     random generator choosing the terms.
+     * @return the copy of the descriptor.
+     */
+    private static Descriptor withZeroDegrees(Descriptor descriptor, Random random) {
+        Descriptor copy = new Descriptor();
+        for (PropertyWithDegree property : descriptor) {
+            copy.add(new PropertyWithDegree(property.getLabel(), random.nextInt(4) == 0 ? 0.0 : property.getDegree()));
+        }
+        return copy;
+    }
+
+    /**
+     * Build a graph with a single node whose colour and label terms have the same degree.
+     *
+     * @param id     id of the graph.
+     * @param degree degree of the terms.
+     * @return the graph.
+     */
+    private static Graph buildGraph(String id, double degree) {
+        Descriptor color = new Descriptor();
+        color.add(new PropertyWithDegree("red", degree));
+        Descriptor label = new Descriptor();
+        label.add(new PropertyWithDegree("circle", degree));
+        return new Graph(id, Collections.singletonList(new Node("node_0", color, label, null, null)), Collections.emptyList());
+    }
+}
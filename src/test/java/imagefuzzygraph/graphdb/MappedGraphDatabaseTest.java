@@ -0,0 +1,173 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.algorithm.GraphQueryEngine;
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.AggregationOperators;
+import imagefuzzygraph.data.CompiledDescriptorTable;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.CompactGraph;
+import imagefuzzygraph.graph.Graph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of {@link MappedGraphDatabase}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class MappedGraphDatabaseTest {
+
+    /**
+     * Directory of the files written by the tests.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * The compact graphs read from the mapped file are the same as the compact graphs of the graphs built from it.
+     *
+     * @throws IOException exception thrown if the file can not be written or mapped.
+     */
+    @Test
+    public void compactGraphsMatchGraphs() throws IOException {
+        List<Graph> graphs = buildGraphs();
+        MappedGraphDatabase database = this.map(graphs);
+
+        assertEquals(graphs.size(), database.size());
+        for (int i = 0; i < database.size(); i++) {
+            assertSameCompactGraphs(database.get(i).getCompactGraph(), database.getCompactGraph(i), "graph " + i);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> database.getCompactGraph(graphs.size()));
+    }
+
+    /**
+     * A query of the mapped database, scored through its compact graphs, returns the same matches as the same query
+     * of the graphs in memory.
+     *
+     * @throws IOException exception thrown if the file can not be written or mapped.
+     */
+    @Test
+    public void queryMatchesGraphsInMemory() throws IOException {
+        // The aggregation of the inclusion degrees of a graph without nodes is undefined.
+        List<Graph> graphs = buildGraphs();
+        graphs.removeIf(graph -> graph.getNodes().isEmpty());
+        MappedGraphDatabase database = this.map(graphs);
+        GraphQueryEngine engine = new GraphQueryEngine();
+
+        List<Graph> queries = new ArrayList<>();
+        SyntheticGraphGenerator syntheticGraphGenerator = new SyntheticGraphGenerator(11, 1, 4, 0.5);
+        for (int q = 0; q < 5; q++) {
+            queries.add(syntheticGraphGenerator.nextGraph());
+        }
+        for (AggregationOperator aggregationOperator : new AggregationOperator[]{AggregationOperators.all(), AggregationOperators.atLeast(0.3, 0.8)}) {
+            for (Graph query : queries) {
+                assertEquals(toList(engine.query(graphs, query, aggregationOperator, 10)),
+                        toList(engine.query(database, query, aggregationOperator, 10)));
+            }
+            List<ArrayList<Tuple<Integer, Double>>> expected = engine.queryAll(graphs, queries, aggregationOperator, 10);
+            List<ArrayList<Tuple<Integer, Double>>> actual = engine.queryAll(database, queries, aggregationOperator, 10);
+            for (int q = 0; q < queries.size(); q++) {
+                assertEquals(toList(expected.get(q)), toList(actual.get(q)));
+            }
+        }
+    }
+
+    /**
+     * Return the matches of a query as a list of positions and inclusion degrees, which can be compared.
+     *
+     * @param matches matches of a query.
+     * @return list with the position and the inclusion degree of every match, in order.
+     */
+    private static List<List<Object>> toList(List<Tuple<Integer, Double>> matches) {
+        List<List<Object>> list = new ArrayList<>();
+        for (Tuple<Integer, Double> match : matches) {
+            list.add(Arrays.asList(match.getFirst(), match.getSecond()));
+        }
+        return list;
+    }
+
+    /**
+     * Write graphs to a file and map it.
+     *
+     * @param graphs graphs to be written.
+     * @return the database mapping the file.
+     * @throws IOException exception thrown if the file can not be written or mapped.
+     */
+    private MappedGraphDatabase map(List<Graph> graphs) throws IOException {
+        File file = this.directory.resolve("graphs.ifgdb").toFile();
+        BinaryGraphDatabaseFormat.write(graphs, file);
+        return new MappedGraphDatabase(file);
+    }
+
+    /**
+     * Build the graphs of {@link BinaryGraphDatabaseFormatTest#buildGraphs()} whose compact graph can be built, that is,
+     * without the nodes lacking descriptors.
+     *
+     * @return the graphs.
+     */
+    private static List<Graph> buildGraphs() {
+        List<Graph> graphs = new ArrayList<>();
+        for (Graph graph : BinaryGraphDatabaseFormatTest.buildGraphs()) {
+            if (graph.getNodes().stream().allMatch(node -> node.getColorFuzzyDescriptor() != null && node.getLabelDescriptor() != null)) {
+                graphs.add(graph);
+            }
+        }
+        return graphs;
+    }
+
+    /**
+     * Check that two compact graphs have the same nodes, edges, adjacency and descriptors.
+     *
+     * @param expected compact graph expected.
+     * @param actual   compact graph found.
+     * @param where    description of the case checked.
+     */
+    private static void assertSameCompactGraphs(CompactGraph expected, CompactGraph actual, String where) {
+        assertEquals(expected.getId(), actual.getId(), where);
+        assertEquals(expected.getNumberOfNodes(), actual.getNumberOfNodes(), where);
+        assertEquals(expected.getNumberOfEdges(), actual.getNumberOfEdges(), where);
+        for (int n = 0; n < expected.getNumberOfNodes(); n++) {
+            assertEquals(expected.getNodeId(n), actual.getNodeId(n), where);
+            assertEquals(expected.getFirstAdjacentEdge(n), actual.getFirstAdjacentEdge(n), where);
+        }
+        assertEquals(expected.getFirstAdjacentEdge(expected.getNumberOfNodes()), actual.getFirstAdjacentEdge(actual.getNumberOfNodes()), where);
+        for (int e = 0; e < expected.getNumberOfEdges(); e++) {
+            assertEquals(expected.getEdgeId(e), actual.getEdgeId(e), where);
+            assertEquals(expected.getStartNode(e), actual.getStartNode(e), where);
+            assertEquals(expected.getEndNode(e), actual.getEndNode(e), where);
+            assertEquals(expected.getAdjacentNode(e), actual.getAdjacentNode(e), where);
+            assertEquals(expected.getAdjacentEdge(e), actual.getAdjacentEdge(e), where);
+        }
+        assertSameDescriptors(expected.getColorFuzzyDescriptors(), actual.getColorFuzzyDescriptors(), where);
+        assertSameDescriptors(expected.getLabelDescriptors(), actual.getLabelDescriptors(), where);
+        assertSameDescriptors(expected.getSpatialRelationshipFuzzyDescriptors(), actual.getSpatialRelationshipFuzzyDescriptors(), where);
+    }
+
+    /**
+     * Check that two tables of compiled descriptors have the same labels and degrees.
+     *
+     * @param expected table expected.
+     * @param actual   table found.
+     * @param where    description of the case checked.
+     */
+    private static void assertSameDescriptors(CompiledDescriptorTable expected, CompiledDescriptorTable actual, String where) {
+        assertEquals(expected.size(), actual.size(), where);
+        for (int d = 0; d <= expected.size(); d++) {
+            assertEquals(expected.getFirstProperty(d), actual.getFirstProperty(d), where);
+        }
+        for (int p = 0; p < expected.getFirstProperty(expected.size()); p++) {
+            assertEquals(expected.getLabelId(p), actual.getLabelId(p), where);
+            assertEquals(expected.getDegree(p), actual.getDegree(p), where);
+        }
+    }
+}
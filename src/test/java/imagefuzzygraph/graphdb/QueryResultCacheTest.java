@@ -0,0 +1,198 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.algorithm.FuzzyGraphMatching;
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.AggregationOperators;
+import imagefuzzygraph.data.Descriptor;
+import imagefuzzygraph.data.Implications;
+import imagefuzzygraph.data.PropertyWithDegree;
+import imagefuzzygraph.data.Resemblance;
+import imagefuzzygraph.data.TNorms;
+import imagefuzzygraph.data.Tuple;
+import imagefuzzygraph.graph.Edge;
+import imagefuzzygraph.graph.Graph;
+import imagefuzzygraph.graph.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests of {@link QueryResultCache}.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class QueryResultCacheTest {
+
+    /**
+     * Aggregation operator of the cached queries.
+     */
+    private static final AggregationOperator ALL = AggregationOperators.all();
+
+    /**
+     * Matching of the cached queries.
+     */
+    private static final FuzzyGraphMatching MATCHING = new FuzzyGraphMatching();
+
+    /**
+     * A cached result is found for the same query graph, whatever the ids of its nodes and edges and the order of the
+     * properties of its descriptors, and not for another operator or number of matches.
+     */
+    @Test
+    public void resultsAreIndexedByCanonicalQuery() {
+        GraphDatabase database = buildDatabase();
+        QueryResultCache cache = new QueryResultCache(database, 4);
+        cache.put(buildQuery("a", false), MATCHING, ALL, 10, database.getVersion(), buildResult());
+
+        assertNotNull(cache.get(buildQuery("a", false), MATCHING, ALL, 10));
+        assertNotNull(cache.get(buildQuery("b", true), MATCHING, ALL, 10));
+        assertNull(cache.get(buildQuery("a", false), MATCHING, ALL, 5));
+        assertNull(cache.get(buildQuery("a", false), MATCHING, AggregationOperators.atLeast(0.3, 0.8), 10));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * A cached result is found for an equivalent matching, built with the same t-norm, implication and resemblance
+     * relation, and not for a matching with another t-norm or implication.
+     */
+    @Test
+    public void resultsAreIndexedByMatching() {
+        GraphDatabase database = buildDatabase();
+        QueryResultCache cache = new QueryResultCache(database, 4);
+        cache.put(buildQuery("a", false), MATCHING, ALL, 10, database.getVersion(), buildResult());
+
+        assertNotNull(cache.get(buildQuery("a", false), new FuzzyGraphMatching(TNorms.MINIMUM, Implications.GOGUEN, Resemblance.CRISP), ALL, 10));
+        assertNull(cache.get(buildQuery("a", false), new FuzzyGraphMatching(TNorms.PRODUCT, Implications.GOGUEN, Resemblance.CRISP), ALL, 10));
+        assertNull(cache.get(buildQuery("a", false), new FuzzyGraphMatching(TNorms.MINIMUM, Implications.GODEL, Resemblance.CRISP), ALL, 10));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * The cached results are discarded as soon as a graph of the database is appended, replaced or removed, or the
+     * database is cleared.
+     */
+    @Test
+    public void changesOfTheDatabaseInvalidateResults() {
+        SyntheticGraphGenerator syntheticGraphGenerator = new SyntheticGraphGenerator(3);
+        assertInvalidated(database -> database.add(syntheticGraphGenerator.nextGraph()));
+        assertInvalidated(database -> database.addAll(Collections.singletonList(syntheticGraphGenerator.nextGraph())));
+        assertInvalidated(database -> database.set(0, syntheticGraphGenerator.nextGraph()));
+        assertInvalidated(database -> database.remove(0));
+        assertInvalidated(GraphDatabase::clear);
+    }
+
+    /**
+     * A result computed over an older version of the database is not cached.
+     */
+    @Test
+    public void staleResultsAreNotCached() {
+        GraphDatabase database = buildDatabase();
+        QueryResultCache cache = new QueryResultCache(database, 4);
+        long version = database.getVersion();
+        database.set(0, new SyntheticGraphGenerator(5).nextGraph());
+        cache.put(buildQuery("a", false), MATCHING, ALL, 10, version, buildResult());
+
+        assertNull(cache.get(buildQuery("a", false), MATCHING, ALL, 10));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * The candidates of the database reflect a replaced graph, as its indexes are rebuilt.
+     */
+    @Test
+    public void replacedGraphsAreIndexed() {
+        GraphDatabase database = buildDatabase();
+        Graph query = buildQuery("a", false);
+        database.set(1, buildQuery("c", true));
+
+        assertArrayEquals(new int[]{1}, database.getCandidates(query, ALL));
+    }
+
+    /**
+     * Check that a change of the database discards the cached results and changes its version.
+     *
+     * @param change change of the database.
+     */
+    private static void assertInvalidated(Consumer<GraphDatabase> change) {
+        GraphDatabase database = buildDatabase();
+        QueryResultCache cache = new QueryResultCache(database, 4);
+        long version = database.getVersion();
+        cache.put(buildQuery("a", false), MATCHING, ALL, 10, version, buildResult());
+        assertEquals(1, cache.size());
+
+        change.accept(database);
+        assertNotEquals(version, database.getVersion());
+        assertNull(cache.get(buildQuery("a", false), MATCHING, ALL, 10));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Build a database of synthetic graphs, none of them similar to the query graphs.
+     *
+     * @return the database.
+     */
+    private static GraphDatabase buildDatabase() {
+        GraphDatabase database = new GraphDatabase();
+        SyntheticGraphGenerator syntheticGraphGenerator = new SyntheticGraphGenerator(1);
+        for (int i = 0; i < 3; i++) {
+            database.add(syntheticGraphGenerator.nextGraph());
+        }
+        return database;
+    }
+
+    /**
+     * Build a query graph with two nodes and an edge.
+     *
+     * @param prefix   prefix of the ids of its nodes and edges.
+     * @param reversed whether the properties of its descriptors are in reverse order.
+     * @return the query graph.
+     */
+    private static Graph buildQuery(String prefix, boolean reversed) {
+        Descriptor color = buildDescriptor(reversed, "query_red", 1.0, "query_orange", 0.25);
+        Descriptor label = buildDescriptor(reversed, "query_circle", 0.8, "query_square", 0.1);
+        Descriptor relation = buildDescriptor(reversed, "query_up", 0.5, "query_right", 0.5);
+        Node first = new Node(prefix + "_0", color, label, null, null);
+        Node second = new Node(prefix + "_1", color, label, null, null);
+        return new Graph(prefix, Arrays.asList(first, second),
+                Collections.singletonList(new Edge(prefix + "_edge", first.getId(), second.getId(), relation)));
+    }
+
+    /**
+     * Build a descriptor with two properties.
+     *
+     * @param reversed     whether the properties are in reverse order.
+     * @param firstLabel   label of the first property.
+     * @param firstDegree  degree of the first property.
+     * @param secondLabel  label of the second property.
+     * @param secondDegree degree of the second property.
+     * @return the descriptor.
+     */
+    private static Descriptor buildDescriptor(boolean reversed, String firstLabel, double firstDegree, String secondLabel, double secondDegree) {
+        Descriptor descriptor = new Descriptor();
+        descriptor.add(new PropertyWithDegree(firstLabel, firstDegree));
+        descriptor.add(new PropertyWithDegree(secondLabel, secondDegree));
+        if (reversed) {
+            Collections.reverse(descriptor);
+        }
+        return descriptor;
+    }
+
+    /**
+     * Build the result of a query.
+     *
+     * @return a result with a single match.
+     */
+    private static ArrayList<Tuple<Integer, Double>> buildResult() {
+        ArrayList<Tuple<Integer, Double>> result = new ArrayList<>();
+        result.add(new Tuple<>(0, 1.0));
+        return result;
+    }
+}
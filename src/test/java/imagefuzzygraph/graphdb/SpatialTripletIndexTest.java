@@ -0,0 +1,70 @@
+package imagefuzzygraph.graphdb;
+
+import imagefuzzygraph.algorithm.FuzzyGraphMatching;
+import imagefuzzygraph.data.AggregationOperator;
+import imagefuzzygraph.data.AggregationOperators;
+import imagefuzzygraph.data.Implications;
+import imagefuzzygraph.data.Resemblance;
+import imagefuzzygraph.data.TNorms;
+import imagefuzzygraph.graph.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static imagefuzzygraph.graphdb.InvertedGraphIndexTest.assertIncludesFullScan;
+import static imagefuzzygraph.graphdb.InvertedGraphIndexTest.withZeroDegrees;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link SpatialTripletIndex} and of the candidates of {@link GraphDatabase}, comparing them with the graphs
+ * found by a full scan of the database.
+ *
+ * @author Néstor Rodríguez Vico (nrv23@correo.ugr.es).
+ */
+public class SpatialTripletIndexTest {
+
+    /**
+     * Every graph with a positive inclusion degree of the query is a candidate of the triplet index and of the
+     * database, with every implication, when some degrees of the database and of the queries are 0.
+     */
+    @Test
+    public void candidatesIncludeFullScan() {
+        Random random = new Random(7);
+        // Copies of a few graphs where every node has an outgoing edge, which the triplet index can discard, and of a
+        // few graphs with isolated nodes, which it can not, so many graphs of the database are included in a copy.
+        SyntheticGraphGenerator connectedGraphs = new SyntheticGraphGenerator(9, 2, 4, 1.0);
+        SyntheticGraphGenerator sparseGraphs = new SyntheticGraphGenerator(13, 1, 4, 0.5);
+        List<Graph> graphs = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            graphs.add((i % 3 == 0 ? sparseGraphs : connectedGraphs).nextGraph());
+        }
+        GraphDatabase database = new GraphDatabase();
+        for (int i = 0; i < 150; i++) {
+            Graph graph = graphs.get(random.nextInt(graphs.size()));
+            database.add(i % 3 == 0 ? withZeroDegrees(graph, random) : graph);
+        }
+        SpatialTripletIndex index = new SpatialTripletIndex();
+        database.forEach(index::add);
+
+        int prunedGraphs = 0;
+        for (int q = 0; q < 20; q++) {
+            Graph query = q % 3 == 2 ? connectedGraphs.nextGraph() : graphs.get(random.nextInt(graphs.size()));
+            if (q % 3 == 1) {
+                query = withZeroDegrees(query, random);
+            }
+            for (Implications implication : Implications.values()) {
+                FuzzyGraphMatching fuzzyGraphMatching = new FuzzyGraphMatching(TNorms.MINIMUM, implication, Resemblance.CRISP);
+                for (AggregationOperator aggregationOperator : new AggregationOperator[]{AggregationOperators.all(), AggregationOperators.atLeast(0.3, 0.8)}) {
+                    int[] candidates = index.getCandidates(query, aggregationOperator);
+                    assertIncludesFullScan(database, candidates, query, fuzzyGraphMatching, aggregationOperator, implication.toString());
+                    assertIncludesFullScan(database, database.getCandidates(query, aggregationOperator), query,
+                            fuzzyGraphMatching, aggregationOperator, implication + " in the database");
+                    prunedGraphs += database.size() - candidates.length;
+                }
+            }
+        }
+        assertTrue(prunedGraphs > 0);
+    }
+}